@@ -1,14 +1,17 @@
 package app;
 
+import src.domain.algorithms.BatchGenerator;
 import src.domain.algorithms.Generator;
 import src.domain.entities.Board;
 import src.domain.entities.Difficulty;
 
+import java.util.Random;
+
 public class GeneratorApp {
     public static void main(String[] args) {
-        if(args.length != 3) {
+        if(args.length < 3 || args.length > 6) {
             System.out.println("Kakuro generator tool v1.0.0\n");
-            System.out.println("Usage: java GeneratorApp <width> <height> <difficulty>\n");
+            System.out.println("Usage: java GeneratorApp <width> <height> <difficulty> [<count> [<threads> [<seed>]]]\n");
             System.out.println("Parameters:");
             System.out.println("width       The width of the board to generate");
             System.out.println("height      The height of the board to generate");
@@ -16,8 +19,12 @@ public class GeneratorApp {
             System.out.println("            1: Easy difficulty");
             System.out.println("            2: Medium difficulty");
             System.out.println("            3: Hard difficulty");
-            System.out.println("            4: Extreme difficulty\n");
+            System.out.println("            4: Extreme difficulty");
+            System.out.println("count       Number of boards to generate (default: 1). Each board is preceded by its seed");
+            System.out.println("threads     Number of boards generated at the same time (default: number of processors)");
+            System.out.println("seed        Seed the seed of each board is derived from (default: random)\n");
             System.out.println("Example: Use \"java GeneratorApp 10 12 2\" to generate a 10x12 kakuro with medium difficulty");
+            System.out.println("         Use \"java GeneratorApp 10 12 2 1000 4 42\" to generate 1000 of them using 4 threads");
             return;
         }
 
@@ -35,6 +42,29 @@ public class GeneratorApp {
             case 4: diff = Difficulty.EXTREME; break;
         }
 
+        if (args.length > 3) {
+            int count   = Integer.parseInt(args[3]);
+            int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            long seed   = args.length > 5 ? Long.parseLong(args[5]) : (new Random()).nextLong();
+
+            BatchGenerator batch = new BatchGenerator(width, height, diff, false, count, seed, threads);
+            batch.setProgressListener(new BatchGenerator.ProgressListener() {
+                @Override
+                public void onProgress(int completed, int total, long elapsedMillis) {
+                    double rate = elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+                    System.err.printf("Generated %d/%d boards in %.1f s (%.2f boards/s)%n", completed, total, elapsedMillis / 1000.0, rate);
+                }
+            });
+            batch.generate(new BatchGenerator.BoardSink() {
+                @Override
+                public void onBoardGenerated(int index, Board board, String encodedSeed) {
+                    System.out.println(encodedSeed);
+                    System.out.println(board.toString());
+                }
+            });
+            return;
+        }
+
         Generator generator = new Generator(width, height, diff);
         generator.generate();
 
@@ -6,6 +6,7 @@ import java.util.Scanner;
 
 import src.domain.controllers.Reader;
 import src.domain.algorithms.Solver;
+import src.domain.algorithms.SolverResult;
 import src.domain.entities.Board;
 
 public class SolverApp {
@@ -17,13 +18,29 @@ public class SolverApp {
     }
 
     public static void main(String[] args) {
+        // optional arguments: maximum time to spend solving in milliseconds, and --stats to print search statistics
+        long timeout = 0;
+        boolean printStats = false;
+        for (String arg : args) {
+            if (arg.equals("--stats")) printStats = true;
+            else timeout = Long.parseLong(arg);
+        }
+
         String input = stdin();
 
         Board board = Reader.fromString(input);
         Solver solver = new Solver(board);
-        int nSolutions = solver.solve();
+        solver.setStatsEnabled(printStats);
+        SolverResult result = solver.solve(timeout, null);
+        int nSolutions = result.getNumSolutions();
+
+        if (result.getStatus() == SolverResult.Status.UNDETERMINED) {
+            System.err.println("Gave up after " + result.getElapsedMillis() + " ms (" + result.getNodes() + " nodes expanded)");
+        }
+
+        if (printStats) System.err.print(solver.getStats().toString());
 
-        ArrayList<Board> solutions = solver.getSolutions();
+        ArrayList<Board> solutions = result.getSolutions();
 
         System.out.println(nSolutions);
         if (nSolutions > 0) System.out.println(solutions.get(0).toString());
@@ -0,0 +1,74 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.domain.entities.CompactBoard;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board benchmark.
+ * Copies and reads boards of several sizes both as Board and as CompactBoard.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({
+        "data/kakuros/unsolved/jutge.kak",
+        "data/kakuros/generated/60_60_medium_unique.kak",
+        "data/kakuros/generated/150_150_easy_unique.kak"
+    })
+    public String file;
+
+    private Board board;
+    private CompactBoard compactBoard;
+
+    @Setup
+    public void setup() throws IOException {
+        board = Reader.fromFile(file);
+        compactBoard = new CompactBoard(board);
+    }
+
+    @Benchmark
+    public Board copyBoard() {
+        return new Board(board);
+    }
+
+    @Benchmark
+    public CompactBoard copyCompactBoard() {
+        return new CompactBoard(compactBoard);
+    }
+
+    @Benchmark
+    public int scanBoard() {
+        int total = 0;
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c)) total += board.getValue(r, c) + board.getCellNotations(r, c);
+                else total += board.getHorizontalSum(r, c);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int scanCompactBoard() {
+        int total = 0;
+        for (int r = 0; r < compactBoard.getHeight(); r++) {
+            for (int c = 0; c < compactBoard.getWidth(); c++) {
+                if (compactBoard.isWhiteCell(r, c)) total += compactBoard.getValue(r, c) + compactBoard.getCellNotations(r, c);
+                else total += compactBoard.getHorizontalSum(r, c);
+            }
+        }
+        return total;
+    }
+}
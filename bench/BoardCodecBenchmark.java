@@ -0,0 +1,71 @@
+package bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.repository.serializers.BoardCodec;
+import src.repository.serializers.BoardDeserializer;
+import src.repository.serializers.BoardSerializer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board codec benchmark.
+ * Saves and loads boards of several sizes both with the binary BoardCodec and as the JSON of the board serializers.
+ *
+ * @version 0.1.0 (24/12/2020)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardCodecBenchmark {
+    @Param({
+        "data/kakuros/unsolved/jutge.kak",
+        "data/kakuros/generated/60_60_medium_unique.kak",
+        "data/kakuros/generated/150_150_easy_unique.kak"
+    })
+    public String file;
+
+    private Board board;
+    private Gson gson;
+    private byte[] encoded;
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        board = Reader.fromFile(file);
+        gson = new GsonBuilder()
+                .registerTypeAdapter(Board.class, new BoardSerializer())
+                .registerTypeAdapter(Board.class, new BoardDeserializer())
+                .create();
+        encoded = BoardCodec.encode(board);
+        json = gson.toJson(board, Board.class);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BoardCodec.encode(board);
+    }
+
+    @Benchmark
+    public Board decodeBinary() {
+        return BoardCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return gson.toJson(board, Board.class);
+    }
+
+    @Benchmark
+    public Board decodeJson() {
+        return gson.fromJson(json, Board.class);
+    }
+}
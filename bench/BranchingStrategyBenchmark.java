@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.algorithms.BranchingStrategy;
+import src.domain.algorithms.Solver;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Branching strategy benchmark.
+ * Solves the hardest boards of the data/kakuros corpus with each of the built-in branching strategies.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BranchingStrategyBenchmark {
+    @Param({
+        "data/kakuros/unsolved/cpu_burner.kak",
+        "data/kakuros/unsolved/evil.kak",
+        "data/kakuros/unsolved/jutge.kak",
+        "data/kakuros/generated/20_20_extreme_unique.kak",
+        "data/kakuros/generated/40_40_hard_unique.kak",
+        "data/kakuros/generated/60_60_medium_unique.kak",
+        "data/kakuros/generated/extreme.kak"
+    })
+    public String file;
+
+    @Param({ "FIRST_IN_QUEUE", "MRV", "TIGHTEST_LINE", "LCV", "RANDOMIZED_RESTARTS" })
+    public String strategy;
+
+    private Board board;
+
+    @Setup
+    public void setup() throws IOException {
+        board = Reader.fromFile(file);
+    }
+
+    private BranchingStrategy createStrategy() {
+        switch (strategy) {
+            case "MRV":                 return new BranchingStrategy.MinimumRemainingValues();
+            case "TIGHTEST_LINE":       return new BranchingStrategy.TightestLine();
+            case "LCV":                 return new BranchingStrategy.LeastConstrainingValue();
+            case "RANDOMIZED_RESTARTS": return new BranchingStrategy.RandomizedRestarts(0);
+            default:                    return new BranchingStrategy.FirstInQueue();
+        }
+    }
+
+    @Benchmark
+    public int solve() {
+        Solver solver = new Solver(board);
+        solver.setBranchingStrategy(createStrategy());
+        return solver.solve();
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.algorithms.Generator;
+import src.domain.entities.Board;
+import src.domain.entities.Difficulty;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generator benchmark.
+ * Generates boards of several sizes and difficulties, always with the same seeds so that runs are comparable.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+    private static final long[] SEEDS = { 876539892L, 12345L, 42L, 2020L };
+
+    @Param({ "9", "15", "25", "40" })
+    public int size;
+
+    @Param({ "EASY", "MEDIUM", "HARD", "EXTREME" })
+    public Difficulty difficulty;
+
+    @Param({ "false", "true" })
+    public boolean forceUnique;
+
+    private int nextSeed;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        nextSeed = 0;
+    }
+
+    @Benchmark
+    public Board generate() {
+        long seed = SEEDS[nextSeed];
+        nextSeed = (nextSeed + 1) % SEEDS.length;
+        Generator generator = new Generator(size, size, difficulty, seed, forceUnique);
+        generator.generate();
+        return generator.getGeneratedBoard();
+    }
+}
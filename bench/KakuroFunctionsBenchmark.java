@@ -0,0 +1,218 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.algorithms.helpers.KakuroFunctions;
+import src.domain.algorithms.helpers.SwappingCellQueue;
+import src.domain.controllers.Reader;
+import src.domain.entities.BlackCell;
+import src.domain.entities.Board;
+import src.domain.entities.WhiteCell;
+import src.utils.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KakuroFunctions benchmark.
+ * Measures the propagation of a single cell value assignation (and its rollback) once all the sums of the board
+ * have been assigned, that is, the unit of work of every node of the Solver search.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KakuroFunctionsBenchmark {
+    @Param({
+        "data/kakuros/unsolved/sample.kak",
+        "data/kakuros/generated/hard.kak",
+        "data/kakuros/generated/60_60_medium_unique.kak"
+    })
+    public String file;
+
+    private int rows, columns;
+    private int[][] rowLine, colLine;       // line ID of each cell, -1 for black cells not responsible for any line
+    private int[] rowSums, colSums, rowSize, colSize, rowValuesUsed, colValuesUsed;
+    private ArrayList<Pair<Integer, Integer>> firstRowCoord, firstColCoord;
+
+    private Board workingBoard;
+    private SwappingCellQueue notationsQueue;
+    private KakuroFunctions assigFunctions;
+
+    private ArrayList<Pair<Integer, Integer>> emptyCells;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Board initialBoard = Reader.fromFile(file);
+        rows = initialBoard.getHeight();
+        columns = initialBoard.getWidth();
+        rowLine = new int[rows][columns];
+        colLine = new int[rows][columns];
+        firstRowCoord = new ArrayList<>();
+        firstColCoord = new ArrayList<>();
+        ArrayList<Integer> rowSizes = preprocess(initialBoard, rowLine, firstRowCoord, true);
+        ArrayList<Integer> colSizes = preprocess(initialBoard, colLine, firstColCoord, false);
+        rowSums = new int[rowSizes.size()];
+        colSums = new int[colSizes.size()];
+        rowValuesUsed = new int[rowSizes.size()];
+        colValuesUsed = new int[colSizes.size()];
+        rowSize = new int[rowSizes.size()];
+        colSize = new int[colSizes.size()];
+        for (int i = 0; i < rowSize.length; i++) rowSize[i] = rowSizes.get(i);
+        for (int i = 0; i < colSize.length; i++) colSize[i] = colSizes.get(i);
+
+        workingBoard = new Board(columns, rows);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (initialBoard.isBlackCell(r, c)) workingBoard.setCell(new BlackCell(), r, c);
+                else workingBoard.setCell(new WhiteCell(true), r, c);
+            }
+        }
+        notationsQueue = new SwappingCellQueue(workingBoard);
+        initializeAssigFunctions();
+
+        for (Pair<Integer, Integer> coord : firstRowCoord) {
+            if (!assigFunctions.rowSumAssignation(coord.first, coord.second, initialBoard.getHorizontalSum(coord.first, coord.second-1)))
+                throw new IllegalStateException("Board " + file + " has no solution");
+        }
+        for (Pair<Integer, Integer> coord : firstColCoord) {
+            if (!assigFunctions.colSumAssignation(coord.first, coord.second, initialBoard.getVerticalSum(coord.first-1, coord.second)))
+                throw new IllegalStateException("Board " + file + " has no solution");
+        }
+
+        emptyCells = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (workingBoard.isWhiteCell(r, c) && workingBoard.isEmpty(r, c)) {
+                    notationsQueue.insertOrderedCell(r, c);
+                    emptyCells.add(new Pair<>(r, c));
+                }
+            }
+        }
+        if (emptyCells.isEmpty()) throw new IllegalStateException("Board " + file + " is solved by the sum assignations alone");
+        next = 0;
+    }
+
+    /**
+     * Tries every possible value of the cell at the front of the queue, as the Solver does at each node.
+     */
+    @Benchmark
+    public int assignFirstCell() {
+        WhiteCell cell = notationsQueue.getFirstElement();
+        int notations = cell.getNotations();
+        Pair<Integer, Integer> coord = cell.getCoordinates();
+        int successful = 0;
+        for (int i = 0; i < 9; i++) {
+            if ((notations & (1<<i)) == 0) continue;
+            int mark = assigFunctions.mark();
+            if (assigFunctions.cellValueAssignation(coord.first, coord.second, i+1)) successful++;
+            assigFunctions.undoToMark(mark);
+        }
+        return successful;
+    }
+
+    /**
+     * Assigns the smallest possible value to each empty cell in turn, and rolls it back.
+     */
+    @Benchmark
+    public boolean assignAnyCell() {
+        Pair<Integer, Integer> coord = emptyCells.get(next);
+        next = (next + 1) % emptyCells.size();
+        int notations = workingBoard.getCellNotations(coord.first, coord.second);
+        int mark = assigFunctions.mark();
+        boolean result = assigFunctions.cellValueAssignation(coord.first, coord.second, Integer.numberOfTrailingZeros(notations)+1);
+        assigFunctions.undoToMark(mark);
+        return result;
+    }
+
+    // Computes the line IDs of the board in the given direction, returns the size of each line
+    private static ArrayList<Integer> preprocess(Board b, int[][] line, ArrayList<Pair<Integer, Integer>> firstCoord, boolean horizontal) {
+        int outer = horizontal ? b.getHeight() : b.getWidth();
+        int inner = horizontal ? b.getWidth() : b.getHeight();
+        ArrayList<Integer> sizes = new ArrayList<>();
+        int size = 0;
+        for (int i = 0; i < outer; i++) {
+            for (int j = 0; j < inner; j++) {
+                int r = horizontal ? i : j;
+                int c = horizontal ? j : i;
+                if (b.isBlackCell(r, c)) {
+                    if (size > 0) sizes.add(size);
+                    size = 0;
+                    boolean startsLine = j+1 < inner && (horizontal ? b.isWhiteCell(r, c+1) : b.isWhiteCell(r+1, c));
+                    line[r][c] = startsLine ? sizes.size() : -1;
+                    if (startsLine) firstCoord.add(horizontal ? new Pair<>(r, c+1) : new Pair<>(r+1, c));
+                } else {
+                    line[r][c] = sizes.size();
+                    size++;
+                }
+            }
+            if (size > 0) sizes.add(size);
+            size = 0;
+        }
+        return sizes;
+    }
+
+    private void initializeAssigFunctions() {
+        assigFunctions = new KakuroFunctions(new KakuroFunctions.KakuroFunctionsMaster() {
+            @Override
+            public int getRowID(int r, int c) { return rowLine[r][c]; }
+
+            @Override
+            public int getColID(int r, int c) { return colLine[r][c]; }
+
+            @Override
+            public int getRowLineSize(int r, int c) { return rowSums.length; }
+
+            @Override
+            public int getColLineSize(int r, int c) { return colSums.length; }
+
+            @Override
+            public int getRowSum(int r, int c) { return rowSums[rowLine[r][c]]; }
+
+            @Override
+            public int getColSum(int r, int c) { return colSums[colLine[r][c]]; }
+
+            @Override
+            public void setRowSum(int r, int c, int value) { rowSums[rowLine[r][c]] = value; }
+
+            @Override
+            public void setColSum(int r, int c, int value) { colSums[colLine[r][c]] = value; }
+
+            @Override
+            public int getRowSize(int r, int c) { return rowSize[rowLine[r][c]]; }
+
+            @Override
+            public int getColSize(int r, int c) { return colSize[colLine[r][c]]; }
+
+            @Override
+            public int getRowValuesUsed(int r, int c) { return rowValuesUsed[rowLine[r][c]]; }
+
+            @Override
+            public int getColValuesUsed(int r, int c) { return colValuesUsed[colLine[r][c]]; }
+
+            @Override
+            public void setRowValuesUsed(int r, int c, int values) { rowValuesUsed[rowLine[r][c]] = values; }
+
+            @Override
+            public void setColValuesUsed(int r, int c, int values) { colValuesUsed[colLine[r][c]] = values; }
+
+            @Override
+            public Pair<Integer, Integer> getFirstRowCoord(int r, int c) { return firstRowCoord.get(rowLine[r][c]); }
+
+            @Override
+            public Pair<Integer, Integer> getFirstColCoord(int r, int c) { return firstColCoord.get(colLine[r][c]); }
+
+            @Override
+            public Board getWorkingBoard() { return workingBoard; }
+
+            @Override
+            public SwappingCellQueue getNotationsQueue() { return notationsQueue; }
+        });
+    }
+}
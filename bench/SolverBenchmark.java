@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.algorithms.Solver;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solver benchmark.
+ * Solves every board of the data/kakuros corpus with each engine.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({
+        "data/kakuros/unsolved/cpu_burner.kak",
+        "data/kakuros/unsolved/evil.kak",
+        "data/kakuros/unsolved/jutge.kak",
+        "data/kakuros/unsolved/no-sol.kak",
+        "data/kakuros/unsolved/one-sol.kak",
+        "data/kakuros/unsolved/sample.kak",
+        "data/kakuros/unsolved/sample2.kak",
+        "data/kakuros/unsolved/two-sol.kak",
+        "data/kakuros/generated/150_150_easy_unique.kak",
+        "data/kakuros/generated/20_20_extreme_unique.kak",
+        "data/kakuros/generated/20_20_extreme_unique_clear.txt",
+        "data/kakuros/generated/30_30_hard_unique_clear.txt",
+        "data/kakuros/generated/40_40_hard_unique.kak",
+        "data/kakuros/generated/40_40_medium_unique_clear.txt",
+        "data/kakuros/generated/60_60_easy_unique_clear.txt",
+        "data/kakuros/generated/60_60_medium_unique.kak",
+        "data/kakuros/generated/easy.kak",
+        "data/kakuros/generated/extreme.kak",
+        "data/kakuros/generated/hard.kak",
+        "data/kakuros/generated/medium.kak"
+    })
+    public String file;
+
+    @Param({ "BOARD", "BITBOARD" })
+    public Solver.Engine engine;
+
+    private Board board;
+
+    @Setup
+    public void setup() throws IOException {
+        board = Reader.fromFile(file);
+    }
+
+    @Benchmark
+    public int solve() {
+        return new Solver(board, engine).solve();
+    }
+}
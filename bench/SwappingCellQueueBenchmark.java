@@ -0,0 +1,82 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import src.domain.algorithms.helpers.SwappingCellQueue;
+import src.domain.entities.Board;
+import src.domain.entities.WhiteCell;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SwappingCellQueue benchmark.
+ * Erases and restores notations, and removes and re-inserts cells, on random cells of an all-white board.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwappingCellQueueBenchmark {
+    private static final int NUM_CELLS = 1024; // random cells visited cyclically
+
+    @Param({ "9", "40", "150" })
+    public int size;
+
+    private Board board;
+    private SwappingCellQueue queue;
+    private int[] cellRows, cellCols, masks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        board = new Board(size, size, new WhiteCell(true));
+        queue = new SwappingCellQueue(board);
+        Random random = new Random(42);
+        // leave the queue with cells of every notation size
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                queue.eraseNotationsFromCell(r, c, random.nextInt(0x1FF) & ~(1 << random.nextInt(9)));
+            }
+        }
+        cellRows = new int[NUM_CELLS];
+        cellCols = new int[NUM_CELLS];
+        masks = new int[NUM_CELLS];
+        for (int i = 0; i < NUM_CELLS; i++) {
+            cellRows[i] = random.nextInt(size);
+            cellCols[i] = random.nextInt(size);
+            masks[i] = 1 << random.nextInt(9);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public int eraseAndAddNotation() {
+        int i = next;
+        next = (next + 1) % NUM_CELLS;
+        int r = cellRows[i], c = cellCols[i];
+        int notations = board.getCellNotations(r, c);
+        int erase = masks[i] & notations;
+        if (erase == notations) erase = 0; // never leave a cell without notations
+        queue.eraseNotationsFromCell(r, c, erase);
+        return queue.addNotationsToCell(r, c, erase);
+    }
+
+    @Benchmark
+    public boolean removeAndInsertCell() {
+        int i = next;
+        next = (next + 1) % NUM_CELLS;
+        queue.removeOrderedCell(cellRows[i], cellCols[i]);
+        queue.insertOrderedCell(cellRows[i], cellCols[i]);
+        return queue.isEmpty();
+    }
+
+    @Benchmark
+    public WhiteCell getFirstElement() {
+        return queue.getFirstElement();
+    }
+}
@@ -61,12 +61,12 @@ public class PopulateDB {
     }
 
     public static void createKakuro(String name, Difficulty diff, int width, int height) throws Exception {
-        KakuroCtrl kc = new KakuroCtrl(new KakuroRepositoryDB(new DB()), new UserRepositoryDB(new DB()), new GameRepositoryDB(new DB()));
+        KakuroCtrl kc = new KakuroCtrl(new KakuroRepositoryIndexedDB(new IndexedDB()), new UserRepositoryIndexedDB(new IndexedDB()), new GameRepositoryIndexedDB(new IndexedDB()));
         Map<String, Object> m = kc.saveKakuroFromGeneratorParameters(null, height, width, diff, true, name);
     }
 
     public static void createUser (String name) throws IOException {
-        UserRepository ur = new UserRepositoryDB(new DB());
+        UserRepository ur = new UserRepositoryIndexedDB(new IndexedDB());
         User u = new User(name);
         ur.saveUser(u);
     }
@@ -79,25 +79,25 @@ public class PopulateDB {
     }
 
     public static void deleteAllUsers() throws IOException {
-        UserRepository ur = new UserRepositoryDB(new DB());
+        UserRepository ur = new UserRepositoryIndexedDB(new IndexedDB());
         ArrayList<User> users = ur.getAllUsers();
         for (User u : users) ur.deleteUser(u);
     }
 
     public static void deleteAllKakuros() throws IOException {
-        KakuroRepository kr = new KakuroRepositoryDB(new DB());
+        KakuroRepository kr = new KakuroRepositoryIndexedDB(new IndexedDB());
         ArrayList<Kakuro> kakuros = kr.getAllKakuros();
         for (Kakuro k : kakuros) kr.deleteKakuro(k);
     }
 
     public static void deleteAllGames() throws IOException {
-        GameRepository gr = new GameRepositoryDB(new DB());
+        GameRepository gr = new GameRepositoryIndexedDB(new IndexedDB());
         ArrayList<Game> games = gr.getAllGames();
         for (Game g : games) gr.deleteGame(g);
     }
 
     public static void deleteAllBoards() throws IOException {
-        BoardRepository br = new BoardRepositoryDB(new DB());
+        BoardRepository br = new BoardRepositoryIndexedDB(new IndexedDB());
         ArrayList<Board> boards = br.getAllBoards();
         for (Board b : boards) br.deleteBoard(b);
     }
@@ -0,0 +1,175 @@
+package src.domain.algorithms;
+
+import src.domain.entities.Board;
+import src.domain.entities.Difficulty;
+import src.utils.Pair;
+
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Batch generator class.
+ * Generates many boards of the same size and difficulty concurrently, each one with its own Generator instance.
+ * The seed of every board is derived from a base seed, so the same batch can always be reproduced.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class BatchGenerator {
+    /** BoardSink Interface.
+     * To receive the boards as soon as they are generated.
+     */
+    public interface BoardSink {
+        /**
+         * Called once for each generated board, always from the thread that called generate(), in completion order
+         * @param index       Index of the board in the batch, between 0 and count-1
+         * @param board       Generated board
+         * @param encodedSeed Encoded seed of the board, as given by Generator::getEncodedSeed()
+         */
+        void onBoardGenerated(int index, Board board, String encodedSeed);
+    }
+
+    /** ProgressListener Interface.
+     * To get notified of the progress of the batch.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each generated board
+         * @param completed     Number of boards generated so far
+         * @param total         Number of boards of the batch
+         * @param elapsedMillis Milliseconds elapsed since the batch started
+         */
+        void onProgress(int completed, int total, long elapsedMillis);
+    }
+
+    private final int rows, columns;
+    private final Difficulty difficulty;
+    private final boolean forceUniqueSolution;
+    private final int count;
+    private final long[] seeds;             // seed of each board of the batch
+    private final int parallelism;
+
+    private ProgressListener progressListener;
+    private int completed = 0;
+    private long elapsedMillis = 0;
+
+    /**
+     * Constructor.
+     * Initializes a batch generator that uses as many threads as available processors
+     * @param rows                Number of rows of the boards to generate
+     * @param columns             Number of columns of the boards to generate
+     * @param difficulty          Difficulty of the boards to generate
+     * @param forceUniqueSolution Whether the generated boards should be forced into having unique solution
+     * @param count               Number of boards to generate
+     * @param seed                Base seed the seed of each board is derived from
+     */
+    public BatchGenerator(int rows, int columns, Difficulty difficulty, boolean forceUniqueSolution, int count, long seed) {
+        this(rows, columns, difficulty, forceUniqueSolution, count, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * Initializes a batch generator that uses the given number of threads
+     * @param rows                Number of rows of the boards to generate
+     * @param columns             Number of columns of the boards to generate
+     * @param difficulty          Difficulty of the boards to generate
+     * @param forceUniqueSolution Whether the generated boards should be forced into having unique solution
+     * @param count               Number of boards to generate
+     * @param seed                Base seed the seed of each board is derived from
+     * @param parallelism         Maximum number of boards generated at the same time
+     */
+    public BatchGenerator(int rows, int columns, Difficulty difficulty, boolean forceUniqueSolution, int count, long seed, int parallelism) {
+        if (count < 0) throw new IllegalArgumentException("Count must not be negative");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+
+        this.rows = rows;
+        this.columns = columns;
+        this.difficulty = difficulty;
+        this.forceUniqueSolution = forceUniqueSolution;
+        this.count = count;
+        this.parallelism = parallelism;
+
+        // the seeds only depend on the base seed, not on the order in which the tasks are run
+        Random random = new Random(seed);
+        seeds = new long[count];
+        for (int i = 0; i < count; i++) seeds[i] = random.nextLong();
+    }
+
+    /**
+     * Sets the listener notified after each generated board
+     * @param listener Listener to notify, null to stop notifying
+     */
+    public void setProgressListener(ProgressListener listener) {
+        progressListener = listener;
+    }
+
+    /**
+     * Get the seed that will be used to generate a board of the batch
+     * @param index Index of the board in the batch
+     * @return the seed passed to the Generator of that board
+     */
+    public long getSeed(int index) {
+        return seeds[index];
+    }
+
+    /**
+     * Generates all the boards of the batch, handing each one to the sink as soon as it is generated.
+     * If the calling thread is interrupted the pending boards are abandoned and the interrupt flag is kept.
+     * @param sink Sink that receives the generated boards
+     * @return the number of boards generated
+     */
+    public int generate(BoardSink sink) {
+        completed = 0;
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        CompletionService<Pair<Integer, Generator>> completionService = new ExecutorCompletionService<>(pool);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                final int index = i;
+                completionService.submit(new Callable<Pair<Integer, Generator>>() {
+                    @Override
+                    public Pair<Integer, Generator> call() {
+                        // created inside the task so only the boards being generated are kept in memory
+                        Generator generator = new Generator(rows, columns, difficulty, seeds[index], forceUniqueSolution);
+                        generator.generate();
+                        return new Pair<>(index, generator);
+                    }
+                });
+            }
+
+            while (completed < count) {
+                Pair<Integer, Generator> result = completionService.take().get();
+                completed++;
+                elapsedMillis = System.currentTimeMillis() - start;
+                sink.onBoardGenerated(result.first, result.second.getGeneratedBoard(), result.second.getEncodedSeed());
+                if (progressListener != null) progressListener.onProgress(completed, count, elapsedMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Board generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            elapsedMillis = System.currentTimeMillis() - start;
+        }
+
+        return completed;
+    }
+
+    /**
+     * Get the number of boards generated by the last call to generate()
+     * @return the number of generated boards
+     */
+    public int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Get the throughput of the last call to generate()
+     * @return the number of boards generated per second
+     */
+    public double getBoardsPerSecond() {
+        return elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+    }
+}
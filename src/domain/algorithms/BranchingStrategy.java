@@ -0,0 +1,363 @@
+package src.domain.algorithms;
+
+import src.domain.algorithms.helpers.KakuroConstants;
+import src.domain.algorithms.helpers.KakuroFunctions;
+import src.domain.algorithms.helpers.SwappingCellQueue;
+import src.domain.entities.Board;
+import src.domain.entities.WhiteCell;
+import src.utils.Pair;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Branching strategy interface.
+ * Decides which cell the Solver branches on at each node of the search and in which order the values of that cell
+ * are tried. The state of the search is read through the same KakuroFunctionsMaster the Solver gives to its
+ * KakuroFunctions, and the candidates are the cells in its notations queue.
+ * Strategies that keep state (such as RandomizedRestarts, or the scratch arrays of TightestLine) must not be shared
+ * between solvers, they give each fork of a parallel search its own copy through fork().
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public interface BranchingStrategy {
+    /**
+     * Choose the cell to branch on
+     * @param state State of the search, its notations queue is not empty
+     * @return a cell of the notations queue
+     */
+    WhiteCell selectCell(KakuroFunctions.KakuroFunctionsMaster state);
+
+    /**
+     * Choose the order in which the values of a cell are tried
+     * @param state State of the search
+     * @param cell  Cell returned by selectCell
+     * @return the values to try packed in 4 bits each, the first one in the lowest bits, ended by a 0
+     */
+    long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell);
+
+    /**
+     * Called at every node while the search hasn't found any solution, so that restarting it from the root is safe
+     * @param nodes Number of nodes expanded since the search started or was last restarted
+     * @return whether the search should be restarted from the root
+     */
+    default boolean shouldRestart(long nodes) {
+        return false;
+    }
+
+    /**
+     * Get the strategy used by a fork of the search, such as a subtask of Solver::solveParallel. Strategies without
+     * state return themselves. The ones with state return an independent copy whose choices only depend on the state
+     * of this one when forked, so a parallel search still makes the same choices in every run.
+     * @return a strategy that can be used at the same time as this one
+     */
+    default BranchingStrategy fork() {
+        return this;
+    }
+
+    /**
+     * Packs the values of the given notations in increasing order, as returned by orderValues
+     * @param notations Notations of a cell
+     * @return the values of the notations packed in increasing order
+     */
+    static long increasingOrder(int notations) {
+        long order = 0;
+        for (int i = 8; i >= 0; i--) {
+            if ((notations & (1<<i)) != 0) order = order << 4 | (i+1);
+        }
+        return order;
+    }
+
+    /**
+     * Counts the cells in the row and column of the given cell that don't have a value yet, not counting itself
+     * @param state State of the search
+     * @param r     Row of the cell
+     * @param c     Column of the cell
+     * @return the number of empty cells that share a line with (r, c)
+     */
+    static int emptyNeighbours(KakuroFunctions.KakuroFunctionsMaster state, int r, int c) {
+        Board board = state.getWorkingBoard();
+        int count = 0;
+        int first = state.getFirstRowCoord(r, c).second;
+        for (int it = first; it < first + state.getRowSize(r, c); it++) {
+            if (it != c && board.isEmpty(r, it)) count++;
+        }
+        first = state.getFirstColCoord(r, c).first;
+        for (int it = first; it < first + state.getColSize(r, c); it++) {
+            if (it != r && board.isEmpty(it, c)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Branches on the first cell of the notations queue (one of the cells with fewest notations) and tries its
+     * values in increasing order. This is what the Solver does by default.
+     */
+    class FirstInQueue implements BranchingStrategy {
+        @Override
+        public WhiteCell selectCell(KakuroFunctions.KakuroFunctionsMaster state) {
+            return state.getNotationsQueue().getFirstElement();
+        }
+
+        @Override
+        public long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell) {
+            return increasingOrder(cell.getNotations());
+        }
+    }
+
+    /**
+     * Minimum remaining values: branches on a cell with fewest notations, breaking ties by the number of empty cells
+     * in its row and column (the one that constrains more cells first). Values are tried in increasing order.
+     */
+    class MinimumRemainingValues implements BranchingStrategy {
+        @Override
+        public WhiteCell selectCell(KakuroFunctions.KakuroFunctionsMaster state) {
+            SwappingCellQueue queue = state.getNotationsQueue();
+            WhiteCell best = queue.getFirstElement();
+            int minSize = best.getNotationSize();
+            int bestDegree = -1;
+            for (int i = 0; i < queue.size() && queue.getElement(i).getNotationSize() == minSize; i++) {
+                WhiteCell cell = queue.getElement(i);
+                Pair<Integer, Integer> coord = cell.getCoordinates();
+                int degree = emptyNeighbours(state, coord.first, coord.second);
+                if (degree > bestDegree) {
+                    best = cell;
+                    bestDegree = degree;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell) {
+            return increasingOrder(cell.getNotations());
+        }
+    }
+
+    /**
+     * Branches on a cell of the line that has fewest combinations left, counting the combinations that contain the
+     * values already used in the line and no value outside the notations of its empty cells. Among the cells of the
+     * tightest lines the one with fewest notations is chosen. Values are tried in increasing order.
+     */
+    class TightestLine implements BranchingStrategy {
+        // scratch of selectCell reused at every node: the combinations left in each line (plus one) are only valid
+        // where the stamp of the line is the one of the current node, so they don't have to be cleared between nodes
+        private int[] rowCombinations = new int[0], colCombinations = new int[0];
+        private int[] rowStamps = new int[0], colStamps = new int[0];
+        private int stamp = 0;
+
+        @Override
+        public WhiteCell selectCell(KakuroFunctions.KakuroFunctionsMaster state) {
+            SwappingCellQueue queue = state.getNotationsQueue();
+            WhiteCell best = queue.getFirstElement();
+            Pair<Integer, Integer> firstCoord = best.getCoordinates();
+            int numRows = state.getRowLineSize(firstCoord.first, firstCoord.second);
+            int numCols = state.getColLineSize(firstCoord.first, firstCoord.second);
+            if (rowStamps.length < numRows) {
+                rowCombinations = new int[numRows];
+                rowStamps = new int[numRows];
+            }
+            if (colStamps.length < numCols) {
+                colCombinations = new int[numCols];
+                colStamps = new int[numCols];
+            }
+            if (++stamp == 0) { // wrapped around, old stamps could match again
+                Arrays.fill(rowStamps, 0);
+                Arrays.fill(colStamps, 0);
+                stamp = 1;
+            }
+
+            int bestCombinations = Integer.MAX_VALUE, bestSize = 10;
+            // the queue is in increasing order of notation size, so once a line without combinations is found no
+            // later cell can be better
+            for (int i = 0; i < queue.size() && bestCombinations > 1; i++) {
+                WhiteCell cell = queue.getElement(i);
+                Pair<Integer, Integer> coord = cell.getCoordinates();
+                int r = coord.first, c = coord.second;
+
+                int rowID = state.getRowID(r, c), colID = state.getColID(r, c);
+                if (rowStamps[rowID] != stamp) {
+                    rowCombinations[rowID] = 1 + remainingCombinations(state, r, c, true);
+                    rowStamps[rowID] = stamp;
+                }
+                if (colStamps[colID] != stamp) {
+                    colCombinations[colID] = 1 + remainingCombinations(state, r, c, false);
+                    colStamps[colID] = stamp;
+                }
+                int combinations = Math.min(rowCombinations[rowID], colCombinations[colID]);
+
+                int size = cell.getNotationSize();
+                if (combinations < bestCombinations || (combinations == bestCombinations && size < bestSize)) {
+                    best = cell;
+                    bestCombinations = combinations;
+                    bestSize = size;
+                }
+            }
+            return best;
+        }
+
+        // the scratch arrays can't be shared between threads
+        @Override
+        public BranchingStrategy fork() {
+            return new TightestLine();
+        }
+
+        @Override
+        public long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell) {
+            return increasingOrder(cell.getNotations());
+        }
+
+        // number of combinations left for the row (or column) of the cell (r, c)
+        private static int remainingCombinations(KakuroFunctions.KakuroFunctionsMaster state, int r, int c, boolean row) {
+            Board board = state.getWorkingBoard();
+            int size = row ? state.getRowSize(r, c) : state.getColSize(r, c);
+            int sum = row ? state.getRowSum(r, c) : state.getColSum(r, c);
+            int used = row ? state.getRowValuesUsed(r, c) : state.getColValuesUsed(r, c);
+
+            int allowed = used;
+            int first = row ? state.getFirstRowCoord(r, c).second : state.getFirstColCoord(r, c).first;
+            for (int it = first; it < first + size; it++) {
+                int cr = row ? r : it, cc = row ? it : c;
+                if (board.isEmpty(cr, cc)) allowed |= board.getCellNotations(cr, cc);
+            }
+
+            int count = 0;
+            for (int s = sum == 0 ? 1 : sum; s <= (sum == 0 ? 45 : sum); s++) {
+                int numCases = KakuroConstants.INSTANCE.getNumCases(size, s);
+                for (int i = 0; i < numCases; i++) {
+                    int pCase = KakuroConstants.INSTANCE.getCase(size, s, i);
+                    if ((pCase & used) == used && (pCase & ~allowed) == 0) count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Least constraining value: branches on the same cell as MinimumRemainingValues and tries first the values that
+     * appear in the notations of fewest empty cells of its row and column, so they rule out fewest options.
+     */
+    class LeastConstrainingValue extends MinimumRemainingValues {
+        @Override
+        public long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell) {
+            Pair<Integer, Integer> coord = cell.getCoordinates();
+            int r = coord.first, c = coord.second;
+            Board board = state.getWorkingBoard();
+
+            int[] constrained = new int[9]; // number of neighbours that have each value in their notations
+            int first = state.getFirstRowCoord(r, c).second;
+            for (int it = first; it < first + state.getRowSize(r, c); it++) {
+                if (it != c && board.isEmpty(r, it)) addNotations(constrained, board.getCellNotations(r, it));
+            }
+            first = state.getFirstColCoord(r, c).first;
+            for (int it = first; it < first + state.getColSize(r, c); it++) {
+                if (it != r && board.isEmpty(it, c)) addNotations(constrained, board.getCellNotations(it, c));
+            }
+
+            // selection of the least constraining value left each time, smaller values first on ties
+            long order = 0;
+            int left = cell.getNotations(), shift = 0;
+            while (left != 0) {
+                int best = -1;
+                for (int i = 0; i < 9; i++) {
+                    if ((left & (1<<i)) != 0 && (best == -1 || constrained[i] < constrained[best])) best = i;
+                }
+                order |= (long)(best+1) << shift;
+                shift += 4;
+                left &= ~(1<<best);
+            }
+            return order;
+        }
+
+        private static void addNotations(int[] constrained, int notations) {
+            for (int i = 0; i < 9; i++) if ((notations & (1<<i)) != 0) constrained[i]++;
+        }
+    }
+
+    /**
+     * Randomized search with restarts: branches on a random cell among the ones with fewest notations, tries its
+     * values in random order, and restarts the search from the root after a number of nodes that follows the Luby
+     * sequence (1, 1, 2, 1, 1, 2, 4, ... times the base), which avoids getting stuck in a bad branch near the root.
+     * Restarts only happen until the first solution is found, the search that finds it is completed normally.
+     */
+    class RandomizedRestarts implements BranchingStrategy {
+        /** Default number of nodes of the shortest runs */
+        public static final int DEFAULT_RESTART_BASE = 64;
+
+        private final Random random;
+        private final int restartBase;
+        private int restarts = 0;
+
+        /**
+         * Constructor.
+         * @param seed Seed of the random choices, the same seed always gives the same search
+         */
+        public RandomizedRestarts(long seed) {
+            this(seed, DEFAULT_RESTART_BASE);
+        }
+
+        /**
+         * Constructor.
+         * @param seed        Seed of the random choices, the same seed always gives the same search
+         * @param restartBase Number of nodes of the shortest runs between restarts
+         */
+        public RandomizedRestarts(long seed, int restartBase) {
+            if (restartBase < 1) throw new IllegalArgumentException("Restart base must be at least 1");
+            random = new Random(seed);
+            this.restartBase = restartBase;
+        }
+
+        @Override
+        public WhiteCell selectCell(KakuroFunctions.KakuroFunctionsMaster state) {
+            SwappingCellQueue queue = state.getNotationsQueue();
+            int minSize = queue.getFirstElement().getNotationSize();
+            int candidates = 1;
+            while (candidates < queue.size() && queue.getElement(candidates).getNotationSize() == minSize) candidates++;
+            return queue.getElement(random.nextInt(candidates));
+        }
+
+        @Override
+        public long orderValues(KakuroFunctions.KakuroFunctionsMaster state, WhiteCell cell) {
+            int[] values = new int[9];
+            int n = 0;
+            for (int i = 0; i < 9; i++) if (cell.isNotationChecked(i+1)) values[n++] = i+1;
+            long order = 0;
+            for (int i = n-1; i >= 0; i--) { // Fisher-Yates shuffle while packing
+                int j = random.nextInt(i+1);
+                int swap = values[i]; values[i] = values[j]; values[j] = swap;
+                order = order << 4 | values[i];
+            }
+            return order;
+        }
+
+        // the seed of the copy is the next random number, so forking is as deterministic as any other choice
+        @Override
+        public BranchingStrategy fork() {
+            return new RandomizedRestarts(random.nextLong(), restartBase);
+        }
+
+        @Override
+        public boolean shouldRestart(long nodes) {
+            if (nodes < restartBase * luby(restarts+1)) return false;
+            restarts++;
+            return true;
+        }
+
+        /**
+         * Get the number of restarts
+         * @return the number of times this strategy has restarted a search
+         */
+        public int getRestarts() {
+            return restarts;
+        }
+
+        // i-th term of the Luby sequence, starting at i = 1
+        private static long luby(int i) {
+            int k = 1;
+            while ((1L << k) - 1 < i) k++;
+            if (i == (1L << k) - 1) return 1L << (k-1);
+            return luby(i - (1 << (k-1)) + 1);
+        }
+    }
+}
@@ -126,6 +126,23 @@ public class Generator {
         return this.generatedBoard;
     }
 
+    /**
+     * Get the solution the generated board was built from.
+     * NOTE: This function *MUST* be called after @link Generator::generate().
+     * @return a board with the values the generator assigned to every white cell.
+     */
+    public Board getSolution() {
+        Board solution = new Board(columns, rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (workingBoard.isBlackCell(i, j)) solution.setCell(new BlackCell((BlackCell)workingBoard.getCell(i, j)), i, j);
+                else if (workingBoard.isEmpty(i, j)) solution.setCell(new WhiteCell(), i, j);
+                else solution.setCell(new WhiteCell(workingBoard.getValue(i, j)), i, j);
+            }
+        }
+        return solution;
+    }
+
     /**
      * Get the seed used for the generation.
      * @return the seed of the Random object used for generating the board.
@@ -683,7 +700,7 @@ public class Generator {
     }
 
     private boolean generateStartingPoint (int coordRow, int coordCol, int interestedValues) {
-        ArrayList<int[]> uniqueCrossValues = KakuroConstants.INSTANCE.getUniqueCrossValues(rowSize[rowLine[coordRow][coordCol]], colSize[colLine[coordRow][coordCol]], difficulty); // returns [] of {rowSum, colSum, valueInCommon}
+        List<int[]> uniqueCrossValues = KakuroConstants.INSTANCE.getUniqueCrossValues(rowSize[rowLine[coordRow][coordCol]], colSize[colLine[coordRow][coordCol]], difficulty); // returns [] of {rowSum, colSum, valueInCommon}
         for (int i = 0; i < uniqueCrossValues.size(); i++) {
             int[] uniqueValue = uniqueCrossValues.get(i);
             if ((interestedValues & (1<<(uniqueValue[2]-1))) == 0) continue;
@@ -861,27 +878,17 @@ public class Generator {
         if (!isRowAssigned && isColAssigned) { //try to assign a value to row to force cell[r][c] into taking a value of its notations
             int rowValues = rowValuesUsed[rowID];
             int uniqueNotations = uniqueNotationsIn(r, c, workingBoard.getCellNotations(r, c), true);
+            int[] rowMasks = getRowCellMasks(rowID);
             TreeSet<Integer> rowSumCandidates = new TreeSet<>();
             TreeSet<Integer> rowSumCandidatesRepeated = new TreeSet<>();
             for (int i = 0; i < 9; i++) {
                 if (workingBoard.cellHasNotation(r, c, i+1)) {
                     rowValues |= 1<<i;
-                    ArrayList<Pair<Integer, Integer>> possibilities = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(rowSize[rowID], rowValues);
+                    ArrayList<Pair<Integer, Integer>> possibilities = new ArrayList<>(KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(rowSize[rowID], rowValues));
 
                     for (int k = possibilities.size()-1; k >= 0; k--) {
                         int pCase = possibilities.get(k).second;
-                        ArrayList<Integer> p = new ArrayList<>();
-                        for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-                        ArrayList<WhiteCell> containingCells = new ArrayList<>();
-                        for (int it = firstRowCoord[rowID].c; it < firstRowCoord[rowID].c+rowSize[rowID]; it++) {
-                            for (int digit : p) {
-                                if ((!workingBoard.isEmpty(r, it) && workingBoard.getValue(r, it) == digit) || workingBoard.cellHasNotation(r, it, digit)) {
-                                    containingCells.add((WhiteCell)workingBoard.getCell(r, it));
-                                    break;
-                                }
-                            }
-                        }
-                        if (!assigFunctions.isCombinationPossible(p, containingCells)) possibilities.remove(k);
+                        if (!KakuroFunctions.isCombinationPossible(pCase, rowMasks, rowSize[rowID])) possibilities.remove(k);
                     }
 
                     for (Pair<Integer, Integer> poss : possibilities) {
@@ -918,27 +925,17 @@ public class Generator {
         } else if (isRowAssigned && !isColAssigned) {
             int colValues = colValuesUsed[colID];
             int uniqueNotations = uniqueNotationsIn(r, c, workingBoard.getCellNotations(r, c), false);
+            int[] colMasks = getColCellMasks(colID);
             TreeSet<Integer> colSumCandidates = new TreeSet<>();
             TreeSet<Integer> colSumCandidatesRepeated = new TreeSet<>();
             for (int i = 0; i < 9; i++) {
                 if (workingBoard.cellHasNotation(r, c, i+1)) {
                     colValues |= 1<<i;
-                    ArrayList<Pair<Integer, Integer>> possibilities = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(colSize[colID], colValues);
+                    ArrayList<Pair<Integer, Integer>> possibilities = new ArrayList<>(KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(colSize[colID], colValues));
 
                     for (int k = possibilities.size()-1; k >= 0; k--) {
                         int pCase = possibilities.get(k).second;
-                        ArrayList<Integer> p = new ArrayList<>();
-                        for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-                        ArrayList<WhiteCell> containingCells = new ArrayList<>();
-                        for (int it = firstColCoord[colID].r; it < firstColCoord[colID].r+colSize[colID]; it++) {
-                            for (int digit : p) {
-                                if ((!workingBoard.isEmpty(it, c) && workingBoard.getValue(it, c) == digit) || workingBoard.cellHasNotation(it, c, digit)) {
-                                    containingCells.add((WhiteCell)workingBoard.getCell(it, c));
-                                    break;
-                                }
-                            }
-                        }
-                        if (!assigFunctions.isCombinationPossible(p, containingCells)) possibilities.remove(k);
+                        if (!KakuroFunctions.isCombinationPossible(pCase, colMasks, colSize[colID])) possibilities.remove(k);
                     }
 
                     for (Pair<Integer, Integer> poss : possibilities) {
@@ -992,41 +989,21 @@ public class Generator {
                 // some values are assigned, take them into consideration in the search
 
                 // GET THE ROW POSSIBILITIES
-                ArrayList<Pair<Integer, Integer>> rowCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(rowSize[rowID], rowValuesUsed[rowID]);
+                ArrayList<Pair<Integer, Integer>> rowCases = new ArrayList<>(KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(rowSize[rowID], rowValuesUsed[rowID]));
                 // validate combinations or erase if not valid
+                int[] rowMasks = getRowCellMasks(rowID);
                 for (int i = rowCases.size()-1; i >= 0; i--) {
                     int pCase = rowCases.get(i).second;
-                    ArrayList<Integer> p = new ArrayList<>();
-                    for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-                    ArrayList<WhiteCell> containingCells = new ArrayList<>();
-                    for (int it = firstRowCoord[rowID].c; it < firstRowCoord[rowID].c+rowSize[rowID]; it++) {
-                        for (int digit : p) {
-                            if ((!workingBoard.isEmpty(r, it) && workingBoard.getValue(r, it) == digit) || workingBoard.cellHasNotation(r, it, digit)) {
-                                containingCells.add((WhiteCell)workingBoard.getCell(r, it));
-                                break;
-                            }
-                        }
-                    }
-                    if (!assigFunctions.isCombinationPossible(p, containingCells)) rowCases.remove(i);
+                    if (!KakuroFunctions.isCombinationPossible(pCase, rowMasks, rowSize[rowID])) rowCases.remove(i);
                 }
 
                 // GET THE COLUMN POSSIBILITIES
-                ArrayList<Pair<Integer, Integer>> colCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(colSize[colID], colValuesUsed[colID]);
+                ArrayList<Pair<Integer, Integer>> colCases = new ArrayList<>(KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(colSize[colID], colValuesUsed[colID]));
                 // validate combinations or erase if not valid
+                int[] colMasks = getColCellMasks(colID);
                 for (int i = colCases.size()-1; i >= 0; i--) {
                     int pCase = colCases.get(i).second;
-                    ArrayList<Integer> p = new ArrayList<>();
-                    for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-                    ArrayList<WhiteCell> containingCells = new ArrayList<>();
-                    for (int it = firstColCoord[colID].r; it < firstColCoord[colID].r+colSize[colID]; it++) {
-                        for (int digit : p) {
-                            if ((!workingBoard.isEmpty(it, c) && workingBoard.getValue(it, c) == digit) || workingBoard.cellHasNotation(it, c, digit)) {
-                                containingCells.add((WhiteCell)workingBoard.getCell(it, c));
-                                break;
-                            }
-                        }
-                    }
-                    if (!assigFunctions.isCombinationPossible(p, containingCells)) colCases.remove(i);
+                    if (!KakuroFunctions.isCombinationPossible(pCase, colMasks, colSize[colID])) colCases.remove(i);
                 }
 
                 ArrayList<Pair<Integer, Integer>> uniqueSumCombination = new ArrayList<>();
@@ -1063,6 +1040,28 @@ public class Generator {
         }
     }
 
+    // masks of the cells of a row as expected by KakuroFunctions::isCombinationPossible
+    private int[] getRowCellMasks(int rowID) {
+        int r = firstRowCoord[rowID].r, first = firstRowCoord[rowID].c;
+        int[] masks = new int[rowSize[rowID]];
+        for (int it = 0; it < rowSize[rowID]; it++) {
+            if (workingBoard.isEmpty(r, first+it)) masks[it] = workingBoard.getCellNotations(r, first+it);
+            else masks[it] = 1 << (workingBoard.getValue(r, first+it)-1);
+        }
+        return masks;
+    }
+
+    // masks of the cells of a column as expected by KakuroFunctions::isCombinationPossible
+    private int[] getColCellMasks(int colID) {
+        int first = firstColCoord[colID].r, c = firstColCoord[colID].c;
+        int[] masks = new int[colSize[colID]];
+        for (int it = 0; it < colSize[colID]; it++) {
+            if (workingBoard.isEmpty(first+it, c)) masks[it] = workingBoard.getCellNotations(first+it, c);
+            else masks[it] = 1 << (workingBoard.getValue(first+it, c)-1);
+        }
+        return masks;
+    }
+
     private int uniqueNotationsIn(int r, int c, int interestNotations, boolean isRow) {
         int uniqueNotations = 0b111111111;
         int ID = isRow ? rowLine[r][c] : colLine[r][c];
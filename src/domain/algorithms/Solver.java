@@ -8,14 +8,37 @@ import src.utils.Pair;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class Solver {
+    /**
+     * Engine used to represent the state of the search.
+     * BOARD works over Board/WhiteCell objects through KakuroFunctions, BITBOARD packs the state into flat arrays
+     * of candidate masks (see BitboardEngine).
+     */
+    public enum Engine { BOARD, BITBOARD }
+
+    /**
+     * Receives the solutions found by `enumerate()` as soon as they are found.
+     */
+    public interface SolutionConsumer {
+        void onSolution(Board solution);
+    }
+
+    private final Engine engine;
     private final Board initialBoard;
     private Board workingBoard;
     private final ArrayList<Board> solutions = new ArrayList<>();
+    private long solutionLimit = 2;         // the search stops once this number of solutions has been found
+    private long solutionCount = 0;
+    private SolutionConsumer solutionConsumer; // if not null solutions are given to it instead of kept in solutions
+    private boolean keepSolutions = true;   // whether solutions are copied into solutions when there is no consumer
 
     private SwappingCellQueue notationsQueue;
     private KakuroFunctions assigFunctions;
+    private KakuroFunctions.KakuroFunctionsMaster master; // view of the search state given to assigFunctions
+    private BranchingStrategy branchingStrategy = new BranchingStrategy.FirstInQueue();
 
     private final int rows, columns;
 
@@ -33,12 +56,35 @@ public class Solver {
     private final int[][] colLine;          // Pointers to position at array of colValuesUsed and colSums
     private int colLineSize;                // Number of different colLines
 
+    private ParallelSearch searchTask;      // task that owns this solver when searching in parallel, null otherwise
+
+    private static final int POLL_INTERVAL = 256; // nodes expanded between each check of the cancellation token
+    private CancellationToken cancellationToken; // if not null the search stops as soon as it is cancelled
+    private boolean interrupted = false;    // whether the search was stopped by the cancellation token
+    private long nodes = 0;                 // number of nodes expanded by inferenceBacktracking
+    private int depth = 0;                  // depth of the current node of inferenceBacktracking
+    private SolverStats stats;              // null unless statistics are enabled
+    private boolean restartsAllowed = false; // only the sequential search can be restarted by the strategy
+    private boolean restartRequested = false; // whether the search is unwinding to the root to start again
+    private long restartNodes = 0;          // value of nodes when the search was last (re)started
+
     /**
      * Constructor.
      * Initializes the solver to solve the given board
      * @param board Board to solve
      */
     public Solver(Board board) {
+        this(board, Engine.BOARD);
+    }
+
+    /**
+     * Constructor.
+     * Initializes the solver to solve the given board with the given engine
+     * @param board  Board to solve
+     * @param engine Engine to use to solve the board
+     */
+    public Solver(Board board, Engine engine) {
+        this.engine = engine;
         initialBoard = board;
 
         rows    = board.getHeight();
@@ -48,6 +94,69 @@ public class Solver {
         colLine = new int[board.getHeight()][board.getWidth()];
     }
 
+    /**
+     * Fork constructor.
+     * Creates an independent copy of the search state of the given solver (working board, notations queue and
+     * row/col sums and used values), sharing only the line data that is read-only once preprocessed.
+     * @param s Solver to fork
+     */
+    private Solver(Solver s) {
+        engine = s.engine;
+        initialBoard = s.initialBoard;
+
+        rows    = s.rows;
+        columns = s.columns;
+
+        rowLine       = s.rowLine;
+        rowLineSize   = s.rowLineSize;
+        rowSize       = s.rowSize;
+        firstRowCoord = s.firstRowCoord;
+        rowSums       = s.rowSums.clone();
+        rowValuesUsed = s.rowValuesUsed.clone();
+
+        colLine       = s.colLine;
+        colLineSize   = s.colLineSize;
+        colSize       = s.colSize;
+        firstColCoord = s.firstColCoord;
+        colSums       = s.colSums.clone();
+        colValuesUsed = s.colValuesUsed.clone();
+
+        cancellationToken = s.cancellationToken;
+        branchingStrategy = s.branchingStrategy.fork();
+
+        workingBoard   = new Board(s.workingBoard);
+        notationsQueue = new SwappingCellQueue(s.notationsQueue, workingBoard);
+        initializeAssigFunctions();
+    }
+
+    /**
+     * Enable or disable the collection of statistics.
+     * Must be called before solving, statistics are not collected by `solveParallel()`.
+     * @param enabled Whether statistics should be collected
+     */
+    public void setStatsEnabled(boolean enabled) {
+        stats = enabled ? new SolverStats() : null;
+    }
+
+    /**
+     * Get statistics of the last solve.
+     * @return the statistics collected, or null if they are not enabled
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Set the strategy that chooses the cell to branch on and the order of its values.
+     * Must be called before solving, it is only used by the BOARD engine. By default the first cell of the
+     * notations queue is chosen and its values are tried in increasing order.
+     * @param strategy Branching strategy to use
+     */
+    public void setBranchingStrategy(BranchingStrategy strategy) {
+        if (strategy == null) throw new IllegalArgumentException("Branching strategy can't be null");
+        branchingStrategy = strategy;
+    }
+
     /**
      * Get solutions of the board.
      * This function *MUST* be called after a call to `solve()`
@@ -150,9 +259,221 @@ public class Solver {
      * @return the number of solutions of the board
      */
     public int solve() {
+        if (engine == Engine.BITBOARD) {
+            BitboardEngine bitboardEngine = new BitboardEngine(initialBoard);
+            bitboardEngine.setStats(stats);
+            bitboardEngine.solve(solutions, 2);
+            return solutions.size();
+        }
+        if (prepareSearch()) search();
+
+        return solutions.size();
+    }
+
+    /**
+     * Solve the board, giving up once the timeout expires or the token is cancelled.
+     * The token is polled every few nodes of the search, so it can be cancelled from another thread.
+     * @param timeoutMillis Maximum time to spend solving in milliseconds, 0 or less for no limit
+     * @param token         Token to cancel the search, may be null
+     * @return the result of the search, with status UNDETERMINED if it was stopped before finishing
+     */
+    public SolverResult solve(long timeoutMillis, CancellationToken token) {
+        long start = System.currentTimeMillis();
+        cancellationToken = new CancellationToken(token, timeoutMillis);
+
+        if (engine == Engine.BITBOARD) {
+            BitboardEngine bitboardEngine = new BitboardEngine(initialBoard);
+            bitboardEngine.setCancellationToken(cancellationToken);
+            bitboardEngine.setStats(stats);
+            bitboardEngine.solve(solutions, 2);
+            interrupted = bitboardEngine.isInterrupted();
+            nodes = bitboardEngine.getNodes();
+        } else if (prepareSearch()) {
+            search();
+        }
+
+        SolverResult.Status status;
+        if (interrupted) status = SolverResult.Status.UNDETERMINED;
+        else status = solutions.isEmpty() ? SolverResult.Status.UNSOLVABLE : SolverResult.Status.SOLVED;
+
+        return new SolverResult(status, solutions, nodes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Enumerate the solutions of the board, up to the given limit.
+     * Solutions are not kept by the solver (`getSolutions()` stays empty): each one is passed to the consumer as soon
+     * as it is found. If the consumer is null only the number of solutions is computed and no Board is ever created
+     * for them, so counting runs in constant memory.
+     * @param limit    Maximum number of solutions to find, 0 or less for no limit
+     * @param consumer Consumer that receives every solution found, may be null
+     * @return the number of solutions found
+     */
+    public long enumerate(long limit, SolutionConsumer consumer) {
+        solutionLimit = limit <= 0 ? Long.MAX_VALUE : limit;
+        solutionConsumer = consumer;
+        keepSolutions = false;
+
+        if (engine == Engine.BITBOARD) {
+            BitboardEngine bitboardEngine = new BitboardEngine(initialBoard);
+            bitboardEngine.setStats(stats);
+            return bitboardEngine.enumerate(solutionLimit, consumer);
+        }
+
+        if (prepareSearch()) search();
+        return solutionCount;
+    }
+
+    /**
+     * Solve the board using all available processors.
+     * @return the number of solutions of the board
+     */
+    public int solveParallel() {
+        return solveParallel(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Solve the board splitting the top levels of the search tree into independent subtasks.
+     * With a strategy whose choices only depend on the state of the search (such as the default one), the solutions
+     * found (and their order) are the same as the ones found by `solve()`. With RandomizedRestarts the search isn't
+     * restarted and the random choices differ from the ones of `solve()`, but the same seed gives the same solutions
+     * in every run. The search is always done with the BOARD engine.
+     * @param parallelism Number of threads to use
+     * @return the number of solutions of the board
+     */
+    public int solveParallel(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        if (!prepareSearch()) return solutions.size();
+
+        // split until there are enough subtasks to keep every thread busy even if the branches are unbalanced
+        int splitDepth = 0;
+        while ((1 << splitDepth) < 4 * parallelism) splitDepth++;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            solutions.addAll(pool.invoke(new ParallelSearch(this, null, splitDepth)));
+        } finally {
+            pool.shutdown();
+        }
+
+        return solutions.size();
+    }
+
+    /**
+     * Preprocesses the board and makes all initial assignations.
+     * @return whether a search is still needed to find the solutions of the board
+     */
+    private boolean prepareSearch() {
+        long time = stats != null ? System.nanoTime() : 0;
+        preprocessRows();
+        if (stats != null) time = addPhaseTime(SolverStats.Phase.PREPROCESS_ROWS, time);
+        preprocessCols();
+        if (stats != null) time = addPhaseTime(SolverStats.Phase.PREPROCESS_COLS, time);
+
+        boolean searchNeeded = initialAssignation();
+        if (stats != null) {
+            addPhaseTime(SolverStats.Phase.INITIAL_ASSIGNATION, time);
+            stats.addPropagations(assigFunctions.getPropagationCount());
+        }
+        return searchNeeded;
+    }
+
+    private void search() {
+        long time = stats != null ? System.nanoTime() : 0;
+        long initialPropagations = assigFunctions.getPropagationCount();
+        restartsAllowed = true;
+        do {
+            restartRequested = false;
+            restartNodes = nodes;
+            inferenceBacktracking();
+        } while (restartRequested);
+        restartsAllowed = false;
+        if (stats != null) {
+            addPhaseTime(SolverStats.Phase.SEARCH, time);
+            stats.addPropagations(assigFunctions.getPropagationCount() - initialPropagations);
+        }
+    }
+
+    /**
+     * Preprocesses the board and makes all initial assignations, leaving the propagated state ready to be modified
+     * by a SolverSession.
+     * @return false if the initial assignations lead to a contradiction, so the board has no solution
+     */
+    boolean prepareSession() {
         preprocessRows();
         preprocessCols();
+        // when propagation alone assigns every cell the solution has been found and the state is still valid
+        return initialAssignation() || solutionCount > 0;
+    }
+
+    /**
+     * Opens a mark in the propagated state, see KakuroFunctions::mark
+     * @return the mark
+     */
+    int mark() {
+        return assigFunctions.mark();
+    }
+
+    /**
+     * Undoes every change done to the propagated state since the given mark, see KakuroFunctions::undoToMark
+     * @param mark A mark returned by mark()
+     */
+    void undoToMark(int mark) {
+        assigFunctions.undoToMark(mark);
+    }
+
+    /**
+     * Assigns a value to a cell of the propagated state and propagates it, the state is left unchanged if it fails
+     * @param r     Row of the cell
+     * @param c     Column of the cell
+     * @param value Value to assign
+     * @return false if the assignation leads to a contradiction
+     */
+    boolean assignCellValue(int r, int c, int value) {
+        return assigFunctions.cellValueAssignation(r, c, value);
+    }
+
+    /**
+     * Get the value of a cell in the propagated state
+     * @param r Row of the cell
+     * @param c Column of the cell
+     * @return the value of the cell, 0 if it is not known yet
+     */
+    int getWorkingValue(int r, int c) {
+        return workingBoard.isEmpty(r, c) ? 0 : workingBoard.getValue(r, c);
+    }
 
+    /**
+     * Looks for one solution of the propagated state without modifying it.
+     * @param timeoutMillis Maximum time to spend searching in milliseconds, 0 or less for no limit
+     * @return the result of the search, with the solution if one was found
+     */
+    SolverResult searchCurrentState(long timeoutMillis) {
+        long start = System.currentTimeMillis();
+        solutions.clear();
+        solutionCount = 0;
+        solutionLimit = 1;
+        interrupted = false;
+        nodes = 0;
+        cancellationToken = new CancellationToken(null, timeoutMillis);
+
+        if (notationsQueue.isEmpty()) foundSolution();
+        else search();
+
+        SolverResult.Status status;
+        if (interrupted) status = SolverResult.Status.UNDETERMINED;
+        else status = solutions.isEmpty() ? SolverResult.Status.UNSOLVABLE : SolverResult.Status.SOLVED;
+
+        return new SolverResult(status, new ArrayList<>(solutions), nodes, System.currentTimeMillis() - start);
+    }
+
+    // adds the time since the given start to the phase and returns the current time
+    private long addPhaseTime(SolverStats.Phase phase, long start) {
+        long now = System.nanoTime();
+        stats.addPhaseTime(phase, now - start);
+        return now;
+    }
+
+    private boolean initialAssignation() {
         // Prepare working board:
         workingBoard = new Board(columns, rows);
         ArrayList<WhiteCell> forcedStartingValues = new ArrayList<>();
@@ -172,26 +493,28 @@ public class Solver {
         for (WhiteCell cell : forcedStartingValues) {
             int r = cell.getCoordinates().first;
             int c = cell.getCoordinates().second;
-            if (!assigFunctions.cellValueAssignation(r, c, cell.getValue())) return 0;
+            if (!assigFunctions.cellValueAssignation(r, c, cell.getValue())) return false;
         }
 
         for (int rowID = 0; rowID < rowLineSize; rowID++) {
             int r = firstRowCoord[rowID].first;
             int c = firstRowCoord[rowID].second-1;
-            if (!assigFunctions.rowSumAssignation(r, c+1, initialBoard.getHorizontalSum(r, c))) return 0;
+            if (!assigFunctions.rowSumAssignation(r, c+1, initialBoard.getHorizontalSum(r, c))) return false;
+            if (checkInterrupted()) return false;
         }
 
         for (int colID = 0; colID < colLineSize; colID++) {
             int r = firstColCoord[colID].first-1;
             int c = firstColCoord[colID].second;
-            if (!assigFunctions.colSumAssignation(r+1, c, initialBoard.getVerticalSum(r, c))) return 0;
+            if (!assigFunctions.colSumAssignation(r+1, c, initialBoard.getVerticalSum(r, c))) return false;
+            if (checkInterrupted()) return false;
         }
 
         if (notationsQueue.isEmpty()) {
             // there is only one solution,
             // we can't just add the working board because rowSum and colSum assignations aren't done directly to the black cells
-            solutions.add(copySolution(workingBoard));
-            return 1;
+            foundSolution();
+            return false;
         }
 
         for (int r = 0; r < rows; r++) {
@@ -202,9 +525,7 @@ public class Solver {
             }
         }
 
-        inferenceBacktracking();
-
-        return solutions.size();
+        return true;
     }
 
     private Board copySolution(Board b) {
@@ -224,73 +545,61 @@ public class Solver {
         return solvedBoard;
     }
 
+    private void foundSolution() {
+        solutionCount++;
+        if (solutionConsumer != null) solutionConsumer.onSolution(copySolution(workingBoard));
+        else if (keepSolutions) solutions.add(copySolution(workingBoard));
+    }
+
+    private boolean checkInterrupted() {
+        if (cancellationToken != null && cancellationToken.isCancelled()) interrupted = true;
+        return interrupted;
+    }
+
+    private boolean searchCancelled() {
+        return interrupted || solutionCount >= solutionLimit || (searchTask != null && searchTask.isSubtreeCancelled());
+    }
+
     private void inferenceBacktracking() {
-        if (solutions.size() > 1) return;
+        nodes++;
+        if (stats != null) stats.addNode(depth);
+        if (nodes % POLL_INTERVAL == 1) checkInterrupted();
+        if (searchCancelled()) return;
         if (notationsQueue.isEmpty()) {
-            solutions.add(copySolution(workingBoard));
+            foundSolution();
+            return;
+        }
+        // restarting is only safe while no solution has been reported, otherwise it could be reported twice
+        if (restartsAllowed && depth > 0 && solutionCount == 0 && branchingStrategy.shouldRestart(nodes - restartNodes)) {
+            restartRequested = true;
             return;
         }
 
-        ArrayList<Pair<Integer, Integer>> rowSumsRollback = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> colSumsRollback = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> cellValuesRollback = new ArrayList<>();
-        ArrayList<Pair<Pair<Integer, Integer>, Integer>> cellNotationsRollback = new ArrayList<>();
-
-
-        KakuroFunctions.AssignationEventListener thisIterationListener = new KakuroFunctions.AssignationEventListener() {
-            @Override
-            public void onCellValueAssignation(Pair<Pair<Integer, Integer>, Integer> p) {
-                cellValuesRollback.add(p.first);
-            }
-            @Override
-            public void onCellNotationsChanged(Pair<Pair<Integer, Integer>, Pair<Integer, Integer>> p) {
-                cellNotationsRollback.add(new Pair<>(p.first, p.second.first));
-            }
-            @Override
-            public void onRowSumAssignation(Pair<Pair<Integer, Integer>, Integer> p) {
-                rowSumsRollback.add(p.first);
-            }
-            @Override
-            public void onColSumAssignation(Pair<Pair<Integer, Integer>, Integer> p) {
-                colSumsRollback.add(p.first);
-            }
-            @Override
-            public void onCellNoValuesLeft(Pair<Integer, Integer> coord) {}
-            @Override
-            public void onRowNoValuesLeft(Pair<Integer, Integer> coord) {}
-            @Override
-            public void onColNoValuesLeft(Pair<Integer, Integer> coord) {}
-        };
-
-        assigFunctions.setAssignationEventListener(thisIterationListener);
-
-        WhiteCell cell = notationsQueue.getFirstElement();
-        int notations = cell.getNotations();
+        WhiteCell cell = branchingStrategy.selectCell(master);
+        Pair<Integer, Integer> coord = cell.getCoordinates();
 
-        for (int i = 0; i < 9; i++) {
-            if ((notations&(1<<i)) == 0) continue;
-            if (assigFunctions.cellValueAssignation(cell.getCoordinates().first, cell.getCoordinates().second, i+1)) {
+        for (long order = branchingStrategy.orderValues(master, cell); order != 0; order >>>= 4) {
+            int value = (int)(order & 0xF);
+            int mark = assigFunctions.mark();
+            if (assigFunctions.cellValueAssignation(coord.first, coord.second, value)) {
+                depth++;
                 inferenceBacktracking();
-                if (solutions.size() > 1) return;
-                assigFunctions.setAssignationEventListener(thisIterationListener);
-                assigFunctions.externalRollback(
-                        rowSumsRollback,
-                        colSumsRollback,
-                        cellValuesRollback,
-                        cellNotationsRollback,
-                        new ArrayList<>()
-                );
+                depth--;
+                if (restartRequested || searchCancelled()) {
+                    // every level undoes its changes on the way back, so the state is left as it was before searching
+                    assigFunctions.undoToMark(mark);
+                    return;
+                }
+            } else if (stats != null) {
+                stats.addFailedAssignation();
             }
-            rowSumsRollback.clear();
-            colSumsRollback.clear();
-            cellValuesRollback.clear();
-            cellNotationsRollback.clear();
-            if (solutions.size() > 1) return;
+            assigFunctions.undoToMark(mark);
+            if (searchCancelled()) return;
         }
     }
 
     private void initializeAssigFunctions() {
-        assigFunctions = new KakuroFunctions(new KakuroFunctions.KakuroFunctionsMaster() {
+        master = new KakuroFunctions.KakuroFunctionsMaster() {
             @Override
             public int getRowID(int r, int c) {
                 return rowLine[r][c];
@@ -384,6 +693,68 @@ public class Solver {
             public SwappingCellQueue getNotationsQueue() {
                 return notationsQueue;
             }
-        });
+        };
+        assigFunctions = new KakuroFunctions(master);
+    }
+
+    /**
+     * Fork-join task that explores a subtree of the search.
+     * Each task owns its own forked Solver, the first levels fork one subtask for each possible value of the
+     * cell chosen by the branching strategy, deeper levels fall back to the sequential inferenceBacktracking.
+     */
+    @SuppressWarnings("serial") // RecursiveTask is Serializable, but tasks are never serialized
+    private static class ParallelSearch extends RecursiveTask<ArrayList<Board>> {
+        private final Solver solver;
+        private final ParallelSearch parent;
+        private final int depth;
+        private volatile boolean cancelled = false;
+
+        ParallelSearch(Solver solver, ParallelSearch parent, int depth) {
+            this.solver = solver;
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        // a subtree is cancelled when it or any of its ancestors has been cancelled
+        boolean isSubtreeCancelled() {
+            for (ParallelSearch t = this; t != null; t = t.parent) {
+                if (t.cancelled) return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected ArrayList<Board> compute() {
+            if (isSubtreeCancelled()) return new ArrayList<>();
+
+            if (depth == 0 || solver.notationsQueue.isEmpty()) {
+                solver.searchTask = this;
+                solver.inferenceBacktracking();
+                return solver.solutions;
+            }
+
+            WhiteCell cell = solver.branchingStrategy.selectCell(solver.master);
+            Pair<Integer, Integer> coord = cell.getCoordinates();
+
+            ArrayList<ParallelSearch> subtasks = new ArrayList<>();
+            for (long order = solver.branchingStrategy.orderValues(solver.master, cell); order != 0; order >>>= 4) {
+                Solver fork = new Solver(solver);
+                if (fork.assigFunctions.cellValueAssignation(coord.first, coord.second, (int)(order & 0xF))) {
+                    ParallelSearch subtask = new ParallelSearch(fork, this, depth-1);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                }
+            }
+
+            // merge in the same order the sequential search would have found them, once we have 2 solutions
+            // the remaining subtrees can't contribute to the result and are cancelled
+            ArrayList<Board> found = new ArrayList<>();
+            for (ParallelSearch subtask : subtasks) {
+                if (found.size() > 1) subtask.cancelled = true;
+                ArrayList<Board> result = subtask.join();
+                for (int i = 0; found.size() < 2 && i < result.size(); i++) found.add(result.get(i));
+            }
+            return found;
+        }
     }
 }
@@ -0,0 +1,78 @@
+package src.domain.algorithms;
+
+import src.domain.entities.Board;
+
+import java.util.ArrayList;
+
+/**
+ * Result of a time bounded or cancellable solve.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class SolverResult {
+    /**
+     * SOLVED means the search finished and found at least one solution, UNSOLVABLE means it finished without finding
+     * any, and UNDETERMINED means it was stopped before it could finish.
+     */
+    public enum Status { SOLVED, UNSOLVABLE, UNDETERMINED }
+
+    private final Status status;
+    private final ArrayList<Board> solutions;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor
+     * @param status        Status of the search
+     * @param solutions     Solutions found (even if the search was stopped)
+     * @param nodes         Number of nodes expanded in the search tree
+     * @param elapsedMillis Time spent solving, in milliseconds
+     */
+    public SolverResult(Status status, ArrayList<Board> solutions, long nodes, long elapsedMillis) {
+        this.status = status;
+        this.solutions = solutions;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Get status of the search
+     * @return the status of the search
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Get the solutions found. As in Solver, at most 2 solutions are searched for
+     * @return the solutions found
+     */
+    public ArrayList<Board> getSolutions() {
+        return solutions;
+    }
+
+    /**
+     * Get number of solutions found
+     * @return the number of solutions found
+     */
+    public int getNumSolutions() {
+        return solutions.size();
+    }
+
+    /**
+     * Get number of nodes expanded
+     * @return the number of nodes of the search tree that have been expanded
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get time spent solving
+     * @return the time spent solving, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
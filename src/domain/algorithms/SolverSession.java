@@ -0,0 +1,180 @@
+package src.domain.algorithms;
+
+import src.domain.entities.Board;
+import src.utils.Pair;
+
+import java.util.ArrayList;
+
+/**
+ * Solver session class.
+ * Keeps the propagated state of a board while it is being played, so that questions about the current position
+ * can be answered without solving the board from scratch. The values placed by the player are applied to that
+ * state as incremental assignations, and removing one only undoes the assignations made after it.
+ * Searches start from the propagated state and remember the solution they find, which stays valid for as long as
+ * the player keeps placing values that agree with it.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class SolverSession {
+    private final Board initialBoard;
+    private final Solver solver;
+    private final boolean initiallyConsistent;  // whether the board alone doesn't lead to a contradiction
+
+    private final ArrayList<Assignment> assignments = new ArrayList<>(); // values placed by the player, in order
+    private final int[][] playerValues;         // value placed by the player in each cell, 0 if none
+    private int conflicts = 0;                  // number of assignments that led to a contradiction
+
+    private Board solution = null;              // a solution that agrees with every assignment, null if unknown
+    private boolean unsolvable = false;         // whether the last search proved the position has no solution
+
+    // value placed by the player and the mark of the propagated state before it was applied
+    private static class Assignment {
+        final int r, c, value;
+        int mark;
+        boolean failed;
+
+        Assignment(int r, int c, int value) {
+            this.r = r;
+            this.c = c;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Constructor.
+     * Propagates the sums and the initial values of the board
+     * @param board Board to play, its values are the initial ones and can't be changed by the player
+     */
+    public SolverSession(Board board) {
+        initialBoard = board;
+        solver = new Solver(board);
+        initiallyConsistent = solver.prepareSession();
+        playerValues = new int[board.getHeight()][board.getWidth()];
+    }
+
+    /**
+     * Set the value placed by the player in a cell, replacing the previous one
+     * @param r     Row of the cell
+     * @param c     Column of the cell
+     * @param value Value to place, 0 to clear the cell
+     * @return whether the position is still consistent, see isConsistent()
+     */
+    public boolean setCellValue(int r, int c, int value) {
+        if (initialBoard.isBlackCell(r, c) || !initialBoard.isEmpty(r, c))
+            throw new IllegalArgumentException("Only the empty white cells of the board can be modified");
+        if (value < 0 || value > 9) throw new IllegalArgumentException("Values must be between 0 and 9");
+
+        if (playerValues[r][c] == value) return isConsistent();
+        if (playerValues[r][c] != 0) retract(r, c);
+        if (value != 0) {
+            Assignment assignment = new Assignment(r, c, value);
+            apply(assignment);
+            assignments.add(assignment);
+            playerValues[r][c] = value;
+            if (solution != null && solution.getValue(r, c) != value) solution = null;
+        }
+        return isConsistent();
+    }
+
+    /**
+     * Get the value placed by the player in a cell
+     * @param r Row of the cell
+     * @param c Column of the cell
+     * @return the value of the cell, 0 if the player hasn't placed any
+     */
+    public int getCellValue(int r, int c) {
+        return playerValues[r][c];
+    }
+
+    /**
+     * Removes all the values placed by the player
+     */
+    public void reset() {
+        for (int i = assignments.size()-1; i >= 0; i--) {
+            Assignment assignment = assignments.get(i);
+            undo(assignment);
+            playerValues[assignment.r][assignment.c] = 0;
+        }
+        assignments.clear();
+        unsolvable = false;
+    }
+
+    /**
+     * Check whether propagating the current position leads to a contradiction. No search is done, so a consistent
+     * position can still be unsolvable.
+     * @return false if the current position has no solution
+     */
+    public boolean isConsistent() {
+        return initiallyConsistent && conflicts == 0;
+    }
+
+    /**
+     * Check whether the current position can still be completed to a solution of the board.
+     * Only searches if no solution that agrees with the current position is known.
+     * @param timeoutMillis Maximum time to spend searching in milliseconds, 0 or less for no limit
+     * @return SOLVED or UNSOLVABLE, or UNDETERMINED if the search couldn't finish in time
+     */
+    public SolverResult.Status checkSolvable(long timeoutMillis) {
+        if (!isConsistent() || unsolvable) return SolverResult.Status.UNSOLVABLE;
+        if (solution != null) return SolverResult.Status.SOLVED;
+
+        SolverResult result = solver.searchCurrentState(timeoutMillis);
+        if (result.getStatus() == SolverResult.Status.SOLVED) solution = result.getSolutions().get(0);
+        else if (result.getStatus() == SolverResult.Status.UNSOLVABLE) unsolvable = true;
+        return result.getStatus();
+    }
+
+    /**
+     * Get a solution that agrees with the current position, searching for one if needed
+     * @param timeoutMillis Maximum time to spend searching in milliseconds, 0 or less for no limit
+     * @return the solution, or null if there is none or it couldn't be found in time
+     */
+    public Board getSolution(long timeoutMillis) {
+        checkSolvable(timeoutMillis);
+        return solution;
+    }
+
+    /**
+     * Get the cells whose value follows from the current position by propagation alone and are still empty
+     * @return the coordinates and value of each forced cell, empty if the position isn't consistent
+     */
+    public ArrayList<Pair<Pair<Integer, Integer>, Integer>> getForcedCells() {
+        ArrayList<Pair<Pair<Integer, Integer>, Integer>> forced = new ArrayList<>();
+        if (!isConsistent()) return forced;
+        for (int r = 0; r < initialBoard.getHeight(); r++) {
+            for (int c = 0; c < initialBoard.getWidth(); c++) {
+                if (initialBoard.isBlackCell(r, c) || !initialBoard.isEmpty(r, c) || playerValues[r][c] != 0) continue;
+                int value = solver.getWorkingValue(r, c);
+                if (value != 0) forced.add(new Pair<>(new Pair<>(r, c), value));
+            }
+        }
+        return forced;
+    }
+
+    // removes the assignment of the cell, undoing the ones made after it and applying them again
+    private void retract(int r, int c) {
+        int pos = assignments.size()-1;
+        while (assignments.get(pos).r != r || assignments.get(pos).c != c) pos--;
+
+        for (int i = assignments.size()-1; i >= pos; i--) undo(assignments.get(i));
+        assignments.remove(pos);
+        for (int i = pos; i < assignments.size(); i++) apply(assignments.get(i));
+
+        playerValues[r][c] = 0;
+        unsolvable = false;
+    }
+
+    private void apply(Assignment assignment) {
+        if (!initiallyConsistent) return;
+        assignment.mark = solver.mark();
+        assignment.failed = !solver.assignCellValue(assignment.r, assignment.c, assignment.value);
+        if (assignment.failed) conflicts++;
+    }
+
+    private void undo(Assignment assignment) {
+        if (!initiallyConsistent) return;
+        solver.undoToMark(assignment.mark);
+        if (assignment.failed) conflicts--;
+    }
+}
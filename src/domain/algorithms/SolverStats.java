@@ -0,0 +1,84 @@
+package src.domain.algorithms;
+
+/**
+ * Solver statistics.
+ * Counters and timings filled by the Solver during a search when statistics are enabled.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class SolverStats {
+    /**
+     * Phases of a solve whose time is measured
+     */
+    public enum Phase { PREPROCESS_ROWS, PREPROCESS_COLS, INITIAL_ASSIGNATION, SEARCH }
+
+    private long nodes = 0;                 // nodes of the search tree expanded
+    private long propagations = 0;          // row/col notation updates done while propagating assignations
+    private long failedAssignations = 0;    // value assignations of the search that led to a conflict
+    private int maxDepth = 0;               // deepest level reached in the search tree
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    /**
+     * Register the expansion of a node of the search tree
+     * @param depth Depth of the node, the root has depth 0
+     */
+    public void addNode(int depth) {
+        nodes++;
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    /**
+     * Register propagation steps
+     * @param count Number of propagation steps to add
+     */
+    public void addPropagations(long count) {
+        propagations += count;
+    }
+
+    /**
+     * Register a value assignation of the search that failed
+     */
+    public void addFailedAssignation() {
+        failedAssignations++;
+    }
+
+    /**
+     * Add time spent in a phase
+     * @param phase Phase of the solve
+     * @param nanos Time spent, in nanoseconds
+     */
+    public void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public long getNodes() { return nodes; }
+    public long getPropagations() { return propagations; }
+    public long getFailedAssignations() { return failedAssignations; }
+    public int getMaxDepth() { return maxDepth; }
+
+    /**
+     * Get time spent in a phase
+     * @param phase Phase of the solve
+     * @return the time spent in the given phase, in milliseconds
+     */
+    public double getPhaseMillis(Phase phase) {
+        return phaseNanos[phase.ordinal()] / 1e6;
+    }
+
+    /**
+     * Convert statistics to string
+     * @return a human readable summary of the statistics, one value per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("nodes: ").append(nodes).append('\n');
+        sb.append("propagations: ").append(propagations).append('\n');
+        sb.append("failed assignations: ").append(failedAssignations).append('\n');
+        sb.append("max depth: ").append(maxDepth).append('\n');
+        for (Phase phase : Phase.values())
+            sb.append(phase.name().toLowerCase().replace('_', ' ')).append(" time: ").append(String.format("%.3f", getPhaseMillis(phase))).append(" ms\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package src.domain.algorithms;
+
+import src.domain.algorithms.helpers.BitboardEngine;
+import src.domain.algorithms.helpers.CancellationToken;
+import src.domain.entities.Board;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uniqueness checker class.
+ * Checks whether a board has exactly one solution, which is cheaper than solving it: the search stops as soon as a
+ * second solution is found, and the branches of the first split of the search tree are explored in parallel.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class UniquenessChecker {
+    /**
+     * UNIQUE and MULTIPLE mean the board has exactly one or more than one solution, UNSOLVABLE means it has none, and
+     * UNDETERMINED means the check was stopped before it could tell.
+     */
+    public enum Result { UNIQUE, MULTIPLE, UNSOLVABLE, UNDETERMINED }
+
+    private final Board board;
+    private final Board knownSolution;
+    private final int parallelism;
+    private long nodes = 0;
+    private Board solution = null;
+
+    /**
+     * Constructor.
+     * Initializes the checker to check the given board
+     * @param board Board to check
+     */
+    public UniquenessChecker(Board board) {
+        this(board, null);
+    }
+
+    /**
+     * Constructor.
+     * Initializes the checker to check a board with a known solution, such as one just built by a Generator.
+     * The values of the known solution are explored first, so it is found right away and the rest of the search
+     * only has to look for a different one.
+     * @param board         Board to check
+     * @param knownSolution A solution of the board, may be null
+     */
+    public UniquenessChecker(Board board, Board knownSolution) {
+        this(board, knownSolution, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     * Initializes the checker to check a board with a known solution using the given number of threads
+     * @param board         Board to check
+     * @param knownSolution A solution of the board, may be null
+     * @param parallelism   Maximum number of branches explored at the same time
+     */
+    public UniquenessChecker(Board board, Board knownSolution, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.board = board;
+        this.knownSolution = knownSolution;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Check the board until it is known whether its solution is unique
+     * @return the result of the check, UNDETERMINED only if the calling thread is interrupted while waiting for the
+     * branches explored in parallel, in which case its interrupt flag is left set
+     */
+    public Result check() {
+        return check(0, null);
+    }
+
+    /**
+     * Check the board, giving up after the given time or once the given token is cancelled
+     * @param timeoutMillis Maximum time to spend checking in milliseconds, 0 or less for no limit
+     * @param token         Token to cancel the check from another thread, may be null
+     * @return the result of the check, UNDETERMINED if it was stopped by the timeout, the token or an interrupt of the
+     * calling thread (whose interrupt flag is then left set) before it could tell
+     */
+    public Result check(long timeoutMillis, CancellationToken token) {
+        nodes = 0;
+        solution = null;
+        final CancellationToken stop = new CancellationToken(token, timeoutMillis);
+
+        BitboardEngine root = new BitboardEngine(board);
+        if (knownSolution != null) root.setPreferredValues(knownSolution);
+        if (!root.propagateInitialState()) return Result.UNSOLVABLE;
+
+        // one engine per value of the first branching cell, every solution found by any of them counts towards the
+        // global count, and all of them are stopped as soon as two solutions have been found
+        final AtomicLong solutionCount = new AtomicLong(0);
+        final AtomicReference<Board> firstSolution = new AtomicReference<>();
+        final Solver.SolutionConsumer counter = new Solver.SolutionConsumer() {
+            @Override
+            public void onSolution(Board solution) {
+                firstSolution.compareAndSet(null, solution);
+                if (solutionCount.incrementAndGet() >= 2) stop.cancel();
+            }
+        };
+
+        int cell = root.getBranchCell();
+        if (cell == -1) { // the initial propagation alone solved the board
+            root.enumerateFromCurrentState(1, counter);
+            solution = firstSolution.get();
+            return Result.UNIQUE;
+        }
+
+        final ArrayList<BitboardEngine> branches = new ArrayList<>();
+        ArrayList<Callable<Long>> tasks = new ArrayList<>();
+        int candidates = root.getCandidates(cell);
+        for (int i = 0; i < 9; i++) {
+            if ((candidates & (1<<i)) == 0) continue;
+            final BitboardEngine branch = new BitboardEngine(root);
+            if (!branch.branch(cell, i+1)) continue;
+            branch.setCancellationToken(stop);
+            branches.add(branch);
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return branch.enumerateFromCurrentState(2, counter);
+                }
+            });
+        }
+
+        boolean interrupted = false;
+        if (branches.size() == 1) {
+            branches.get(0).enumerateFromCurrentState(2, counter);
+        } else if (!tasks.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+            try {
+                for (Future<Long> f : pool.invokeAll(tasks)) f.get();
+            } catch (InterruptedException e) {
+                stop.cancel(); // the engines don't see thread interrupts, the token stops the ones still running
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Uniqueness check failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        for (BitboardEngine branch : branches) {
+            nodes += branch.getNodes();
+            if (branch.isInterrupted()) interrupted = true;
+        }
+
+        solution = firstSolution.get();
+        long count = solutionCount.get();
+        if (count >= 2) return Result.MULTIPLE;
+        if (interrupted) return Result.UNDETERMINED;
+        return count == 1 ? Result.UNIQUE : Result.UNSOLVABLE;
+    }
+
+    /**
+     * Get the first solution found by the last check. If the board has more than one solution this is any of them
+     * @return a solution of the board, null if the last check didn't find any
+     */
+    public Board getSolution() {
+        return solution;
+    }
+
+    /**
+     * Get number of nodes expanded
+     * @return the number of nodes of the search tree expanded by the last check, adding up all branches
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,541 @@
+package src.domain.algorithms.helpers;
+
+import src.domain.algorithms.Solver;
+import src.domain.algorithms.SolverStats;
+import src.domain.entities.BlackCell;
+import src.domain.entities.Board;
+import src.domain.entities.WhiteCell;
+
+import java.util.ArrayList;
+
+/**
+ * Bitboard solving engine.
+ * Alternative to the Board based state used by the Solver: the whole problem is packed into flat int arrays
+ * (a 9-bit candidate mask per white cell, a line to cell index and the sum and values used of each line) and
+ * every change is recorded in a primitive trail so that backtracking restores the state without any allocation.
+ * Row lines are numbered first and column lines after them.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class BitboardEngine {
+    private static final int ALL_VALUES = 0x1FF;
+
+    // COMBINATIONS[size][sum] contains the masks of all the sets of 'size' different digits that add up to 'sum'
+    private static final int[][][] COMBINATIONS = new int[10][46][];
+
+    static {
+        int[][] count = new int[10][46];
+        for (int mask = 1; mask <= ALL_VALUES; mask++) count[Integer.bitCount(mask)][maskSum(mask)]++;
+        for (int size = 0; size < 10; size++) {
+            for (int sum = 0; sum < 46; sum++) COMBINATIONS[size][sum] = new int[count[size][sum]];
+        }
+        int[][] fill = new int[10][46];
+        for (int mask = 1; mask <= ALL_VALUES; mask++) {
+            int size = Integer.bitCount(mask);
+            int sum = maskSum(mask);
+            COMBINATIONS[size][sum][fill[size][sum]++] = mask;
+        }
+    }
+
+    private static int maskSum(int mask) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) if ((mask & (1<<i)) != 0) sum += i+1;
+        return sum;
+    }
+
+    private final Board initialBoard;
+    private final int rows, columns;
+
+    private final int numCells;             // number of white cells
+    private final int[] cellRow, cellCol;   // coordinates of each white cell
+    private final int[] cellRowLine;        // rowLine each white cell belongs to
+    private final int[] cellColLine;        // colLine each white cell belongs to
+
+    private final int numLines;             // number of rowLines + colLines
+    private final int[] lineStart;          // position in lineCells of the first cell of each line
+    private final int[] lineCells;          // white cells of each line, line after line
+    private final int[] lineSum;            // sum of each line, 0 if the board doesn't specify it
+    private int[] preferredValue;           // value of each cell to try first when branching, null if there is none
+
+    // Mutable state, every slot is saved in the trail before being modified:
+    //  [0, numCells)                      candidate mask of each cell
+    //  [numCells, 2*numCells)             value of each cell, 0 if not assigned
+    //  [2*numCells, 2*numCells+numLines)  mask of values used in each line
+    private final int[] state;
+    private final int valueOffset, usedOffset;
+
+    private int[] trail;                    // pairs of (slot, previous value)
+    private int trailSize;
+
+    private final int[] pendingLines;       // circular worklist of lines whose cells have changed
+    private final boolean[] isPending;
+    private int pendingHead, pendingCount;
+
+    private static final int POLL_INTERVAL = 256; // nodes expanded between each check of the cancellation token
+    private CancellationToken cancellationToken;
+    private boolean interrupted;
+    private long nodes;
+    private int depth;
+    private SolverStats stats;              // null unless statistics are enabled
+    private final long preprocessRowsNanos, preprocessColsNanos;
+
+    private Solver.SolutionConsumer solutionConsumer;
+    private long solutionLimit;
+    private long solutionCount;
+
+    /**
+     * Constructor.
+     * Packs the given board into the flat representation used by the engine.
+     * @param board Board to solve
+     */
+    public BitboardEngine(Board board) {
+        initialBoard = board;
+        rows = board.getHeight();
+        columns = board.getWidth();
+
+        long time = System.nanoTime();
+        int[][] cellIndex = new int[rows][columns];
+        int n = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                cellIndex[r][c] = board.isWhiteCell(r, c) ? n++ : -1;
+            }
+        }
+        numCells = n;
+        cellRow = new int[numCells];
+        cellCol = new int[numCells];
+        cellRowLine = new int[numCells];
+        cellColLine = new int[numCells];
+
+        // every white cell belongs to exactly one rowLine and one colLine
+        lineStart = new int[2*numCells + 1];
+        lineCells = new int[2*numCells];
+        lineSum = new int[2*numCells];
+        int lines = 0, pos = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (cellIndex[r][c] == -1 || (c > 0 && cellIndex[r][c-1] != -1)) continue;
+                lineStart[lines] = pos;
+                lineSum[lines] = c > 0 ? board.getHorizontalSum(r, c-1) : 0;
+                for (int j = c; j < columns && cellIndex[r][j] != -1; j++) {
+                    int cell = cellIndex[r][j];
+                    cellRow[cell] = r;
+                    cellCol[cell] = j;
+                    cellRowLine[cell] = lines;
+                    lineCells[pos++] = cell;
+                }
+                lines++;
+            }
+        }
+        preprocessRowsNanos = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (int c = 0; c < columns; c++) {
+            for (int r = 0; r < rows; r++) {
+                if (cellIndex[r][c] == -1 || (r > 0 && cellIndex[r-1][c] != -1)) continue;
+                lineStart[lines] = pos;
+                lineSum[lines] = r > 0 ? board.getVerticalSum(r-1, c) : 0;
+                for (int i = r; i < rows && cellIndex[i][c] != -1; i++) {
+                    int cell = cellIndex[i][c];
+                    cellColLine[cell] = lines;
+                    lineCells[pos++] = cell;
+                }
+                lines++;
+            }
+        }
+        numLines = lines;
+        lineStart[numLines] = pos;
+        preprocessColsNanos = System.nanoTime() - time;
+
+        valueOffset = numCells;
+        usedOffset = 2*numCells;
+        state = new int[2*numCells + numLines];
+        for (int i = 0; i < numCells; i++) state[i] = ALL_VALUES;
+
+        trail = new int[2 * Math.max(16, state.length)];
+        trailSize = 0;
+
+        pendingLines = new int[numLines];
+        isPending = new boolean[numLines];
+    }
+
+    /**
+     * Copy constructor.
+     * Creates an engine with the same current state as the given one (the candidates, values and used values left by
+     * its last propagation), sharing the data that never changes. The copy can search independently of the original.
+     * @param e Engine to copy, must not be in the middle of a search
+     */
+    public BitboardEngine(BitboardEngine e) {
+        initialBoard = e.initialBoard;
+        rows = e.rows;
+        columns = e.columns;
+
+        numCells = e.numCells;
+        cellRow = e.cellRow;
+        cellCol = e.cellCol;
+        cellRowLine = e.cellRowLine;
+        cellColLine = e.cellColLine;
+
+        numLines = e.numLines;
+        lineStart = e.lineStart;
+        lineCells = e.lineCells;
+        lineSum = e.lineSum;
+        preferredValue = e.preferredValue;
+        preprocessRowsNanos = 0;
+        preprocessColsNanos = 0;
+
+        valueOffset = e.valueOffset;
+        usedOffset = e.usedOffset;
+        state = e.state.clone();
+
+        trail = new int[2 * Math.max(16, state.length)];
+        trailSize = 0;
+
+        pendingLines = new int[numLines];
+        isPending = new boolean[numLines];
+    }
+
+    /**
+     * Set the value to try first when branching on each cell, for example the values of a known solution.
+     * It only changes the order in which the search tree is explored, never which solutions are found.
+     * @param solution Board whose values are tried first, cells without value keep the default order
+     */
+    public void setPreferredValues(Board solution) {
+        preferredValue = new int[numCells];
+        for (int cell = 0; cell < numCells; cell++) {
+            int r = cellRow[cell], c = cellCol[cell];
+            if (solution.isWhiteCell(r, c) && !solution.isEmpty(r, c)) preferredValue[cell] = solution.getValue(r, c);
+        }
+    }
+
+    /**
+     * Set the token that stops the search once cancelled
+     * @param token Cancellation token, may be null
+     */
+    public void setCancellationToken(CancellationToken token) {
+        cancellationToken = token;
+    }
+
+    /**
+     * Set the statistics to fill during the search
+     * @param stats Statistics to fill, null to disable them
+     */
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+        if (stats != null) {
+            stats.addPhaseTime(SolverStats.Phase.PREPROCESS_ROWS, preprocessRowsNanos);
+            stats.addPhaseTime(SolverStats.Phase.PREPROCESS_COLS, preprocessColsNanos);
+        }
+    }
+
+    /**
+     * Check whether the last search was stopped by the cancellation token before finishing
+     * @return whether the search was interrupted
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    /**
+     * Get number of nodes expanded
+     * @return the number of nodes of the search tree expanded by the last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Solve the board
+     * @param found ArrayList where the solutions found are added
+     * @param limit Maximum number of solutions to find
+     * @return the number of solutions found
+     */
+    public int solve(final ArrayList<Board> found, int limit) {
+        return (int) enumerate(limit, new Solver.SolutionConsumer() {
+            @Override
+            public void onSolution(Board solution) {
+                found.add(solution);
+            }
+        });
+    }
+
+    /**
+     * Enumerate the solutions of the board
+     * @param limit    Maximum number of solutions to find
+     * @param consumer Consumer that receives every solution found, if null solutions are only counted
+     * @return the number of solutions found
+     */
+    public long enumerate(long limit, Solver.SolutionConsumer consumer) {
+        resetSearch(limit, consumer);
+
+        long time = stats != null ? System.nanoTime() : 0;
+        boolean possible = initialAssignation();
+        if (stats != null) {
+            stats.addPhaseTime(SolverStats.Phase.INITIAL_ASSIGNATION, System.nanoTime() - time);
+            time = System.nanoTime();
+        }
+        if (!possible) return 0;
+        search();
+        if (stats != null) stats.addPhaseTime(SolverStats.Phase.SEARCH, System.nanoTime() - time);
+
+        return solutionCount;
+    }
+
+    /**
+     * Makes the initial assignations (sums and given values) and propagates them, without searching.
+     * @return false if the board has been found to have no solution
+     */
+    public boolean propagateInitialState() {
+        return initialAssignation();
+    }
+
+    /**
+     * Get the cell the search would branch on next
+     * @return the unassigned cell with the least candidates, -1 if every cell is assigned
+     */
+    public int getBranchCell() {
+        int best = -1, bestSize = 10;
+        for (int cell = 0; cell < numCells && bestSize > 2; cell++) {
+            if (state[valueOffset + cell] != 0) continue;
+            int size = Integer.bitCount(state[cell]);
+            if (size < bestSize) {
+                best = cell;
+                bestSize = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the candidates of a cell
+     * @param cell Cell, as returned by getBranchCell()
+     * @return the mask of values the cell can still take
+     */
+    public int getCandidates(int cell) {
+        return state[cell];
+    }
+
+    /**
+     * Assigns a value to a cell and propagates it. Used to split the search tree between several engines.
+     * @param cell  Cell, as returned by getBranchCell()
+     * @param value Value to assign
+     * @return false if the assignation leaves the board without solution, the engine should then be discarded
+     */
+    public boolean branch(int cell, int value) {
+        return assign(cell, value) && propagate();
+    }
+
+    /**
+     * Enumerate the solutions reachable from the current state, without making the initial assignations again.
+     * @param limit    Maximum number of solutions to find
+     * @param consumer Consumer that receives every solution found, if null solutions are only counted
+     * @return the number of solutions found
+     */
+    public long enumerateFromCurrentState(long limit, Solver.SolutionConsumer consumer) {
+        resetSearch(limit, consumer);
+        search();
+        return solutionCount;
+    }
+
+    private void resetSearch(long limit, Solver.SolutionConsumer consumer) {
+        solutionConsumer = consumer;
+        solutionLimit = limit;
+        solutionCount = 0;
+        interrupted = false;
+        nodes = 0;
+        depth = 0;
+    }
+
+    private boolean initialAssignation() {
+        for (int line = 0; line < numLines; line++) {
+            // a sum of 0 is never valid (same behaviour as KakuroFunctions' sum assignations)
+            int size = lineStart[line+1] - lineStart[line];
+            if (lineSum[line] <= 0 || lineSum[line] > 45 || size > 9 || COMBINATIONS[size][lineSum[line]].length == 0) return false;
+            enqueue(line);
+        }
+        for (int cell = 0; cell < numCells; cell++) {
+            int r = cellRow[cell], c = cellCol[cell];
+            if (!initialBoard.isEmpty(r, c) && !assign(cell, initialBoard.getValue(r, c))) return false;
+        }
+        return propagate();
+    }
+
+    private void search() {
+        nodes++;
+        if (stats != null) stats.addNode(depth);
+        if (nodes % POLL_INTERVAL == 1 && cancellationToken != null && cancellationToken.isCancelled()) interrupted = true;
+        if (interrupted || solutionCount >= solutionLimit) return;
+
+        // minimum remaining values: the unassigned cell with the least candidates
+        int best = getBranchCell();
+        if (best == -1) {
+            solutionCount++;
+            if (solutionConsumer != null) solutionConsumer.onSolution(buildSolution());
+            return;
+        }
+
+        int candidates = state[best];
+        int mark = trailSize;
+        int first = preferredValue != null && preferredValue[best] != 0 ? preferredValue[best]-1 : 0;
+        for (int k = 0; k < 9; k++) {
+            int i = (first + k) % 9; // values in ascending order, starting at the preferred one
+            if ((candidates & (1<<i)) == 0) continue;
+            if (assign(best, i+1) && propagate()) {
+                depth++;
+                search();
+                depth--;
+            } else if (stats != null) {
+                stats.addFailedAssignation();
+            }
+            undo(mark);
+            if (interrupted || solutionCount >= solutionLimit) return;
+        }
+    }
+
+    private Board buildSolution() {
+        Board solvedBoard = new Board(columns, rows);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (initialBoard.isBlackCell(r, c)) solvedBoard.setCell(new BlackCell((BlackCell)initialBoard.getCell(r, c)), r, c);
+            }
+        }
+        for (int cell = 0; cell < numCells; cell++) {
+            solvedBoard.setCell(new WhiteCell(state[valueOffset + cell]), cellRow[cell], cellCol[cell]);
+        }
+        return solvedBoard;
+    }
+
+    private void set(int slot, int value) {
+        if (state[slot] == value) return;
+        if (trailSize + 2 > trail.length) {
+            int[] newTrail = new int[2 * trail.length];
+            System.arraycopy(trail, 0, newTrail, 0, trailSize);
+            trail = newTrail;
+        }
+        trail[trailSize++] = slot;
+        trail[trailSize++] = state[slot];
+        state[slot] = value;
+    }
+
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int prev = trail[--trailSize];
+            state[trail[--trailSize]] = prev;
+        }
+    }
+
+    private void enqueue(int line) {
+        if (isPending[line]) return;
+        isPending[line] = true;
+        pendingLines[(pendingHead + pendingCount) % numLines] = line;
+        pendingCount++;
+    }
+
+    private void clearPending() {
+        while (pendingCount > 0) {
+            isPending[pendingLines[pendingHead]] = false;
+            pendingHead = (pendingHead + 1) % numLines;
+            pendingCount--;
+        }
+    }
+
+    // assigns value to cell and removes it from the candidates of every other cell in its lines
+    private boolean assign(int cell, int value) {
+        int bit = 1 << (value-1);
+        if (state[valueOffset + cell] != 0) return state[valueOffset + cell] == value;
+        if ((state[cell] & bit) == 0) return false;
+
+        set(cell, bit);
+        set(valueOffset + cell, value);
+        return useValue(cellRowLine[cell], cell, bit) && useValue(cellColLine[cell], cell, bit);
+    }
+
+    private boolean useValue(int line, int cell, int bit) {
+        int used = state[usedOffset + line];
+        if ((used & bit) != 0) return false;
+        set(usedOffset + line, used | bit);
+        for (int p = lineStart[line]; p < lineStart[line+1]; p++) {
+            int other = lineCells[p];
+            if (other == cell || (state[other] & bit) == 0) continue;
+            if (!restrict(other, state[other] & ~bit)) return false;
+        }
+        enqueue(line);
+        return true;
+    }
+
+    private boolean restrict(int cell, int mask) {
+        if (mask == 0) return false;
+        set(cell, mask);
+        enqueue(cellRowLine[cell]);
+        enqueue(cellColLine[cell]);
+        return true;
+    }
+
+    private boolean propagate() {
+        while (pendingCount > 0) {
+            int line = pendingLines[pendingHead];
+            pendingHead = (pendingHead + 1) % numLines;
+            pendingCount--;
+            isPending[line] = false;
+            if (stats != null) stats.addPropagations(1);
+            if (!filterLine(line)) {
+                clearPending();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // keeps only the candidates that belong to some combination of the line compatible with the current state
+    private boolean filterLine(int line) {
+        int start = lineStart[line], end = lineStart[line+1];
+        int used = state[usedOffset + line];
+        int free = 0;       // union of candidates of unassigned cells
+        for (int p = start; p < end; p++) {
+            int cell = lineCells[p];
+            if (state[valueOffset + cell] == 0) free |= state[cell];
+        }
+
+        boolean possible = false;
+        int allowed = 0, required = ALL_VALUES;
+        for (int combination : COMBINATIONS[end - start][lineSum[line]]) {
+            if ((combination & used) != used) continue;
+            int missing = combination & ~used;
+            if ((missing & ~free) != 0) continue;
+            boolean fits = true;
+            for (int p = start; fits && p < end; p++) {
+                int cell = lineCells[p];
+                if (state[valueOffset + cell] == 0 && (state[cell] & missing) == 0) fits = false;
+            }
+            if (!fits) continue;
+            possible = true;
+            allowed |= missing;
+            required &= missing;
+        }
+        if (!possible) return false;
+
+        for (int p = start; p < end; p++) {
+            int cell = lineCells[p];
+            if (state[valueOffset + cell] != 0) continue;
+            int mask = state[cell] & allowed;
+            if (mask != state[cell] && !restrict(cell, mask)) return false;
+            if (Integer.bitCount(mask) == 1 && !assign(cell, Integer.numberOfTrailingZeros(mask) + 1)) return false;
+        }
+
+        // a value required by every combination that only fits in one cell must go there
+        for (int i = 0; i < 9; i++) {
+            if ((required & (1<<i)) == 0 || (state[usedOffset + line] & (1<<i)) != 0) continue;
+            int candidate = -1, count = 0;
+            for (int p = start; count < 2 && p < end; p++) {
+                int cell = lineCells[p];
+                if (state[valueOffset + cell] == 0 && (state[cell] & (1<<i)) != 0) {
+                    candidate = cell;
+                    count++;
+                }
+            }
+            if (count == 0) return false;
+            if (count == 1 && !assign(candidate, i+1)) return false;
+        }
+        return true;
+    }
+}
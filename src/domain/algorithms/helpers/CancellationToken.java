@@ -0,0 +1,57 @@
+package src.domain.algorithms.helpers;
+
+/**
+ * Cancellation token.
+ * Lets a long running algorithm be stopped from another thread, or once a deadline is reached.
+ * A token can be linked to a parent token, in which case it is also cancelled when its parent is.
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class CancellationToken {
+    private final CancellationToken parent;
+    private final boolean hasDeadline;
+    private final long deadline;            // in System.nanoTime() units
+    private volatile boolean cancelled;
+
+    /**
+     * Constructor.
+     * Initializes a token that is only cancelled by calling cancel()
+     */
+    public CancellationToken() {
+        this(null, 0);
+    }
+
+    /**
+     * Constructor.
+     * Initializes a token that is cancelled when its parent is cancelled or once the given time has passed
+     * @param parent        Parent token, may be null
+     * @param timeoutMillis Milliseconds from now until the token is cancelled, 0 or less for no deadline
+     */
+    public CancellationToken(CancellationToken parent, long timeoutMillis) {
+        this.parent = parent;
+        this.hasDeadline = timeoutMillis > 0;
+        this.deadline = hasDeadline ? System.nanoTime() + timeoutMillis * 1000000L : 0;
+        this.cancelled = false;
+    }
+
+    /**
+     * Cancel the operations that use this token
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the token has been cancelled
+     * @return whether cancel() has been called on this token or its parent, or the deadline has passed
+     */
+    public boolean isCancelled() {
+        if (cancelled) return true;
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            cancelled = true;
+            return true;
+        }
+        return parent != null && parent.isCancelled();
+    }
+}
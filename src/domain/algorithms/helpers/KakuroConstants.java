@@ -4,10 +4,16 @@ import src.domain.entities.Difficulty;
 import src.utils.Pair;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Kakuro Constants.
  * Contains all possible combinations for different row/column size and sum.
+ * The tables of the primitive lookups are built once when the class is loaded, and they never allocate. The methods
+ * returning lists build each list the first time it is asked for and return that same read-only view to all later
+ * callers, which must copy it before making any modification.
  *
  * @version 0.1.0 (17/11/2020)
  */
@@ -18,22 +24,155 @@ public class KakuroConstants {
      */
     public static final KakuroConstants INSTANCE = new KakuroConstants();
 
-    private ArrayList<ArrayList<ArrayList<Integer>>> cases;
+    private static final int NUM_SUMS = 46;     // sums go from 0 to 45
+    private static final int NUM_MASKS = 512;   // sets of values go from 0 to 0b111111111
+
     private final int[] numOfSumsAtSpace = { 9, 15, 19, 21, 21, 19, 15, 9, 1 };
     private final int[] firstSumAtSpace = { 1, 3, 6, 10, 15, 21, 28, 36, 45 };
 
+    // cases of each (space, sum) one after the other, the ones of line = space*NUM_SUMS+sum are in
+    // cases[caseStart[line], caseStart[line+1])
+    private final int[] cases;
+    private final int[] caseStart;
+
+    // union and intersection of the cases of (space, sum) that contain every value of a mask,
+    // indexed by line*NUM_MASKS+mask, 0 if there is no such case
+    private final short[] casesUnion;
+    private final short[] casesIntersection;
+
+    // the only sum of a line of the given space that has cases containing every value of a mask, 0 if there are none
+    // or more than one, indexed by space*NUM_MASKS+mask
+    private final byte[] onlyPossibleSum;
+
+    // read-only views returned by the List based methods, null until they are first asked for
+    private final AtomicReferenceArray<List<Integer>> casesView = new AtomicReferenceArray<>(10 * NUM_SUMS);
+    private final AtomicReferenceArray<List<Integer>> casesWithValuesView = new AtomicReferenceArray<>(10 * NUM_SUMS * NUM_MASKS);
+    private final AtomicReferenceArray<List<Pair<Integer, Integer>>> casesUnspecifiedSumView = new AtomicReferenceArray<>(10 * NUM_MASKS);
+    private final AtomicReferenceArray<List<int[]>> uniqueCrossValuesView = new AtomicReferenceArray<>(10 * 10 * Difficulty.values().length);
+
     private KakuroConstants() {
-        instantiateHashMaps();
+        // combinations
+        ArrayList<ArrayList<Integer>> found = new ArrayList<>(10 * NUM_SUMS);
+        int numCases = 0;
+        for (int space = 0; space <= 9; space++) {
+            for (int sum = 0; sum < NUM_SUMS; sum++) {
+                ArrayList<Integer> combinations = new ArrayList<>();
+                if (space > 0 && sum >= firstSumAtSpace[space-1] && sum < firstSumAtSpace[space-1] + numOfSumsAtSpace[space-1])
+                    backtrackingFindCombinations(1, space, sum, 0, 0, 0, combinations);
+                found.add(combinations);
+                numCases += combinations.size();
+            }
+        }
+        cases = new int[numCases];
+        caseStart = new int[10 * NUM_SUMS + 1];
+        int pos = 0;
+        for (int line = 0; line < 10 * NUM_SUMS; line++) {
+            caseStart[line] = pos;
+            for (int combination : found.get(line)) cases[pos++] = combination;
+        }
+        caseStart[10 * NUM_SUMS] = pos;
+
+        // combinations containing some given values
+        casesUnion = new short[10 * NUM_SUMS * NUM_MASKS];
+        casesIntersection = new short[10 * NUM_SUMS * NUM_MASKS];
+        for (int line = 0; line < 10 * NUM_SUMS; line++) {
+            for (int values = 0; values < NUM_MASKS; values++) {
+                int union = 0, intersection = 0b111111111;
+                for (int i = caseStart[line]; i < caseStart[line+1]; i++) {
+                    if ((values & ~cases[i]) != 0) continue;
+                    union |= cases[i];
+                    intersection &= cases[i];
+                }
+                casesUnion[line * NUM_MASKS + values] = (short) union;
+                casesIntersection[line * NUM_MASKS + values] = (short) (union == 0 ? 0 : intersection);
+            }
+        }
+
+        // sums with some combination containing some given values, there is one if the union of its cases isn't empty
+        onlyPossibleSum = new byte[10 * NUM_MASKS];
+        for (int space = 1; space <= 9; space++) {
+            for (int values = 0; values < NUM_MASKS; values++) {
+                int onlySum = -1;
+                for (int sum = 0; sum < NUM_SUMS && onlySum != 0; sum++) {
+                    if (casesUnion[(space * NUM_SUMS + sum) * NUM_MASKS + values] != 0) onlySum = onlySum == -1 ? sum : 0;
+                }
+                onlyPossibleSum[space * NUM_MASKS + values] = (byte) (onlySum > 0 ? onlySum : 0);
+            }
+        }
+    }
+
+    /**
+     * Get the number of possible cases for a row or column with the given size and sum
+     * @param space Number of 'slots' of the row or column
+     * @param sum   Total sum of the row or column
+     * @return the number of possible cases, 0 if the size or the sum are not valid
+     */
+    public int getNumCases(int space, int sum) {
+        if (!isValidLine(space, sum)) return 0;
+        int line = space * NUM_SUMS + sum;
+        return caseStart[line+1] - caseStart[line];
+    }
+
+    /**
+     * Get one of the possible cases for a row or column with the given size and sum
+     * @param space Number of 'slots' of the row or column
+     * @param sum   Total sum of the row or column
+     * @param idx   Index of the case, between 0 and getNumCases(space, sum)-1
+     * @return the case as a bitfield of the values it contains
+     * @throws IndexOutOfBoundsException if the line has no case with that index
+     */
+    public int getCase(int space, int sum, int idx) {
+        if (idx < 0 || idx >= getNumCases(space, sum))
+            throw new IndexOutOfBoundsException("Case " + idx + " of a line of size " + space + " and sum " + sum);
+        return cases[caseStart[space * NUM_SUMS + sum] + idx];
+    }
+
+    /**
+     * Get the values that appear in some possible case of a row or column that already contains the given values
+     * @param space  Number of 'slots' of the row or column
+     * @param sum    Total sum of the row or column
+     * @param values Bitfield representing numbers already present in the row or column
+     * @return the union of all the possible cases as a bitfield, 0 if there is no possible case
+     */
+    public int getCasesUnion(int space, int sum, int values) {
+        if (!isValidLine(space, sum) || !isValidMask(values)) return 0;
+        return casesUnion[(space * NUM_SUMS + sum) * NUM_MASKS + values];
+    }
+
+    /**
+     * Get the values that appear in every possible case of a row or column that already contains the given values
+     * @param space  Number of 'slots' of the row or column
+     * @param sum    Total sum of the row or column
+     * @param values Bitfield representing numbers already present in the row or column
+     * @return the intersection of all the possible cases as a bitfield, 0 if there is no possible case
+     */
+    public int getCasesIntersection(int space, int sum, int values) {
+        if (!isValidLine(space, sum) || !isValidMask(values)) return 0;
+        return casesIntersection[(space * NUM_SUMS + sum) * NUM_MASKS + values];
+    }
+
+    /**
+     * Get the only sum a row or column of the given size that already contains the given values can have
+     * @param space  Number of white cells in the row or column
+     * @param values Values already present in that row or column, represented as a bitfield
+     * @return the only possible sum, 0 if there is no possible sum or there is more than one
+     */
+    public int getOnlyPossibleSum(int space, int values) {
+        if (space < 0 || space > 9 || !isValidMask(values)) return 0;
+        return onlyPossibleSum[space * NUM_MASKS + values];
     }
 
     /**
      * Get possible cases for a row or column with the given size and sum
      * @param space Number of 'slots' of the row or column
      * @param sum   Total sum of the row or column
-     * @return an ArrayList of ArrayList containing all possible cases for this row or column (without permutations)
+     * @return a read-only List containing all possible cases for this row or column (without permutations)
      */
-    public ArrayList<Integer> getPossibleCases(int space, int sum) {
-        return new ArrayList<>(cases.get(space).get(sum));
+    public List<Integer> getPossibleCases(int space, int sum) {
+        if (!isValidLine(space, sum)) return Collections.emptyList();
+        int line = space * NUM_SUMS + sum;
+        if (casesView.get(line) == null) casesView.compareAndSet(line, null, findCasesWithValues(line, 0));
+        return casesView.get(line);
     }
 
     /**
@@ -42,40 +181,27 @@ public class KakuroConstants {
      * @param space  Number of 'slots' of the row or column
      * @param sum    Total sum of the row or column
      * @param values Bitfield representing numbers already present in the row or column
-     * @return an ArrayList of Integers containing all possible cases for this row or column (without permutations)
+     * @return a read-only List of Integers containing all possible cases for this row or column (without permutations)
      */
-    public ArrayList<Integer> getPossibleCasesWithValues(int space, int sum, int values) {
-        ArrayList<Integer> possible = cases.get(space).get(sum);
-        ArrayList<Integer> result = new ArrayList<>(possible.size());
-
-        for (Integer p : possible) {
-            if ((values & ~p) == 0) result.add(p);
-        }
-
-        return result;
+    public List<Integer> getPossibleCasesWithValues(int space, int sum, int values) {
+        if (!isValidLine(space, sum) || !isValidMask(values)) return Collections.emptyList();
+        int idx = (space * NUM_SUMS + sum) * NUM_MASKS + values;
+        if (casesWithValuesView.get(idx) == null) casesWithValuesView.compareAndSet(idx, null, findCasesWithValues(space * NUM_SUMS + sum, values));
+        return casesWithValuesView.get(idx);
     }
 
     /**
      * Get possible cases given the number of white cells, regardless of the total sum
      * @param space  Number of white cells in the row or column
      * @param values Values already present in that row or column, represented as a bitfield
-     * @return the combinations of values that would fit in that row or column, as well as the total sum in each case
+     * @return a read-only List with the combinations of values that would fit in that row or column, as well as the
+     * total sum in each case
      */
-    public ArrayList<Pair<Integer, Integer>> getPossibleCasesUnspecifiedSum(int space, int values) {
-        ArrayList<Pair<Integer, Integer>> result = new ArrayList<>();
-        if (space < 1 || space > 9) return result;
-        //if there are more values than space available there is no possibility to add any more numbers
-        if (Integer.bitCount(values) > space) return result;
-
-        int numOfSums = numOfSumsAtSpace[space - 1];
-
-        for (int i = 0; i < numOfSums; i++) {
-            int sum = firstSumAtSpace[space - 1] + i;
-            ArrayList<Integer> possibilities = getPossibleCasesWithValues(space, sum, values);
-            for (Integer p : possibilities)
-                result.add(new Pair<>(sum, p));
-        }
-        return result;
+    public List<Pair<Integer, Integer>> getPossibleCasesUnspecifiedSum(int space, int values) {
+        if (space < 1 || space > 9 || !isValidMask(values)) return Collections.emptyList();
+        int idx = space * NUM_MASKS + values;
+        if (casesUnspecifiedSumView.get(idx) == null) casesUnspecifiedSumView.compareAndSet(idx, null, findCasesUnspecifiedSum(space, values));
+        return casesUnspecifiedSumView.get(idx);
     }
 
     /**
@@ -83,9 +209,46 @@ public class KakuroConstants {
      * @param rowSpace Number of white cells in the row
      * @param colSpace Number of white cells in the column
      * @param diff     Difficulty of the kakuro being generated
-     * @return an ArrayList of values unique in that cell
+     * @return a read-only List of values unique in that cell, every element is {rowSum, colSum, uniqueValueInCommon}
      */
-    public ArrayList<int[]> getUniqueCrossValues(int rowSpace, int colSpace, Difficulty diff) {
+    public List<int[]> getUniqueCrossValues(int rowSpace, int colSpace, Difficulty diff) {
+        if (rowSpace < 1 || rowSpace > 9 || colSpace < 1 || colSpace > 9) return Collections.emptyList();
+        int idx = (rowSpace * 10 + colSpace) * Difficulty.values().length + diff.ordinal();
+        if (uniqueCrossValuesView.get(idx) == null)
+            uniqueCrossValuesView.compareAndSet(idx, null, Collections.unmodifiableList(findUniqueCrossValues(rowSpace, colSpace, diff)));
+        return uniqueCrossValuesView.get(idx);
+    }
+
+    private boolean isValidLine(int space, int sum) {
+        return space >= 0 && space <= 9 && sum >= 0 && sum < NUM_SUMS;
+    }
+
+    private boolean isValidMask(int values) {
+        return values >= 0 && values < NUM_MASKS;
+    }
+
+    // the lists are built from the flat tables, if two threads build the same one at once only the first is kept
+
+    private List<Integer> findCasesWithValues(int line, int values) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int i = caseStart[line]; i < caseStart[line+1]; i++) {
+            if ((values & ~cases[i]) == 0) result.add(cases[i]);
+        }
+        return result.isEmpty() ? Collections.<Integer>emptyList() : Collections.unmodifiableList(result);
+    }
+
+    private List<Pair<Integer, Integer>> findCasesUnspecifiedSum(int space, int values) {
+        ArrayList<Pair<Integer, Integer>> result = new ArrayList<>();
+        for (int sum = 0; sum < NUM_SUMS; sum++) {
+            int line = space * NUM_SUMS + sum;
+            for (int i = caseStart[line]; i < caseStart[line+1]; i++) {
+                if ((values & ~cases[i]) == 0) result.add(new Pair<>(sum, cases[i]));
+            }
+        }
+        return result.isEmpty() ? Collections.<Pair<Integer, Integer>>emptyList() : Collections.unmodifiableList(result);
+    }
+
+    private ArrayList<int[]> findUniqueCrossValues(int rowSpace, int colSpace, Difficulty diff) {
         ArrayList<int[]> result = new ArrayList<>(); // every element has 3 values: {rowSum, colSum, uniqueValueInCommon}
         if (rowSpace < 1 || rowSpace > 9 || colSpace < 1 || colSpace > 9) return result;
 
@@ -98,28 +261,20 @@ public class KakuroConstants {
         ArrayList<int[]> partialExtreme = new ArrayList<>();
 
         for (int rowIdx = 0; rowIdx < rowNumOfSums; rowIdx++) {
-            // How many times is a certain value seen for a given space and a given sum in the row
+            // Values seen for a given space and a given sum in the row
             int rowSum = firstSumAtSpace[rowSpace-1]+rowIdx;
-            ArrayList<Integer> rowOptions = cases.get(rowSpace).get(rowSum);
-
-            int rowValuesSeen = 0;
-            for (Integer rowOption : rowOptions)
-                rowValuesSeen |= rowOption;
+            int rowValuesSeen = getCasesUnion(rowSpace, rowSum, 0);
 
             for (int colIdx = 0; colIdx < colNumOfSums; colIdx++) {
-                // How many times is a certain value seen for a given space and a given sum in the col
+                // Values seen for a given space and a given sum in the col
                 int colSum = firstSumAtSpace[colSpace-1]+colIdx;
-                ArrayList<Integer> colOptions = cases.get(colSpace).get(colSum);
-
-                int colValuesSeen = 0;
-                for (Integer colOption : colOptions)
-                    colValuesSeen |= colOption;
+                int colValuesSeen = getCasesUnion(colSpace, colSum, 0);
 
                 int uniqueCrossValuePos = rowValuesSeen & colValuesSeen;
 
                 if(Integer.bitCount(uniqueCrossValuePos) == 1) {
-                    // Math trick: get first set bit :D
-                    uniqueCrossValuePos = (int)(Math.log(uniqueCrossValuePos) / Math.log(2)) + 1;
+                    // position of the only set bit, starting at 1
+                    uniqueCrossValuePos = Integer.numberOfTrailingZeros(uniqueCrossValuePos) + 1;
 
                     // Depending on the rowIdx and colIdx we consider them more or less difficult options
                     int rowOptDiff = 0;
@@ -175,30 +330,6 @@ public class KakuroConstants {
         return result;
     }
 
-    private void instantiateHashMaps() {
-        cases = new ArrayList<>(10);
-        cases.add(new ArrayList<>());
-        for (int i = 1; i <= 9; i++) {
-            ArrayList<ArrayList<Integer>> al = new ArrayList<>(46);
-
-            for(int j = 0; j <= 45; j++)
-                al.add(new ArrayList<>());
-
-            int numOfSums = numOfSumsAtSpace[i-1];
-            for (int j = 0; j < numOfSums; j++) {
-                int currentSum = firstSumAtSpace[i-1]+j;
-                al.set(currentSum, findCombinations(i, currentSum));
-            }
-            cases.add(al);
-        }
-    }
-
-    private ArrayList<Integer> findCombinations(int space, int sum) {
-        ArrayList<Integer> result = new ArrayList<>(numOfSumsAtSpace[space - 1]);
-        backtrackingFindCombinations(1, space, sum, 0, 0, 0, result);
-        return result;
-    }
-
     private void backtrackingFindCombinations(int idx, int space, int sum, int currentSpace, int currentSum, int values, ArrayList<Integer> found) {
         if (idx > 9 || currentSpace >= space) return;
         if (idx + currentSum == sum && currentSpace == space - 1) {
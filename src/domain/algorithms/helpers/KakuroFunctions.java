@@ -1,17 +1,57 @@
 package src.domain.algorithms.helpers;
 
 import src.domain.entities.Board;
-import src.domain.entities.WhiteCell;
 import src.utils.Pair;
 
-import java.util.ArrayList;
-
 public class KakuroFunctions {
 
     private final KakuroFunctionsMaster master;
     private AssignationEventListener assignationEventListener;
     private boolean abort;
 
+    // Trail of changes, entries of TRAIL_ENTRY_SIZE ints: (type, row, column, previous notations)
+    private static final int TRAIL_ROW_SUM = 0;
+    private static final int TRAIL_COL_SUM = 1;
+    private static final int TRAIL_CELL_VALUE = 2;
+    private static final int TRAIL_NOTATIONS = 3;
+    private static final int TRAIL_HIDING_NOTATIONS = 4;
+    private static final int TRAIL_ENTRY_SIZE = 4;
+    private int[] trail;
+    private int trailSize;
+    private int openMarks;      // while a mark is open the trail is kept after each successful operation
+
+    // Worklist of lines whose cells have changed and whose notations must be updated again. Each line is at most
+    // once in the worklist, assignations only add lines to it and propagate() updates them until it is empty.
+    private boolean[] rowPending;
+    private boolean[] colPending;
+    private int[] pendingLines;     // rowIDs as is, colIDs as ~colID
+    private int[] pendingRows;      // coordinates of a cell of each pending line
+    private int[] pendingCols;
+    private int pendingHead, pendingCount;
+
+    private long propagationCount;  // number of row/col notation updates done so far
+
+    /** Flag of the state of a cell whose value is set, see pruneLine() */
+    public static final int SET_CELL = 1 << 9;
+
+    // Scratch arrays for the line being updated, indexed by the position of the cell in the line. Lines are never
+    // updated recursively, so a single set of them is enough and updating a line doesn't allocate anything.
+    private static final int MAX_LINE_SIZE = 9;
+    private final int[] lineCells = new int[MAX_LINE_SIZE];       // state of each cell as expected by pruneLine()
+    private final int[] linePruned = new int[MAX_LINE_SIZE];      // notations each cell keeps
+    private final int[] affectedCells = new int[MAX_LINE_SIZE];
+
+    // Scratch arrays of pruneLine() for each thread, as it's static and called from the shared LineConstraintCache:
+    // the masks of the cells, the notations of the empty ones and the notations to erase from them.
+    private static final ThreadLocal<int[][]> pruneScratch = new ThreadLocal<int[][]>() {
+        @Override
+        protected int[][] initialValue() {
+            return new int[3][MAX_LINE_SIZE];
+        }
+    };
+
+    private LineConstraintCache lineCache;
+
     /** KakuroFunctionsMaster Interface.
      * Responsible for the well-functioning of the instance, it provides all necessary information.
      */
@@ -67,6 +107,24 @@ public class KakuroFunctions {
     public KakuroFunctions(KakuroFunctionsMaster m) {
         master = m;
         abort = false;
+        trail = new int[64 * TRAIL_ENTRY_SIZE];
+        trailSize = 0;
+        openMarks = 0;
+        rowPending = new boolean[0];
+        colPending = new boolean[0];
+        pendingLines = new int[0];
+        pendingRows = new int[0];
+        pendingCols = new int[0];
+        pendingHead = 0;
+        pendingCount = 0;
+        lineCache = LineConstraintCache.INSTANCE;
+    }
+
+    /** Sets the LineConstraintCache used to update the notations of rows and columns, LineConstraintCache.INSTANCE
+     * unless changed.
+     */
+    public void setLineConstraintCache(LineConstraintCache cache) {
+        lineCache = cache;
     }
 
     /** Sets the AssignationEventListener to receive alerts on events related to assignations.
@@ -81,6 +139,117 @@ public class KakuroFunctions {
         abort = true;
     }
 
+    /** Returns the number of row and column notation updates done since this instance was created.
+     */
+    public long getPropagationCount() {
+        return propagationCount;
+    }
+
+    /** Opens a mark in the trail of changes. Every change done by successful assignations from now on can be
+     * undone by calling undoToMark with the returned mark. Marks must be undone in reverse order.
+     * @returns The mark to pass to undoToMark.
+     */
+    public int mark() {
+        openMarks++;
+        return trailSize;
+    }
+
+    /** Undoes every change done since the given mark was opened, and closes it.
+     * @param mark A mark returned by mark().
+     */
+    public void undoToMark(int mark) {
+        rollBackTo(mark);
+        if (openMarks > 0) openMarks--;
+        if (openMarks == 0) trailSize = 0;
+    }
+
+    private int beginOperation(int r, int c) {
+        int rowLines = master.getRowLineSize(r, c), colLines = master.getColLineSize(r, c);
+        if (rowPending.length != rowLines || colPending.length != colLines) {
+            rowPending = new boolean[rowLines];
+            colPending = new boolean[colLines];
+            pendingLines = new int[rowLines + colLines];
+            pendingRows = new int[rowLines + colLines];
+            pendingCols = new int[rowLines + colLines];
+            pendingHead = 0;
+            pendingCount = 0;
+        }
+        return trailSize;
+    }
+
+    private void endOperation(int mark, boolean success) {
+        clearPending();
+        if (!success) rollBackTo(mark);
+        if (openMarks == 0) trailSize = 0; // nobody will undo these changes, no need to keep them
+    }
+
+    private void enqueueRow(int r, int c) {
+        int rowID = master.getRowID(r, c);
+        if (rowPending[rowID]) return;
+        rowPending[rowID] = true;
+        enqueueLine(rowID, r, c);
+    }
+
+    private void enqueueCol(int r, int c) {
+        int colID = master.getColID(r, c);
+        if (colPending[colID]) return;
+        colPending[colID] = true;
+        enqueueLine(~colID, r, c);
+    }
+
+    private void enqueueLine(int line, int r, int c) {
+        int pos = (pendingHead + pendingCount) % pendingLines.length;
+        pendingLines[pos] = line;
+        pendingRows[pos] = r;
+        pendingCols[pos] = c;
+        pendingCount++;
+    }
+
+    private void clearPending() {
+        while (pendingCount > 0) {
+            int line = pendingLines[pendingHead];
+            if (line >= 0) rowPending[line] = false;
+            else colPending[~line] = false;
+            pendingHead = (pendingHead + 1) % pendingLines.length;
+            pendingCount--;
+        }
+    }
+
+    // Updates the notations of the pending lines, in the order they were added, until there are none left
+    // (every line is consistent with the notations of its cells) or one of them fails.
+    private boolean propagate() {
+        while (pendingCount > 0) {
+            if (abort) return false;
+            int line = pendingLines[pendingHead];
+            int r = pendingRows[pendingHead], c = pendingCols[pendingHead];
+            pendingHead = (pendingHead + 1) % pendingLines.length;
+            pendingCount--;
+
+            boolean success;
+            if (line >= 0) {
+                rowPending[line] = false;
+                success = updateRowNotations(r, c);
+            } else {
+                colPending[~line] = false;
+                success = updateColNotations(r, c);
+            }
+            if (!success) return false; // the responsible for the operation clears the worklist and does rollback
+        }
+        return !abort;
+    }
+
+    private void pushTrail(int type, int r, int c, int notations) {
+        if (trailSize + TRAIL_ENTRY_SIZE > trail.length) {
+            int[] newTrail = new int[2 * trail.length];
+            System.arraycopy(trail, 0, newTrail, 0, trailSize);
+            trail = newTrail;
+        }
+        trail[trailSize++] = type;
+        trail[trailSize++] = r;
+        trail[trailSize++] = c;
+        trail[trailSize++] = notations;
+    }
+
     /** Tries to make a value assignation to the cell of coordinates (r,c), rollbacks if it fails.
      * @param r Row coordinate of a cell in the row to be assigned.
      * @param c Column coordinate of a cell in the row to be assigned.
@@ -90,15 +259,9 @@ public class KakuroFunctions {
     public boolean cellValueAssignation(int r, int c, int value) {
         if (value == 0) return false;
         abort = false;
-        ArrayList<Pair<Integer, Integer>> rowSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> colSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> cellValueRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> cellNotationsRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> hidingCellNotationsRollBack = new ArrayList<>();
-        boolean[] modifiedRows = new boolean[master.getRowLineSize(r, c)]; //default to false
-        boolean[] modifiedCols = new boolean[master.getColLineSize(r, c)]; //default to false
-        boolean success = cellValueAssignation(r, c, value, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        if (!success) rollBack(rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack);
+        int mark = beginOperation(r, c);
+        boolean success = doCellValueAssignation(r, c, value) && propagate();
+        endOperation(mark, success);
         return success;
     }
 
@@ -120,15 +283,9 @@ public class KakuroFunctions {
     private boolean initRowSumAssignation(int r, int c, int value, boolean assertRCValueAssigned) {
         if (value == 0) return false;
         abort = false;
-        ArrayList<Pair<Integer, Integer>> rowSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> colSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> cellValueRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> cellNotationsRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> hidingCellNotationsRollBack = new ArrayList<>();
-        boolean[] modifiedRows = new boolean[master.getRowLineSize(r, c)]; //default to false
-        boolean[] modifiedCols = new boolean[master.getColLineSize(r, c)]; //default to false
-        boolean success = rowSumAssignation(r, c, value, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        if (!success || (assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c))) rollBack(rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack);
+        int mark = beginOperation(r, c);
+        boolean success = doRowSumAssignation(r, c, value) && propagate();
+        endOperation(mark, success && !(assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c)));
         return success;
     }
 
@@ -150,15 +307,9 @@ public class KakuroFunctions {
     private boolean initColSumAssignation(int r, int c, int value, boolean assertRCValueAssigned) {
         if (value == 0) return false;
         abort = false;
-        ArrayList<Pair<Integer, Integer>> rowSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> colSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> cellValueRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> cellNotationsRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> hidingCellNotationsRollBack = new ArrayList<>();
-        boolean[] modifiedRows = new boolean[master.getRowLineSize(r, c)]; //default to false
-        boolean[] modifiedCols = new boolean[master.getColLineSize(r, c)]; //default to false
-        boolean success = colSumAssignation(r, c, value, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        if (!success || (assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c))) rollBack(rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack);
+        int mark = beginOperation(r, c);
+        boolean success = doColSumAssignation(r, c, value) && propagate();
+        endOperation(mark, success && !(assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c)));
         return success;
     }
 
@@ -182,113 +333,149 @@ public class KakuroFunctions {
     private boolean initBothRowColSumAssignation(int r, int c, int rowValue, int colValue, boolean assertRCValueAssigned) {
         if (rowValue == 0 || colValue == 0) return false;
         abort = false;
-        ArrayList<Pair<Integer, Integer>> rowSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> colSumRollBack = new ArrayList<>();
-        ArrayList<Pair<Integer, Integer>> cellValueRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> cellNotationsRollBack = new ArrayList<>();
-        ArrayList<RollbackNotations> hidingCellNotationsRollBack = new ArrayList<>();
-        boolean[] modifiedRows = new boolean[master.getRowLineSize(r, c)]; //default to false
-        boolean[] modifiedCols = new boolean[master.getColLineSize(r, c)]; //default to false
-        boolean success = rowSumAssignation(r, c, rowValue, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        success = success && colSumAssignation(r, c, colValue, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        if (!success || (assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c))) rollBack(rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack);
+        int mark = beginOperation(r, c);
+        boolean success = doRowSumAssignation(r, c, rowValue) && propagate();
+        success = success && doColSumAssignation(r, c, colValue) && propagate();
+        endOperation(mark, success && !(assertRCValueAssigned && master.getWorkingBoard().isEmpty(r, c)));
         return success;
     }
 
     /**
-     * Checks if a combination of values can be assigned according to the WhiteCells' notations.
-     * @param comb Integers in the combination to check.
-     * @param cells WhiteCells that need to be used to fulfill this combination.
+     * Checks if a combination of values can be assigned to the cells of a line according to their notations, that is,
+     * whether every cell can get a different value of the combination.
+     * @param comb Bitmask of the values in the combination, bit i meaning value i+1.
+     * @param cellMasks Bitmask of each cell: its value if it is set, its notations otherwise.
+     * @param numCells Number of cells of the line, only the first numCells masks are used.
      * @returns Whether the combination could be assigned to the cells or not.
      */
-    public boolean isCombinationPossible(ArrayList<Integer> comb, ArrayList<WhiteCell> cells) {
-        if (cells.size() < comb.size() || comb.size() == 0) return false;
-        if (comb.size() == 1) {
-            int digit = comb.get(0);
-            for (WhiteCell c : cells) {
-                if ((!c.isEmpty() && c.getValue() == digit) || (c.isEmpty() && c.isNotationChecked(digit))) return true;
-            }
-            return false;
+    public static boolean isCombinationPossible(int comb, int[] cellMasks, int numCells) {
+        if (numCells == 0 || Integer.bitCount(comb) != numCells) return false;
+        // Hall's condition for single cells and for the whole line, which discards most combinations right away:
+        // every cell must be able to take some value and every value must fit in some cell
+        int union = 0;
+        for (int i = 0; i < numCells; i++) {
+            if ((cellMasks[i] & comb) == 0) return false;
+            union |= cellMasks[i];
         }
+        if ((union & comb) != comb) return false;
+        return matchCells(cellMasks, 0, numCells, comb);
+    }
 
-        WhiteCell c = cells.get(0);
-        cells.remove(0);
-        boolean success = false;
-        if (c.isEmpty()) {
-            for (int j = comb.size()-1; !success && j >= 0; j--) {
-                int digit = comb.get(j);
-                if (c.isNotationChecked(digit)) {
-                    comb.remove(j);
-                    success = isCombinationPossible(comb, cells);
-                    comb.add(j, digit);
-                }
+    // Whether cells from first to numCells-1 can take a different value each from the available ones
+    private static boolean matchCells(int[] cellMasks, int first, int numCells, int available) {
+        if (first == numCells) return true;
+        int options = cellMasks[first] & available;
+        while (options != 0) {
+            int value = options & -options;
+            if (matchCells(cellMasks, first+1, numCells, available & ~value)) return true;
+            options &= ~value;
+        }
+        return false;
+    }
+
+    /**
+     * Checks a line against all of its possible combinations and finds the notations each of its cells can keep: the
+     * values of the combinations that fit the cells, minus the ones ruled out by the naked and hidden subsets of the
+     * line (see deepNotationAnalysis). Only depends on its parameters, so results can be reused.
+     * @param size Number of cells of the line.
+     * @param sum Sum of the line, 0 if it is not assigned.
+     * @param cells State of each cell: its notations if its value is not set, the bit of its value | SET_CELL otherwise.
+     * @param pruned Output, notations each cell keeps (the state of the cell for the ones whose value is set).
+     *               It may be the same array as cells.
+     * @returns false if no combination of the line fits its cells, in which case pruned is not modified.
+     */
+    public static boolean pruneLine(int size, int sum, int[] cells, int[] pruned) {
+        if (size < 1 || size > MAX_LINE_SIZE) return false;
+        int[][] scratch = pruneScratch.get();
+        int[] masks = scratch[0];
+        int valuesUsed = 0;
+        for (int i = 0; i < size; i++) {
+            masks[i] = cells[i] & 0b111111111;
+            if ((cells[i] & SET_CELL) != 0) valuesUsed |= masks[i];
+        }
+
+        // validate the possible cases of the line (of any sum if it is not assigned) and keep the values of the valid ones
+        int options = 0, required = 0b111111111;
+        boolean anyPossibleCase = false;
+        int firstSum = sum == 0 ? 1 : sum;
+        int lastSum = sum == 0 ? 45 : sum;
+        for (int s = firstSum; s <= lastSum; s++) {
+            int numCases = KakuroConstants.INSTANCE.getNumCases(size, s);
+            for (int i = 0; i < numCases; i++) {
+                int pCase = KakuroConstants.INSTANCE.getCase(size, s, i);
+                if ((valuesUsed & ~pCase) != 0) continue;
+                if (!isCombinationPossible(pCase, masks, size)) continue;
+                options |= pCase;
+                required &= pCase;
+                anyPossibleCase = true;
             }
-        } else {
-            for (int j = 0; j < comb.size(); j++) {
-                if (comb.get(j) == c.getValue()) {
-                    comb.remove(j);
-                    success = isCombinationPossible(comb, cells);
-                    comb.add(j, c.getValue());
-                    cells.add(0, c);
-                    return success;
-                }
+        }
+        if (!anyPossibleCase) return false;
+
+        // subtract the already used values, then look for subsets among the empty cells
+        int commonNotations = options & ~valuesUsed;
+        int[] notations = scratch[1];
+        int[] toErase = scratch[2];
+        int numEmpty = 0;
+        for (int i = 0; i < size; i++) {
+            if ((cells[i] & SET_CELL) == 0) {
+                toErase[numEmpty] = 0;
+                notations[numEmpty++] = masks[i] & commonNotations;
             }
         }
-        cells.add(0, c);
+        if (numEmpty > 1) deepNotationAnalysis(numEmpty, notations, required & ~valuesUsed, toErase);
 
-        return success;
+        for (int i = 0, e = 0; i < size; i++) {
+            if ((cells[i] & SET_CELL) == 0) pruned[i] = masks[i] & commonNotations & ~toErase[e++];
+            else pruned[i] = cells[i];
+        }
+        return true;
     }
 
-    // THE THREE RECURSIVE ASSIGNATION METHODS BELOW COULD POSSIBLY FAIL AN ASSIGNATION SO THEY MUST RETURN A
-    //  BOOLEAN INDICATING IF THEY WERE SUCCESSFUL, ALSO, IF THEY WEREN'T THE RESPONSIBLE FOR THE CALL
-    //  SHOULD BE ABLE TO ROLLBACK ANY CHANGES TO VALUES, SUMS AND NOTATIONS THAT THEY HAVE CAUSED, WHICH MEANS
-    //  THAT IN THE CASE THAT AN ASSIGNATION PROVOQUES MORE THAN ONE OTHER ASSIGNATION (RECURSIVELY),
-    //  IF ANY OF THEM FAIL (AS THEY ALL NEED TO SUCCEED TO MAKE THE FIRST ASSIGNATION SUCCESSFUL),
-    //  ALL OF THEM SHOULD ROLLBACK AND THE CURRENT ONE SHOULD PRESERVE THE VALUE, NOTATIONS, SUMS ETC. THAT
-    //  IT HAD IN THE BEGINNING AND RETURN FALSE SO THAT THE RESPONSIBLE FOR ITS CALL
-    //  KNOWS IT HAS FAILED AND CAN DO THE ROLLBACK.
-    // RollBack structures are to add any change we do, we don't do rollback in these functions
+    // THE THREE ASSIGNATION METHODS BELOW COULD POSSIBLY FAIL AN ASSIGNATION SO THEY MUST RETURN A
+    //  BOOLEAN INDICATING IF THEY WERE SUCCESSFUL. THEY DON'T PROPAGATE THE ASSIGNATION THEMSELVES, THEY ONLY ADD
+    //  THE AFFECTED LINES TO THE WORKLIST, AND propagate() UPDATES THEM (WHICH CAN CAUSE OTHER ASSIGNATIONS) UNTIL
+    //  NO LINE IS LEFT. IF ANY OF THEM FAIL (AS THEY ALL NEED TO SUCCEED TO MAKE THE FIRST ASSIGNATION SUCCESSFUL),
+    //  ALL OF THEM SHOULD ROLLBACK AND THE NOTATIONS, SUMS ETC. SHOULD BE THE ONES FROM THE BEGINNING.
+    // Every change we do is added to the trail, we don't do rollback in these functions
     // because we only change absolutely necessary cases that depend only on the first assignation call,
     // thus the responsible for the rollback is the first caller
-    private boolean rowSumAssignation(int r, int c, int value, ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack, boolean[] modifiedRows, boolean[] modifiedCols) {
+    private boolean doRowSumAssignation(int r, int c, int value) {
         if (abort) return false;
         // Should update the row sum for a given coordinates to the value and add row to rollback
         //  when in doubt, a sum assignation should be called before a cellValue
         //  assignation because it is more restrictive
-        //  Could call other assignations recursively
         if (master.getRowSum(r, c) != 0) {
             if (master.getRowSum(r, c) == value) return true; //the assignation has already happened, no problem
             return false; //already has a sum value assigned
         }
         if (assignationEventListener != null) assignationEventListener.onRowSumAssignation(new Pair<>(new Pair<>(r, c), value));
         master.setRowSum(r, c, value);
-        modifiedRows[master.getRowID(r, c)] = true;
-        rowSumRollBack.add(new Pair<>(r, c));
-        return updateRowNotations(r, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
+        pushTrail(TRAIL_ROW_SUM, r, c, 0);
+        enqueueRow(r, c);
+        return true;
     }
 
-    private boolean colSumAssignation(int r, int c, int value, ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack, boolean[] modifiedRows, boolean[] modifiedCols) {
+    private boolean doColSumAssignation(int r, int c, int value) {
         if (abort) return false;
         // Should update the col sum for a given coordinates to the value, and add column to rollback
         //  when in doubt, a sum assignation should be called before a cellValue
         //  assignation because it is more restrictive
-        //  Could call other assignations recursively
         if (master.getColSum(r, c) != 0) {
             if (master.getColSum(r, c) == value) return true; //the assignation has already happened, no problem
             return false; //already has a sum value assigned
         }
         if (assignationEventListener != null) assignationEventListener.onColSumAssignation(new Pair<>(new Pair<>(r, c), value));
         master.setColSum(r, c, value);
-        modifiedCols[master.getColID(r, c)] = true;
-        colSumRollBack.add(new Pair<>(r, c));
-        return updateColNotations(r, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
+        pushTrail(TRAIL_COL_SUM, r, c, 0);
+        enqueueCol(r, c);
+        return true;
     }
 
-    private boolean cellValueAssignation(int r, int c, int value, ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack, boolean[] modifiedRows, boolean[] modifiedCols) {
+    private boolean doCellValueAssignation(int r, int c, int value) {
         if (abort) return false;
         // Should update the assignation for that cell, set the value, update the orderedCells data structure
         //  and its pointers with removeOrderedCell, update valuesUsed for row and col, and add it to rollback.
-        //  Could call other assignations recursively
         if ((master.getRowValuesUsed(r, c) & (1<<(value-1))) != 0 ||  (master.getColValuesUsed(r, c) & (1<<(value-1))) != 0 || !master.getWorkingBoard().isEmpty(r, c)){
             if ((master.getRowValuesUsed(r, c) & (1<<(value-1))) != 0 && (master.getColValuesUsed(r, c) & (1<<(value-1))) != 0 && master.getWorkingBoard().getValue(r, c) == value) {
                 return true; // assignation is redundant, we already had it assigned so we give it as correct
@@ -308,135 +495,80 @@ public class KakuroFunctions {
         }
 
         if (assignationEventListener != null) assignationEventListener.onCellValueAssignation(new Pair<>(new Pair<>(r, c), value));
-        cellValueRollBack.add(new Pair<>(r, c)); //if rollback we clear these coordinates and insert in notationsQueue
+        pushTrail(TRAIL_CELL_VALUE, r, c, 0); //if rollback we clear these coordinates and insert in notationsQueue
         if (master.getWorkingBoard().getCellNotationSize(r, c) > 1) { //cell notations should be removed (important in ambiguity checking), this won't be checked before then.
             int cellNotations = master.getWorkingBoard().getCellNotations(r, c);
             if (assignationEventListener != null) assignationEventListener.onCellNotationsChanged(new Pair<>(new Pair<>(r, c), new Pair<>(cellNotations, 1<<(value-1))));
-            if (master.getNotationsQueue().isHiding(r, c)) hidingCellNotationsRollBack.add(new RollbackNotations(r, c, cellNotations));
-            else cellNotationsRollBack.add(new RollbackNotations(r, c, cellNotations));
+            if (master.getNotationsQueue().isHiding(r, c)) pushTrail(TRAIL_HIDING_NOTATIONS, r, c, cellNotations);
+            else pushTrail(TRAIL_NOTATIONS, r, c, cellNotations);
             master.getNotationsQueue().eraseNotationsFromCell(r, c, (cellNotations & ~(1<<(value-1))));
         }
         master.getNotationsQueue().removeOrderedCell(r, c); // removes it from queue but notations are maintained
         master.getWorkingBoard().setCellValue(r, c, value);
         master.setRowValuesUsed(r, c, master.getRowValuesUsed(r, c) | 1 << (value-1));
         master.setColValuesUsed(r, c, master.getColValuesUsed(r, c) | 1 << (value-1));
-        modifiedRows[master.getRowID(r, c)] = true;
-        modifiedCols[master.getColID(r, c)] = true;
-        boolean success = true;
-        success = success && updateRowNotations(r, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        success = success && updateColNotations(r, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-        return success;
+        enqueueRow(r, c);
+        enqueueCol(r, c);
+        return true;
     }
 
-    private boolean updateRowNotations(int r, int c, ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack, boolean[] modifiedRows, boolean[] modifiedCols) {
+    private boolean updateRowNotations(int r, int c) {
         if (abort) return false;
+        propagationCount++;
         //updates the notations of the row and can cause assignations, returns whether the update was successful
-        ArrayList<Integer> affectedColumns = new ArrayList<>();
-
-        ArrayList<Integer> possibleCases;
-
-        if (master.getRowSum(r, c) != 0) { // row sum is assigned
-            // get possible cases for the row
-            possibleCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(master.getRowSize(r, c), master.getRowSum(r, c), master.getRowValuesUsed(r, c));
-
-        } else { // row sum is NOT assigned
-            // get possible cases for the row
-            ArrayList<Pair<Integer, Integer>> multiplePossibleCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(master.getRowSize(r, c), master.getRowValuesUsed(r, c));
-            possibleCases = new ArrayList<>();
-            int onlySum = -1;
-            for (Pair<Integer, Integer> p : multiplePossibleCases) {
-                if (onlySum == -1) onlySum = p.first;
-                else if (onlySum != p.first) onlySum = -2;
-                possibleCases.add(p.second);
-            }
-            if (onlySum > 0) { // only one sum is possible for this space and values, we assign it
-                return rowSumAssignation(r, c, onlySum, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-            }
-        }
+        //the lines whose cells change are added to the worklist instead of being updated right away
+        int numAffected = 0;
 
-        // validate combinations or erase if not valid
-        for (int i = possibleCases.size()-1; i >= 0; i--) {
-            int pCase = possibleCases.get(i);
-            ArrayList<Integer> p = new ArrayList<>();
-            for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-            ArrayList<WhiteCell> containingCells = new ArrayList<>();
-            for (int it = master.getFirstRowCoord(r, c).second; it < master.getFirstRowCoord(r, c).second+master.getRowSize(r, c); it++) {
-                for (int digit : p) {
-                    if ((!master.getWorkingBoard().isEmpty(r, it) && master.getWorkingBoard().getValue(r, it) == digit) || master.getWorkingBoard().cellHasNotation(r, it, digit)) {
-                        containingCells.add((WhiteCell)master.getWorkingBoard().getCell(r, it));
-                        break;
-                    }
-                }
+        int lineSize = master.getRowSize(r, c);
+        int firstCol = master.getFirstRowCoord(r, c).second;
+        int lineSum = master.getRowSum(r, c);
+        int valuesUsed = master.getRowValuesUsed(r, c);
+
+        if (lineSum == 0) { // row sum is NOT assigned
+            int onlySum = KakuroConstants.INSTANCE.getOnlyPossibleSum(lineSize, valuesUsed);
+            if (onlySum > 0) { // only one sum is possible for this space and values, we assign it
+                return doRowSumAssignation(r, c, onlySum);
             }
-            if (!isCombinationPossible(p, containingCells)) possibleCases.remove(i);
         }
 
-        if (possibleCases.size() == 0) {
+        if (lineSize > MAX_LINE_SIZE) {
             if (assignationEventListener != null) assignationEventListener.onRowNoValuesLeft(new Pair<>(r, c));
             return false; //No possible assignations for row.
         }
-
-        int rowOptions = 0;
-        for(int p : possibleCases) rowOptions |= p;
-
-        // subtract the already used values
-        int commonRowNotations = rowOptions & ~master.getRowValuesUsed(r, c);
-        boolean superPermissive = commonRowNotations == 0b111111111;
-
-        ArrayList<Integer> allToErase = new ArrayList<>();
-        int minRowNotSize = 10;
-        for(int it = 0; it < master.getRowSize(r, c); it++) {
-            allToErase.add(it, 0);
-            if (master.getWorkingBoard().isEmpty(r, it+master.getFirstRowCoord(r, c).second)){
-                int s = master.getWorkingBoard().getCellNotationSize(r, it+master.getFirstRowCoord(r, c).second);
-                if (s < minRowNotSize) minRowNotSize = s;
-            }
+        for (int it = 0; it < lineSize; it++) {
+            if (master.getWorkingBoard().isEmpty(r, firstCol+it)) lineCells[it] = master.getWorkingBoard().getCellNotations(r, firstCol+it);
+            else lineCells[it] = 1 << (master.getWorkingBoard().getValue(r, firstCol+it)-1) | SET_CELL;
         }
-        if (minRowNotSize < master.getRowSize(r, c)) {
-            int num_cells = master.getRowSize(r, c);
-            int[] size = new int[num_cells];
-            int[] notations = new int[num_cells];
-            int[] insertPtrs = new int[num_cells];
-            for(int it = 0; it < num_cells; it++) {
-                insertPtrs[it] = it;
-                size[it] = 0;
-                notations[it] = 0;
-                for (int i = 0; i < 9; i++) {
-                    if (master.getWorkingBoard().cellHasNotation(r, it + master.getFirstRowCoord(r, c).second, i+1)) {
-                        notations[it] |= (1<<i);
-                        size[it]++;
-                    }
-                }
-            }
-            deepNotationAnalysis(num_cells, size, notations, insertPtrs, allToErase);
-            for(int it = 0; superPermissive && it < master.getRowSize(r, c); it++)
-                superPermissive = allToErase.get(it) == 0;
+
+        // validate the possible cases of the row (of any sum if it is not assigned) and keep the notations allowed by them
+        if (!lineCache.pruneLine(lineSize, lineSum, lineCells, linePruned)) {
+            if (assignationEventListener != null) assignationEventListener.onRowNoValuesLeft(new Pair<>(r, c));
+            return false; //No possible assignations for row.
         }
 
-        // check for each non-set white-cell if its notations have some notation that is not in commonRowNotations
+        // check for each non-set white-cell if its notations have some notation that is not kept by the row
         // if so, erase notations, mark column as affected, add cell notations to rollback
 
-        for(int it = master.getFirstRowCoord(r, c).second; !superPermissive && it < master.getFirstRowCoord(r, c).second+master.getRowSize(r, c); it++) {
+        for(int it = firstCol; it < firstCol+lineSize; it++) {
             if (master.getWorkingBoard().isEmpty(r, it)) { //value not set
-                int cellNotations = master.getWorkingBoard().getCellNotations(r, it);
+                int cellNotations = lineCells[it - firstCol];
                 // because cellNotations might get modified if we have to erase, rollback holds the original values
-                int valuesToErase = (cellNotations & ~commonRowNotations) | allToErase.get(it - master.getFirstRowCoord(r, c).second);
+                int valuesToErase = cellNotations & ~linePruned[it - firstCol];
 
                 if (valuesToErase != 0) { // we need to erase some notations
                     if (assignationEventListener != null) assignationEventListener.onCellNotationsChanged(new Pair<>(new Pair<>(r, it), new Pair<>(cellNotations, cellNotations & ~valuesToErase)));
-                    modifiedRows[master.getRowID(r, c)] = true;
-                    modifiedCols[master.getColID(r, it)] = true;
-                    affectedColumns.add(it);
-                    if (master.getNotationsQueue().isHiding(r, it)) hidingCellNotationsRollBack.add(new RollbackNotations(r, it, cellNotations));
-                    else cellNotationsRollBack.add(new RollbackNotations(r, it, cellNotations));
+                    affectedCells[numAffected++] = it;
+                    if (master.getNotationsQueue().isHiding(r, it)) pushTrail(TRAIL_HIDING_NOTATIONS, r, it, cellNotations);
+                    else pushTrail(TRAIL_NOTATIONS, r, it, cellNotations);
                     master.getNotationsQueue().eraseNotationsFromCell(r, it, valuesToErase);
                 }
             }
         }
 
-        boolean success = true;
-        if (affectedColumns.size() == 0) modifiedRows[master.getRowID(r, c)] = false; //the cells on this row were not modified.
-        for (int affected : affectedColumns) {
+        if (numAffected == 0) return true; //the cells on this row were not modified.
+        enqueueRow(r, c); // the notations of the row changed, so its combinations must be checked again
+        for (int k = 0; k < numAffected; k++) {
+            int affected = affectedCells[k];
             int notationSize = master.getWorkingBoard().getCellNotationSize(r, affected);
             if (notationSize == 0) {
                 if (assignationEventListener != null) assignationEventListener.onCellNoValuesLeft(new Pair<>(r, affected));
@@ -446,119 +578,71 @@ public class KakuroFunctions {
                 int value = -1;
                 int cellNotations = master.getWorkingBoard().getCellNotations(r, affected);
                 for (int i = 0; value == -1 && i < 9; i++) if((cellNotations&(1<<i)) != 0) value = i+1;
-                success = success && cellValueAssignation(r, affected, value, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-                // a cellValueAssignation already calls to updateRow and updateColumn
-            }
-            else {
-                success = success && updateColNotations(r, affected, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols); //all must be successful
-                if (modifiedRows[master.getRowID(r, c)]) success = success && updateRowNotations(r, affected, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols); //all must be successful
+                if (!doCellValueAssignation(r, affected, value)) return false; // responsible for the call will do rollbacks
+                // a cellValueAssignation already adds its row and column to the worklist
             }
-
-            if (!success) return false; // responsible for the call will do rollbacks
+            else enqueueCol(r, affected);
         }
         return true;
     }
 
-    private boolean updateColNotations(int r, int c, ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack, boolean[] modifiedRows, boolean[] modifiedCols) {
+    private boolean updateColNotations(int r, int c) {
         if (abort) return false;
+        propagationCount++;
         //updates the notations of the column and can cause assignations, returns whether the update was successful
-        ArrayList<Integer> affectedRows = new ArrayList<>();
-
-        ArrayList<Integer> possibleCases;
-
-        if (master.getColSum(r, c) != 0) { // col sum is assigned
-            // get possible cases for the col
-            possibleCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(master.getColSize(r, c), master.getColSum(r, c), master.getColValuesUsed(r, c));
-
-        } else { // col sum is NOT assigned
-            // get possible cases for the col
-            ArrayList<Pair<Integer, Integer>> multiplePossibleCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(master.getColSize(r, c), master.getColValuesUsed(r, c));
-            possibleCases = new ArrayList<>();
-            int onlySum = -1;
-            for (Pair<Integer, Integer> p : multiplePossibleCases) {
-                if (onlySum == -1) onlySum = p.first;
-                else if (onlySum != p.first) onlySum = -2;
-                possibleCases.add(p.second);
-            }
+        //the lines whose cells change are added to the worklist instead of being updated right away
+        int numAffected = 0;
+
+        int lineSize = master.getColSize(r, c);
+        int firstRow = master.getFirstColCoord(r, c).first;
+        int lineSum = master.getColSum(r, c);
+        int valuesUsed = master.getColValuesUsed(r, c);
+
+        if (lineSum == 0) { // column sum is NOT assigned
+            int onlySum = KakuroConstants.INSTANCE.getOnlyPossibleSum(lineSize, valuesUsed);
             if (onlySum > 0) { // only one sum is possible for this space and values, we assign it
-                return colSumAssignation(r, c, onlySum, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
+                return doColSumAssignation(r, c, onlySum);
             }
         }
 
-        // validate combinations or erase if not valid
-        for (int i = possibleCases.size()-1; i >= 0; i--) {
-            int pCase = possibleCases.get(i);
-            ArrayList<Integer> p = new ArrayList<>();
-            for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-            ArrayList<WhiteCell> containingCells = new ArrayList<>();
-            for (int it = master.getFirstColCoord(r, c).first; it < master.getFirstColCoord(r, c).first+master.getColSize(r, c); it++) {
-                for (int digit : p) {
-                    if ((!master.getWorkingBoard().isEmpty(it, c) && master.getWorkingBoard().getValue(it, c) == digit) || master.getWorkingBoard().cellHasNotation(it, c, digit)) {
-                        containingCells.add((WhiteCell)master.getWorkingBoard().getCell(it, c));
-                        break;
-                    }
-                }
-            }
-            if (!isCombinationPossible(p, containingCells)) possibleCases.remove(i);
+        if (lineSize > MAX_LINE_SIZE) {
+            if (assignationEventListener != null) assignationEventListener.onColNoValuesLeft(new Pair<>(r, c));
+            return false; //No possible assignations for column.
+        }
+        for (int it = 0; it < lineSize; it++) {
+            if (master.getWorkingBoard().isEmpty(firstRow+it, c)) lineCells[it] = master.getWorkingBoard().getCellNotations(firstRow+it, c);
+            else lineCells[it] = 1 << (master.getWorkingBoard().getValue(firstRow+it, c)-1) | SET_CELL;
         }
 
-        if (possibleCases.size() == 0) {
+        // validate the possible cases of the column (of any sum if it is not assigned) and keep the notations allowed by them
+        if (!lineCache.pruneLine(lineSize, lineSum, lineCells, linePruned)) {
             if (assignationEventListener != null) assignationEventListener.onColNoValuesLeft(new Pair<>(r, c));
-            return false; //No possible assignations for col.
+            return false; //No possible assignations for column.
         }
 
-        int colOptions = 0;
-        for(int p : possibleCases) colOptions |= p;
-
-        // subtract the already used values
-        int commonColNotations = colOptions & ~master.getColValuesUsed(r, c);
-        boolean superPermissive = commonColNotations == 0b111111111;
-
-        ArrayList<Integer> allToErase = new ArrayList<>();
-        int minColNotSize = 10;
-        for(int it = 0; it < master.getColSize(r, c); it++) {
-            allToErase.add(it, 0);
-            if (master.getWorkingBoard().isEmpty(it + master.getFirstColCoord(r, c).first, c)){
-                int s = master.getWorkingBoard().getCellNotationSize(it + master.getFirstColCoord(r, c).first, c);
-                if (s < minColNotSize) minColNotSize = s;
-            }
-        }
-        if (minColNotSize < master.getColSize(r, c)) {
-            int num_cells = master.getColSize(r, c);
-            int[] size = new int[num_cells];
-            int[] notations = new int[num_cells];
-            int[] insertPtrs = new int[num_cells];
-            for(int it = 0; it < master.getColSize(r, c); it++) {
-                insertPtrs[it] = it;
-                size[it] = master.getWorkingBoard().getCellNotationSize(it + master.getFirstColCoord(r, c).first, c);
-                notations[it] = master.getWorkingBoard().getCellNotations(it + master.getFirstColCoord(r, c).first, c);
-            }
-            deepNotationAnalysis(num_cells, size, notations, insertPtrs, allToErase);
-            for(int it = 0; superPermissive && it < master.getColSize(r, c); it++)
-                superPermissive = allToErase.get(it) == 0;
-        }
+        // check for each non-set white-cell if its notations have some notation that is not kept by the column
+        // if so, erase notations, mark row as affected, add cell notations to rollback
 
-        for(int it = master.getFirstColCoord(r, c).first; !superPermissive && it < master.getFirstColCoord(r, c).first+master.getColSize(r, c); it++) {
+        for(int it = firstRow; it < firstRow+lineSize; it++) {
             if (master.getWorkingBoard().isEmpty(it, c)) { //value not set
-                int cellNotations = master.getWorkingBoard().getCellNotations(it, c);
+                int cellNotations = lineCells[it - firstRow];
                 // because cellNotations might get modified if we have to erase, rollback holds the original values
-                int valuesToErase = (cellNotations & ~commonColNotations) | allToErase.get(it - master.getFirstColCoord(r, c).first);
+                int valuesToErase = cellNotations & ~linePruned[it - firstRow];
 
                 if (valuesToErase != 0) { // we need to erase some notations
                     if (assignationEventListener != null) assignationEventListener.onCellNotationsChanged(new Pair<>(new Pair<>(it, c), new Pair<>(cellNotations, cellNotations & ~valuesToErase)));
-                    modifiedRows[master.getRowID(it, c)] = true;
-                    modifiedCols[master.getColID(r, c)] = true;
-                    affectedRows.add(it);
-                    if (master.getNotationsQueue().isHiding(it, c)) hidingCellNotationsRollBack.add(new RollbackNotations(it, c, cellNotations));
-                    else cellNotationsRollBack.add(new RollbackNotations(it, c, cellNotations));
+                    affectedCells[numAffected++] = it;
+                    if (master.getNotationsQueue().isHiding(it, c)) pushTrail(TRAIL_HIDING_NOTATIONS, it, c, cellNotations);
+                    else pushTrail(TRAIL_NOTATIONS, it, c, cellNotations);
                     master.getNotationsQueue().eraseNotationsFromCell(it, c, valuesToErase);
                 }
             }
         }
 
-        boolean success = true;
-        if (affectedRows.size() == 0) modifiedCols[master.getColID(r, c)] = false; //the cells on this column were not modified.
-        for (int affected : affectedRows) {
+        if (numAffected == 0) return true; //the cells on this column were not modified.
+        enqueueCol(r, c); // the notations of the column changed, so its combinations must be checked again
+        for (int k = 0; k < numAffected; k++) {
+            int affected = affectedCells[k];
             int notationSize = master.getWorkingBoard().getCellNotationSize(affected, c);
             if (notationSize == 0) {
                 if (assignationEventListener != null) assignationEventListener.onCellNoValuesLeft(new Pair<>(affected, c));
@@ -568,182 +652,86 @@ public class KakuroFunctions {
                 int value = -1;
                 int cellNotations = master.getWorkingBoard().getCellNotations(affected, c);
                 for (int i = 0; value == -1 && i < 9; i++) if((cellNotations&(1<<i)) != 0) value = i+1;
-                success = success && cellValueAssignation(affected, c, value, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols);
-                // a cellValueAssignation already calls to updateRow and updateColumn
+                if (!doCellValueAssignation(affected, c, value)) return false; // responsible for the call will do rollbacks
+                // a cellValueAssignation already adds its row and column to the worklist
             }
-            else {
-                success = success && updateRowNotations(affected, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols); //all must be successful
-                if (modifiedCols[master.getColID(r, c)]) success = success && updateColNotations(affected, c, rowSumRollBack, colSumRollBack, cellValueRollBack, cellNotationsRollBack, hidingCellNotationsRollBack, modifiedRows, modifiedCols); //all must be successful
-            }
-            if (!success) return false; // responsible for the call will do rollbacks
+            else enqueueRow(affected, c);
         }
         return true;
     }
 
-    // Pre: size, notations, insertPtrs and result have size num_cells, all arrays in results are declared.
-    private void deepNotationAnalysis(int num_cells, int[] size, int[] notations, int[] insertPtrs, ArrayList<Integer> result) {
-        if (num_cells == 0) return;
-
-        // we order the cell info by size.
-        for (int i = 0; i < num_cells; i++) { //selection sort because maximum there are 9 cells
-            int minPos = i;
-            for (int j = i+1; j < num_cells; j++)
-                if (size[j] < size[minPos]) minPos = j;
-            if (minPos != i) { // swap
-                int swpSize, swpNts, swpPtrs;
-                swpSize = size[i]; swpNts = notations[i]; swpPtrs = insertPtrs[i];
-                size[i] = size[minPos]; notations[i] = notations[minPos]; insertPtrs[i] = insertPtrs[minPos];
-                size[minPos] = swpSize; notations[minPos] = swpNts; insertPtrs[minPos] = swpPtrs;
-            }
-        }
-
-        int ini = 0;
-        while(ini < num_cells && size[ini] < 2) ini++;
-
-        if (ini < num_cells)
-            for (int length = size[ini]; length < num_cells; length++) {
-                int end = num_cells-1;
-                while (end >= ini && size[end] > length) end--;
-
-                if (end - ini +1 < length) continue;
-
-                int[] indices = new int[length];
-                for (int j = 0; j < length; j++) {
-                    indices[j] = ini+j;
-                }
-
-                boolean atEnd = false;
-                while (!atEnd) {
-                    // consider this possibility
-                    int poss = 0;
-                    for (int j : indices)
-                        poss |= notations[j];
-
-                    int checkSize = poss, nSize = 0;
-                    while (checkSize > 0) {
-                        nSize += (checkSize & 1);
-                        checkSize >>>= 1;
-                    }
-
-                    if (nSize == length) { // these |length| values have to be in the corresponding cells, not in others
-                        ArrayList<Integer> toErase = new ArrayList<>();
-                        for (int j = 0; toErase.size() < length && j < 9; j++) {
-                            if ((poss & (1<<j)) > 0) toErase.add(j);
-                        }
-                        int minLengthChanged = -1;
-                        int kIdx = 0;
-                        for (int j = 0; j < num_cells; j++) {
-                            if (kIdx < length-1 && j > indices[kIdx]) kIdx++;
-                            if (j != indices[kIdx]) {
-                                for (int val : toErase) {
-                                    if ((notations[j] & (1<<val)) > 0) { // has a value to be erased
-                                        result.set(insertPtrs[j], (result.get(insertPtrs[j]) | (1<<val))); //mark it to erase
-                                        notations[j] &= ~(1<<val); // erase from notations to calc.
-                                        size[j]--;
-                                        if (minLengthChanged == -1 || size[j] < minLengthChanged) minLengthChanged = size[j];
-                                    }
-                                }
-                            }
-                        }
-
-                        // if any changes, reorganize and check the new lengths again, some might have new unique values.
-                        if (minLengthChanged >= 0) {
-                            for (int i = 0; i < num_cells; i++) { //selection sort because maximum there are 9 cells
-                                int minPos = i;
-                                for (int j = i+1; j < num_cells; j++)
-                                    if (size[j] < size[minPos]) minPos = j;
-                                if (minPos != i) { // swap
-                                    int swpSize, swpNts, swpPtrs;
-                                    swpSize = size[i]; swpNts = notations[i]; swpPtrs = insertPtrs[i];
-                                    size[i] = size[minPos]; notations[i] = notations[minPos]; insertPtrs[i] = insertPtrs[minPos];
-                                    size[minPos] = swpSize; notations[minPos] = swpNts; insertPtrs[minPos] = swpPtrs;
-                                }
-                            }
-
-                            if (minLengthChanged < 2) {
-                                ini = 0;
-                                while(ini < num_cells && size[ini] < 2) ini++;
-                                length = size[ini];
-                                break;
-                            } else if (minLengthChanged < length) {
-                                length = minLengthChanged;
-                                break;
+    // Pre: notations and result have at least num_cells positions, notations are the ones of the empty cells of a line
+    //  and required are the values every possible combination of the line needs (and no cell has taken yet).
+    // Finds every naked subset (k cells whose notations have k values between them, no other cell can take those
+    //  values) and every hidden subset (k required values only noted in k cells, those cells can't take other values)
+    //  until no more notations can be erased. Erased values are marked in result and removed from notations.
+    private static void deepNotationAnalysis(int num_cells, int[] notations, int required, int[] result) {
+        int allCells = (1 << num_cells) - 1;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // naked subsets, enumerating the sets of k cells with Gosper's hack
+            for (int k = 1; k < num_cells; k++) {
+                for (int set = (1 << k) - 1; set <= allCells; ) {
+                    int values = 0;
+                    for (int rest = set; rest != 0; rest &= rest - 1) values |= notations[Integer.numberOfTrailingZeros(rest)];
+                    if (Integer.bitCount(values) == k) {
+                        for (int rest = allCells & ~set; rest != 0; rest &= rest - 1) {
+                            int j = Integer.numberOfTrailingZeros(rest);
+                            if ((notations[j] & values) != 0) {
+                                result[j] |= notations[j] & values;
+                                notations[j] &= ~values;
+                                changed = true;
                             }
                         }
                     }
+                    int lowest = set & -set, ripple = set + lowest;
+                    set = (((ripple ^ set) >>> 2) / lowest) | ripple;
+                }
+            }
 
-                    if (indices[0] == end - (length-1)) atEnd = true;
-                    for (int i = 1; !atEnd && i < length; i++) {
-                        if (indices[i] == end - ((length-1) - i)) {
-                            indices[i-1]++;
-                            indices[i] = indices[i-1] + 1;
-                            if (indices[i] != end - ((length-1) - i)) {
-                                // idx was moved, must take the rest with him
-                                for (int j = i+1; j < length; j++) indices[j] = indices[j-1]+1;
-                            }
-                            break;
-                        } else if (i == length-1) {
-                            indices[i]++;
-                        }
+            // hidden subsets, enumerating the non-empty subsets of the required values
+            for (int values = required; values != 0; values = (values - 1) & required) {
+                int k = Integer.bitCount(values), cells = 0;
+                for (int j = 0; j < num_cells; j++) if ((notations[j] & values) != 0) cells |= 1 << j;
+                if (Integer.bitCount(cells) != k) continue;
+                for (int rest = cells; rest != 0; rest &= rest - 1) {
+                    int j = Integer.numberOfTrailingZeros(rest);
+                    if ((notations[j] & ~values) != 0) {
+                        result[j] |= notations[j] & ~values;
+                        notations[j] &= values;
+                        changed = true;
                     }
                 }
             }
-    }
-
-    /**
-     * Permits doing rollback from externally catched assignation events. It is responsibility of the listener that is catching
-     * the assignation events to make sure the arrays are well constructed and will function.
-     * @param rowSumRollBack Corresponding array of rowSums to perform a rollback.
-     * @param colSumRollBack Corresponding array of colSums to perform a rollback.
-     * @param cellValueRollBack Corresponding array of cellValues to perform a rollback.
-     * @param cellNotationsRollBack Corresponding array of cellNotations to perform a rollback.
-     * @param hidingCellNotationsRollBack Corresponding array of cellNotations that were hiding to perform a rollback.
-     */
-    public void externalRollback(ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<Pair<Pair<Integer, Integer>, Integer>> cellNotationsRollBack, ArrayList<Pair<Pair<Integer, Integer>, Integer>> hidingCellNotationsRollBack) {
-        ArrayList<RollbackNotations> realNotationsRollBack = new ArrayList<>();
-        for (Pair<Pair<Integer, Integer>, Integer> notations : cellNotationsRollBack)
-            realNotationsRollBack.add(new RollbackNotations(notations.first.first, notations.first.second, notations.second));
-        ArrayList<RollbackNotations> realHidingNotationsRollBack = new ArrayList<>();
-        for (Pair<Pair<Integer, Integer>, Integer> notations : hidingCellNotationsRollBack)
-            realHidingNotationsRollBack.add(new RollbackNotations(notations.first.first, notations.first.second, notations.second));
-        rollBack(rowSumRollBack, colSumRollBack, cellValueRollBack, realNotationsRollBack, realHidingNotationsRollBack);
-    }
-
-    private void rollBack(ArrayList<Pair<Integer, Integer>> rowSumRollBack, ArrayList<Pair<Integer, Integer>> colSumRollBack, ArrayList<Pair<Integer, Integer>> cellValueRollBack, ArrayList<RollbackNotations> cellNotationsRollBack, ArrayList<RollbackNotations> hidingCellNotationsRollBack) {
-        // Row sums
-        for (Pair<Integer, Integer> row : rowSumRollBack) {
-            master.setRowSum(row.first, row.second, 0);
-        }
-        // Col sums
-        for (Pair<Integer, Integer> col : colSumRollBack) {
-            master.setColSum(col.first, col.second, 0);
-        }
-        // Cell value
-        for (Pair<Integer, Integer> c : cellValueRollBack) {
-            master.getNotationsQueue().insertOrderedCell(c.first, c.second); // adds it to queue with previous notations
-            int value = master.getWorkingBoard().getValue(c.first, c.second);
-            master.getWorkingBoard().clearCellValue(c.first, c.second);
-            master.setRowValuesUsed(c.first, c.second, (master.getRowValuesUsed(c.first, c.second) & ~(1<<(value-1))));
-            master.setColValuesUsed(c.first, c.second, (master.getColValuesUsed(c.first, c.second) & ~(1<<(value-1))));
-        }
-        // Cell notations
-        // notice that it is important to first insert the cells if needed, because if we don't the datastructure
-        // will not consider it as valid and it won't find it to add the notations
-        for (RollbackNotations n : cellNotationsRollBack)
-            master.getNotationsQueue().addNotationsToCell(n.coord.first, n.coord.second, n.notations);
-
-        for (RollbackNotations n : hidingCellNotationsRollBack) {
-            master.getNotationsQueue().addNotationsToCell(n.coord.first, n.coord.second, n.notations);
-            master.getNotationsQueue().hideElement(n.coord.first, n.coord.second);
         }
     }
 
-    private class RollbackNotations {
-        public Pair<Integer, Integer> coord;
-        public int notations;
-        public RollbackNotations(int r, int c, int n) {
-            coord = new Pair<>(r,c);
-            notations = n;
+    // Undoes the trail down to mark in order: sums, cell values, notations and hiding notations.
+    // Restoring values before notations is what keeps the notations queue consistent.
+    private void rollBackTo(int mark) {
+        for (int i = mark; i < trailSize; i += TRAIL_ENTRY_SIZE) {
+            if (trail[i] == TRAIL_ROW_SUM) master.setRowSum(trail[i+1], trail[i+2], 0);
+            else if (trail[i] == TRAIL_COL_SUM) master.setColSum(trail[i+1], trail[i+2], 0);
+        }
+        for (int i = mark; i < trailSize; i += TRAIL_ENTRY_SIZE) {
+            if (trail[i] != TRAIL_CELL_VALUE) continue;
+            int r = trail[i+1], c = trail[i+2];
+            master.getNotationsQueue().insertOrderedCell(r, c); // adds it to queue with previous notations
+            int value = master.getWorkingBoard().getValue(r, c);
+            master.getWorkingBoard().clearCellValue(r, c);
+            master.setRowValuesUsed(r, c, (master.getRowValuesUsed(r, c) & ~(1<<(value-1))));
+            master.setColValuesUsed(r, c, (master.getColValuesUsed(r, c) & ~(1<<(value-1))));
+        }
+        for (int i = mark; i < trailSize; i += TRAIL_ENTRY_SIZE) {
+            if (trail[i] == TRAIL_NOTATIONS) master.getNotationsQueue().addNotationsToCell(trail[i+1], trail[i+2], trail[i+3]);
+        }
+        for (int i = mark; i < trailSize; i += TRAIL_ENTRY_SIZE) {
+            if (trail[i] != TRAIL_HIDING_NOTATIONS) continue;
+            master.getNotationsQueue().addNotationsToCell(trail[i+1], trail[i+2], trail[i+3]);
+            master.getNotationsQueue().hideElement(trail[i+1], trail[i+2]);
         }
+        trailSize = mark;
     }
 }
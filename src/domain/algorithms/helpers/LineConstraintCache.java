@@ -0,0 +1,212 @@
+package src.domain.algorithms.helpers;
+
+/**
+ * Line constraint cache class.
+ * Remembers the notations the cells of a row or column keep after checking the line against all of its possible
+ * combinations, as computed by KakuroFunctions::pruneLine. The same line states come up over and over while solving
+ * and generating, in different branches and in different boards, so most of them are found here.
+ * Lines are stored in canonical form, with their cells sorted, so lines with the same cells in a different order
+ * share an entry. The cache has a fixed number of entries grouped in small sets, and the least recently used entry
+ * of a set is evicted to make room for a new one. It is thread-safe, and INSTANCE is shared by everything that uses
+ * KakuroFunctions (Solver, Generator, KakuroCreationCtrl and GameplayCtrl).
+ *
+ * @version 0.1.0 (20/11/2020)
+ */
+
+public class LineConstraintCache {
+    /** Default number of entries of a cache */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /** Cache shared by all the instances of KakuroFunctions */
+    public static final LineConstraintCache INSTANCE = new LineConstraintCache(DEFAULT_CAPACITY);
+
+    private static final int WAYS = 4;                  // entries per set
+    private static final int NUM_LOCKS = 64;            // sets are split among the locks to reduce contention
+    private static final int CELL_BITS = 10;            // bits of the state of a cell in a key
+    private static final int VALUE_BITS = 9;            // bits of the pruned notations of a cell in a value
+    private static final long INFEASIBLE = 1L << 62;    // flag of the values of lines without possible combinations
+
+    // Entries of the set s are at positions [s*WAYS, (s+1)*WAYS), from most to least recently used.
+    // Keys and values are packed in two longs each, see pack(); a key with keyHi == 0 marks an empty entry.
+    private final int numSets;
+    private final long[] keyHi, keyLo;
+    private final long[] valueHi, valueLo;
+    private final Object[] locks;
+    private final long[] hits, misses;                  // counters of each lock, only modified while holding it
+
+    // canonical cells, their positions in the line and their pruned notations, for each thread
+    private final ThreadLocal<int[]> scratch = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[3 * 9];
+        }
+    };
+
+    /**
+     * Constructor.
+     * Initializes an empty cache
+     * @param capacity Maximum number of lines to remember, rounded up to a power of two
+     */
+    public LineConstraintCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        int sets = 1;
+        while (sets * WAYS < capacity) sets <<= 1;
+        numSets = sets;
+        keyHi = new long[sets * WAYS];
+        keyLo = new long[sets * WAYS];
+        valueHi = new long[sets * WAYS];
+        valueLo = new long[sets * WAYS];
+        locks = new Object[NUM_LOCKS];
+        for (int i = 0; i < NUM_LOCKS; i++) locks[i] = new Object();
+        hits = new long[NUM_LOCKS];
+        misses = new long[NUM_LOCKS];
+    }
+
+    /**
+     * Same as KakuroFunctions::pruneLine, but the result is looked up in the cache first and stored in it if missing
+     * @param size   Number of cells of the line
+     * @param sum    Sum of the line, 0 if it is not assigned
+     * @param cells  State of each cell: its notations if its value is not set, the bit of its value and
+     *               KakuroFunctions.SET_CELL otherwise
+     * @param pruned Output, notations each cell keeps (the state of the cell for the ones whose value is set)
+     * @return false if no combination of the line fits its cells, in which case pruned is not modified
+     */
+    public boolean pruneLine(int size, int sum, int[] cells, int[] pruned) {
+        if (size < 1 || size > 9 || sum < 0 || sum > 45) return KakuroFunctions.pruneLine(size, sum, cells, pruned);
+
+        // canonical form of the line: cells sorted in decreasing order of state, remembering where each came from
+        int[] s = scratch.get();
+        for (int i = 0; i < size; i++) {
+            int j = i;
+            while (j > 0 && s[j-1] < cells[i]) {
+                s[j] = s[j-1];
+                s[9+j] = s[9+j-1];
+                j--;
+            }
+            s[j] = cells[i];
+            s[9+j] = i;
+        }
+
+        long hi = (long)size << 36 | (long)sum << 30, lo = 0;
+        for (int i = 0; i < size; i++) {
+            if (i < 6) lo |= (long)s[i] << (CELL_BITS * i);
+            else hi |= (long)s[i] << (CELL_BITS * (i-6));
+        }
+
+        int set = hash(hi, lo) & (numSets-1);
+        int lockIdx = set & (NUM_LOCKS-1);
+        int base = set * WAYS;
+        boolean found = false;
+        long vHi = 0, vLo = 0;
+        synchronized (locks[lockIdx]) {
+            for (int w = 0; !found && w < WAYS; w++) {
+                if (keyHi[base+w] == hi && keyLo[base+w] == lo) {
+                    found = true;
+                    vHi = valueHi[base+w];
+                    vLo = valueLo[base+w];
+                    moveToFront(base, w, hi, lo, vHi, vLo);
+                }
+            }
+            if (found) hits[lockIdx]++;
+            else misses[lockIdx]++;
+        }
+
+        if (!found) {
+            boolean feasible = KakuroFunctions.pruneLine(size, sum, s, s);
+            if (!feasible) vHi = INFEASIBLE;
+            else {
+                // the pruned notations are in s now, cells whose value is set are not stored
+                for (int i = 0; i < size; i++) {
+                    long notations = s[i] & 0x1FF;
+                    if (i < 6) vLo |= notations << (VALUE_BITS * i);
+                    else vHi |= notations << (VALUE_BITS * (i-6));
+                }
+            }
+            synchronized (locks[lockIdx]) {
+                int w = 0;
+                while (w < WAYS-1 && !(keyHi[base+w] == hi && keyLo[base+w] == lo)) w++;
+                moveToFront(base, w, hi, lo, vHi, vLo); // evicts the least recently used one if not already there
+            }
+        }
+
+        if ((vHi & INFEASIBLE) != 0) return false;
+        for (int i = 0; i < size; i++) {
+            int pos = s[9+i];
+            if ((cells[pos] & KakuroFunctions.SET_CELL) != 0) pruned[pos] = cells[pos];
+            else if (i < 6) pruned[pos] = (int)(vLo >>> (VALUE_BITS * i)) & 0x1FF;
+            else pruned[pos] = (int)(vHi >>> (VALUE_BITS * (i-6))) & 0x1FF;
+        }
+        return true;
+    }
+
+    // Pre: the lock of the set is held. Shifts entries [base, base+w) one position down and puts the given one first
+    private void moveToFront(int base, int w, long hi, long lo, long vHi, long vLo) {
+        for (int i = base+w; i > base; i--) {
+            keyHi[i] = keyHi[i-1];
+            keyLo[i] = keyLo[i-1];
+            valueHi[i] = valueHi[i-1];
+            valueLo[i] = valueLo[i-1];
+        }
+        keyHi[base] = hi;
+        keyLo[base] = lo;
+        valueHi[base] = vHi;
+        valueLo[base] = vLo;
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L + lo;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return (int)(h ^ (h >>> 31));
+    }
+
+    /**
+     * Removes all lines from the cache and resets its counters
+     */
+    public void clear() {
+        for (int l = 0; l < NUM_LOCKS; l++) {
+            synchronized (locks[l]) {
+                for (int set = l; set < numSets; set += NUM_LOCKS) {
+                    for (int e = set * WAYS; e < (set+1) * WAYS; e++) keyHi[e] = 0;
+                }
+                hits[l] = 0;
+                misses[l] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the maximum number of lines the cache can hold
+     * @return the number of entries of the cache
+     */
+    public int getCapacity() {
+        return numSets * WAYS;
+    }
+
+    /**
+     * Get the number of lines that were found in the cache
+     * @return the number of hits since the cache was created or cleared
+     */
+    public long getHits() {
+        long total = 0;
+        for (int l = 0; l < NUM_LOCKS; l++) {
+            synchronized (locks[l]) {
+                total += hits[l];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of lines that had to be computed
+     * @return the number of misses since the cache was created or cleared
+     */
+    public long getMisses() {
+        long total = 0;
+        for (int l = 0; l < NUM_LOCKS; l++) {
+            synchronized (locks[l]) {
+                total += misses[l];
+            }
+        }
+        return total;
+    }
+}
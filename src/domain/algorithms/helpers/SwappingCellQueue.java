@@ -14,8 +14,11 @@ import java.util.TreeSet;
 
 public class SwappingCellQueue {
     private final Board workingBoard;
+    private final int width;
 
     private final WhiteCell[] orderedCells; // Contains all the WhiteCells in increasing order of number of notations
+    private final int[] cellIndex;          // r*width+c of each cell in orderedCells, swapped along with it
+    private final int[] positionOf;         // position in orderedCells of the cell (r, c) at r*width+c, -1 for black cells
     private final int[] startPos;           // 1 pointer to hiding cells and 9 pointers to the first position with corresponding number of notations
                                       // if there is no elements of size n, then startPos[n-1] = startPos[n]
                                       // any element in a position before startPos[0] is in an invalid position.
@@ -31,6 +34,7 @@ public class SwappingCellQueue {
         workingBoard = b;
         int rows = b.getHeight();
         int columns = b.getWidth();
+        width = columns;
         endElement = rows * columns;
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
@@ -39,12 +43,18 @@ public class SwappingCellQueue {
         }
         // we fill orderedCells assuming an empty board with all WhiteCells with 9 notations
         orderedCells = new WhiteCell[endElement];
+        cellIndex = new int[endElement];
+        positionOf = new int[rows * columns];
         int idx = 0;
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < columns; j++) {
                 if (workingBoard.isWhiteCell(i,j)) {
                     orderedCells[idx] = (WhiteCell) workingBoard.getCell(i,j);
+                    cellIndex[idx] = i * columns + j;
+                    positionOf[i * columns + j] = idx;
                     idx++;
+                } else {
+                    positionOf[i * columns + j] = -1;
                 }
             }
         }
@@ -52,6 +62,26 @@ public class SwappingCellQueue {
         firstElement = 0;
     }
 
+    /**
+     * Copy constructor
+     * Creates a queue with the same order and state as the given one, but pointing to the cells of another board
+     * @param q Queue to copy
+     * @param b Copy of the board the queue to copy works with
+     */
+    public SwappingCellQueue(SwappingCellQueue q, Board b) {
+        workingBoard = b;
+        width = q.width;
+        endElement = q.endElement;
+        firstElement = q.firstElement;
+        startPos = q.startPos.clone();
+        cellIndex = q.cellIndex.clone();
+        positionOf = q.positionOf.clone();
+        orderedCells = new WhiteCell[q.orderedCells.length];
+        for (int i = 0; i < orderedCells.length; i++) {
+            orderedCells[i] = (WhiteCell) workingBoard.getCell(cellIndex[i] / width, cellIndex[i] % width);
+        }
+    }
+
     /**
      * Check if queue is empty
      * @return whether the queue is empty or not
@@ -61,27 +91,41 @@ public class SwappingCellQueue {
     }
 
     private int findCell(int r, int c, int notationSize) {
-        // if data structure integrity is always preserved this linear search starts at the first position that has nSize
-        // notations and should find the cell. If it doesn't it will return the endElement, but this shouldn't happen
-        // unless notationSize is incorrect or the cell has been removed. It should find hiding cells.
+        // the position of the cell is always known, this only checks that it is among the positions that have nSize
+        // notations. If it isn't it will return the endElement, but this shouldn't happen unless notationSize is
+        // incorrect or the cell has been removed. It should find hiding cells.
         if (notationSize < -1 || notationSize > 9) return endElement;
+        if (r < 0 || c < 0 || c >= width || r * width + c >= positionOf.length) return endElement;
+        int pos = positionOf[r * width + c];
+        if (pos < 0) return endElement;
 
-        int pos = 0;
+        int start = 0;
         int end = firstElement;
         if (notationSize != 0) {
             if (notationSize == -1) { // search in hiding positions
-                pos = startPos[0];
+                start = startPos[0];
             } else {
-                pos = startPos[notationSize];
+                start = startPos[notationSize];
                 end = notationSize == 9 ? endElement : startPos[notationSize+1];
             }
         }
-        while (pos < end && !workingBoard.equalsCell(r, c, orderedCells[pos])) pos++;
-        if (pos != end) return pos;
+        if (pos >= start && pos < end) return pos;
         if (notationSize > 0) return findCell(r, c, -1);
         return endElement;
     }
 
+    // swaps the cells at positions i and j of orderedCells, keeping their positions up to date
+    private void swap(int i, int j) {
+        WhiteCell swapCell = orderedCells[i];
+        orderedCells[i] = orderedCells[j];
+        orderedCells[j] = swapCell;
+        int swapIndex = cellIndex[i];
+        cellIndex[i] = cellIndex[j];
+        cellIndex[j] = swapIndex;
+        positionOf[cellIndex[i]] = i;
+        positionOf[cellIndex[j]] = j;
+    }
+
     /**
      * Erases the values encoded in toErase from the notations of the cell of coordinates (r, c).
      * @param r row coordinate of a cell.
@@ -104,16 +148,12 @@ public class SwappingCellQueue {
                 workingBoard.setCellNotation(r, c, i, false);
                 cellNotations &= ~(1<<(i-1));
                 // swap cells in array to preserve order
-                WhiteCell swap = orderedCells[startPos[notSize]];
-                orderedCells[startPos[notSize]] = orderedCells[pos];
-                orderedCells[pos] = swap;
+                swap(startPos[notSize], pos);
                 pos = startPos[notSize]; // update to the new position
                 startPos[notSize] ++; // the cells with notSize are one less, so they start one position after
                 notSize--; // decrement the current size of notations
                 if (notSize == 0) { // we already have removed all possible notations we send it to invalid region
-                    swap = orderedCells[startPos[0]];
-                    orderedCells[startPos[0]] = orderedCells[pos];
-                    orderedCells[pos] = swap;
+                    swap(startPos[0], pos);
                     startPos[0]++;
                     break;
                 }
@@ -139,9 +179,7 @@ public class SwappingCellQueue {
         // we need to previously find it and insert it into a valid position of size 1
         if (notSize == 0 && startPos[0]>0) {
             // swap with the last invalid cell, enter the hiding region
-            WhiteCell swap = orderedCells[startPos[0]-1];
-            orderedCells[startPos[0]-1] = orderedCells[pos];
-            orderedCells[pos] = swap;
+            swap(startPos[0]-1, pos);
             pos = startPos[0]-1;
             startPos[0]--;
         }
@@ -151,9 +189,7 @@ public class SwappingCellQueue {
                 workingBoard.setCellNotation(r, c, i, true);
                 cellNotations |= 1 << (i-1);
                 // swap cells in array to preserve order
-                WhiteCell swap = orderedCells[startPos[notSize+1]-1];
-                orderedCells[startPos[notSize+1]-1] = orderedCells[pos];
-                orderedCells[pos] = swap;
+                swap(startPos[notSize+1]-1, pos);
                 pos = startPos[notSize+1]-1; // update to the new position
                 startPos[notSize+1] --; // the cells with notSize are one more, so they start one position before
                 notSize++; // increment the current size of notations
@@ -172,6 +208,23 @@ public class SwappingCellQueue {
         return orderedCells[firstElement];
     }
 
+    /**
+     * Get the number of cells in the queue, not counting the hidden ones.
+     * @return the number of cells that can be accessed with getElement.
+     */
+    public int size() {
+        return endElement - firstElement;
+    }
+
+    /**
+     * Get the white cell at the given position of the queue, cells are in increasing order of notation size.
+     * @param i Position of the cell, 0 is the front of the queue.
+     * @return the WhiteCell at that position.
+     */
+    public WhiteCell getElement(int i) {
+        return orderedCells[firstElement + i];
+    }
+
     /**
      * Hide element in the first position. Does NOT remove the element.
      */
@@ -193,9 +246,7 @@ public class SwappingCellQueue {
         int pos = findCell(r, c, 0);
         if (pos >= startPos[0]) return;
 
-        WhiteCell swap = orderedCells[startPos[0]-1];
-        orderedCells[startPos[0]-1] = orderedCells[pos];
-        orderedCells[pos] = swap;
+        swap(startPos[0]-1, pos);
         startPos[0]--;
     }
 
@@ -233,14 +284,11 @@ public class SwappingCellQueue {
      * @param c column coordinate of a cell.
      */
     public void insertOrderedCell(int r, int c) { // Must be a cell in a position previous to firstElement
-        boolean elementFound = false;
-        for (int i = firstElement-1; !elementFound &&  i >= 0; i--) {
-            if (workingBoard.equalsCell(r, c, orderedCells[i])) {
-                elementFound = true;
-                int notations = workingBoard.getCellNotations(r, c);
-                workingBoard.clearCellNotations(r, c);
-                addNotationsToCell(r, c, notations);
-            }
+        int pos = findCell(r, c, 0);
+        if (pos != endElement) {
+            int notations = workingBoard.getCellNotations(r, c);
+            workingBoard.clearCellNotations(r, c);
+            addNotationsToCell(r, c, notations);
         }
     }
 }
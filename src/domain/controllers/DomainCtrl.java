@@ -19,11 +19,18 @@ public class DomainCtrl {
     RankingCtrl rankingCtrl;
 
     public DomainCtrl() {
-        DB driver = new DB();
+        IndexedDB driver = new IndexedDB();
+        // reads are served from memory and writes are sent to the database in the background
+        WriteBehindQueue writeQueue = new WriteBehindQueue(WriteBehindQueue.DEFAULT_FLUSH_INTERVAL,
+                WriteBehindQueue.SyncPolicy.AFTER_FLUSH, driver);
 
-        userRepository = new UserRepositoryDB(driver);
-        kakuroRepository = new KakuroRepositoryDB(driver);
-        gameRepository = new GameRepositoryDB(driver);
+        // the games and kakuros are loaded with the cached users and kakuros, so every object is read once and shared.
+        // Boards aren't cached on their own: each one belongs to a kakuro or a game in progress, which the caches
+        // already hold, and it is written along with its owner
+        BoardRepository boardRepository = new BoardRepositoryIndexedDB(driver);
+        userRepository = new UserRepositoryCache(new UserRepositoryIndexedDB(driver), writeQueue);
+        kakuroRepository = new KakuroRepositoryCache(new KakuroRepositoryIndexedDB(driver, userRepository, boardRepository), writeQueue);
+        gameRepository = new GameRepositoryCache(new GameRepositoryIndexedDB(driver, userRepository, kakuroRepository, boardRepository), writeQueue);
 
         userCtrl = new UserCtrl(userRepository);
         kakuroCtrl = new KakuroCtrl(kakuroRepository, userRepository, gameRepository);
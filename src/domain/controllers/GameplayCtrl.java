@@ -1,18 +1,22 @@
 package src.domain.controllers;
 
 import src.domain.algorithms.Solver;
+import src.domain.algorithms.SolverResult;
+import src.domain.algorithms.SolverSession;
+import src.domain.algorithms.helpers.CancellationToken;
 import src.domain.algorithms.helpers.KakuroConstants;
-import src.domain.algorithms.helpers.KakuroFunctions;
-import src.domain.algorithms.helpers.SwappingCellQueue;
 import src.domain.entities.*;
 import src.presentation.controllers.GameScreenCtrl;
 import src.utils.Pair;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 public class GameplayCtrl {
+    private static final long HINT_SOLVER_TIMEOUT = 3000; // max milliseconds spent by each solve when looking for a hint
+    private static final long BAD_MOVE_SEARCH_TIMEOUT = 6000; // max milliseconds spent by all the solves looking for a bad move
+
     private GameScreenCtrl viewCtrl;
     private final GameCtrl gameCtrl;
 
@@ -52,6 +56,9 @@ public class GameplayCtrl {
 
     private int colorCode;
 
+    private SolverSession session;          // propagated state of the current position, used to give hints
+    private ArrayList<PersistentBoard> positions; // board after each move, positions.get(i) is the one after move i
+
     public GameplayCtrl(User user, Kakuro kakuro, GameCtrl gameCtrl) {
         this.user = user;
         this.kakuro = kakuro;
@@ -76,6 +83,7 @@ public class GameplayCtrl {
 
     private void initializeCommon() {
         colorCode = currentGame.getKakuro().getColorCode();
+        initializePositions();
         hintAtMove = -1;
         lastHint = new Pair<>(new Pair<>(-1, -1), -1);
         usedValuesHelpIsActive = false;
@@ -84,14 +92,45 @@ public class GameplayCtrl {
         totalNumOfHints = 0;
     }
 
+    private void initializePositions() {
+        positions = new ArrayList<>();
+        positions.add(new PersistentBoard(kakuro.getBoard()));
+        ArrayList<Movement> allMoves = currentGame.getMovements();
+        for (int i = 0; i < allMoves.size(); i++) {
+            Movement m = allMoves.get(i);
+            recordPosition(i+1, m.getCoordinates().first, m.getCoordinates().second, m.getNext());
+        }
+    }
+
+    // stores the board after the given move as a snapshot of the previous one, discarding the positions after it
+    private void recordPosition(int move, int r, int c, int value) {
+        while (positions.size() > move) positions.remove(positions.size()-1);
+        PersistentBoard b = positions.get(move-1).snapshot();
+        if (value == 0) b.clearCellValue(r, c);
+        else b.setCellValue(r, c, value);
+        positions.add(b);
+    }
+
     public String gameSetUp(GameScreenCtrl view) {
         this.viewCtrl = view;
         preprocessRows();
         preprocessCols();
+        initializeSession();
         initialTime = System.currentTimeMillis();
         return currentGame.getBoard().toString();
     }
 
+    private void initializeSession() {
+        session = new SolverSession(kakuro.getBoard());
+        Board board = currentGame.getBoard();
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c) && kakuro.getBoard().isEmpty(r, c) && !board.isEmpty(r, c))
+                    session.setCellValue(r, c, board.getValue(r, c));
+            }
+        }
+    }
+
     public int getColorCode() { return colorCode; }
 
     public Pair<Integer, Integer> getBoardSize() {
@@ -249,13 +288,7 @@ public class GameplayCtrl {
     }
 
     private void sendRebuiltBoardUpToMove(int toMove) {
-        Board b = new Board(kakuro.getBoard());
-        ArrayList<Movement> allMoves = currentGame.getMovements();
-        for (int i = 0; i < toMove; i++) {
-            Movement m = allMoves.get(i);
-            if (m.getNext() == 0) b.clearCellValue(m.getCoordinates().first, m.getCoordinates().second);
-            else b.setCellValue(m.getCoordinates().first, m.getCoordinates().second, m.getNext());
-        }
+        PersistentBoard b = positions.get(toMove);
         ArrayList<Pair<Pair<Integer, Integer>, Integer>> message = new ArrayList<>();
         for (int i = 0; i < b.getHeight(); i++) {
             for (int j = 0; j < b.getWidth(); j++) {
@@ -277,6 +310,8 @@ public class GameplayCtrl {
             movementCount++;
             currentMovement = movementCount;
             currentGame.insertMovement(new Movement(currentMovement, value, 0, r, c));
+            recordPosition(currentMovement, r, c, 0);
+            session.setCellValue(r, c, 0);
             rowValuesUsed[rowID] &= ~(1<<(value-1));
             currentRowSums[rowID] -= value;
             colValuesUsed[colID] &= ~(1<<(value-1));
@@ -324,6 +359,8 @@ public class GameplayCtrl {
             currentMovement = movementCount;
             hintAtMove = -1;
             currentGame.insertMovement(new Movement(currentMovement, previousValue, value, r, c));
+            recordPosition(currentMovement, r, c, value);
+            session.setCellValue(r, c, value);
             rowValuesUsed[rowID] |= (1<<(value-1));
             currentRowSums[rowID] += value;
             colValuesUsed[colID] |= (1<<(value-1));
@@ -358,6 +395,7 @@ public class GameplayCtrl {
 
         preprocessRows();
         preprocessCols();
+        session.reset();
         movementCount = 0;
 
         int currMove = currentMovement;
@@ -409,6 +447,8 @@ public class GameplayCtrl {
         currentMovement = movementCount;
         currentGame.insertMovement(new Movement(currentMovement, currentGame.getBoard().getValue(r, c), 0, r, c));
         currentGame.getBoard().clearCellNotations(r, c);
+        recordPosition(currentMovement, r, c, 0);
+        session.setCellValue(r, c, 0);
         if (prevValue != 0) {
             rowValuesUsed[rowIDs[r][c]] &= ~(1<<(prevValue-1));
             currentRowSums[rowIDs[r][c]] -= prevValue;
@@ -463,9 +503,9 @@ public class GameplayCtrl {
         int rowID = rowIDs[r][c];
         int colID = colIDs[r][c];
         int rowSum = currentGame.getBoard().getHorizontalSum(firstRowCoord[rowID].first, firstRowCoord[rowID].second-1);
-        ArrayList<Integer> rowCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(rowSize[rowID], rowSum, rowValuesUsed[rowID]);
+        List<Integer> rowCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(rowSize[rowID], rowSum, rowValuesUsed[rowID]);
         int colSum = currentGame.getBoard().getVerticalSum(firstColCoord[colID].first-1, firstColCoord[colID].second);
-        ArrayList<Integer> colCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(colSize[colID], colSum, colValuesUsed[colID]);
+        List<Integer> colCases = KakuroConstants.INSTANCE.getPossibleCasesWithValues(colSize[colID], colSum, colValuesUsed[colID]);
 
         StringBuilder rowResponse = new StringBuilder();
         for (int rCase : rowCases) {
@@ -520,17 +560,20 @@ public class GameplayCtrl {
         }
         hintAtMove = currentMovement;
 
-        // Check if it has solution from current board;
-        Solver solver = new Solver(currentGame.getBoard());
-        boolean hasSolution = solver.solve() != 0;
+        // Check if it has solution from current board, if we can't tell in time we assume it does
+        boolean hasSolution;
+        if (kakuro.getNumSolutions() == 1) hasSolution = kakuro.countWrongCells(currentGame.getBoard()) == 0;
+        else if (kakuro.getNumSolutions() == 0) hasSolution = false;
+        else hasSolution = session.checkSolvable(HINT_SOLVER_TIMEOUT) != SolverResult.Status.UNSOLVABLE;
 
         if (hasSolution) {
             // hint next move
             lastHint = trivialFinder();
-            if (lastHint.second == -1) lastHint = simulateHintFinder();
+            if (lastHint.second == -1) lastHint = forcedCellFinder();
         } else if (currentMovement != 0) {
             // hint number of movement where it went wrong, set lastHint.second to -1
-            int badMove = binarySearchBadMove(new Board(kakuro.getBoard()),1, currentMovement);
+            int badMove = findBadMove();
+            if (badMove == -1) totalNumOfHints--; // couldn't tell in time which move it was
             lastHint.first.first = -1;
             lastHint.first.second = badMove;
             lastHint.second = -1;
@@ -543,28 +586,51 @@ public class GameplayCtrl {
         return new Pair<>(lastHint.first,-1);
     }
 
-    private int binarySearchBadMove(Board testingBoard, int left, int right) {
-        if (right <= left) return left;
-        int mid = (left+right)/2;
+    // first move after which the board has no solution, found by bisecting the stored positions: the initial one is
+    // assumed solvable and the current one isn't. All the solves share one time limit, and if any of them can't finish
+    // -1 is returned instead of blaming a move that may be right
+    private int findBadMove() {
+        if (kakuro.getNumSolutions() == 1) return findBadMoveFromSolution();
+        CancellationToken deadline = new CancellationToken(null, BAD_MOVE_SEARCH_TIMEOUT);
+        Board known = null; // solution found by a previous solve, the positions that agree with it are solvable
+        int left = 1, right = currentMovement;
+        while (left < right) {
+            int mid = (left+right)/2;
+            PersistentBoard position = positions.get(mid);
+            SolverResult.Status status = SolverResult.Status.SOLVED;
+            if (known == null || !agreesWith(position, known)) {
+                SolverResult result = new Solver(position.toBoard(), Solver.Engine.BITBOARD).solve(0, deadline);
+                status = result.getStatus();
+                if (status == SolverResult.Status.SOLVED) known = result.getSolutions().get(0);
+            }
+            if (status == SolverResult.Status.UNDETERMINED) return -1;
+            if (status == SolverResult.Status.UNSOLVABLE) right = mid;
+            else left = mid+1;
+        }
+        return left;
+    }
+
+    private boolean agreesWith(PersistentBoard position, Board solution) {
+        for (int r = 0; r < position.getHeight(); r++) {
+            for (int c = 0; c < position.getWidth(); c++) {
+                if (position.isWhiteCell(r, c) && !position.isEmpty(r, c) && position.getValue(r, c) != solution.getValue(r, c)) return false;
+            }
+        }
+        return true;
+    }
+
+    // with a unique solution the board has no solution as soon as any cell differs from it
+    private int findBadMoveFromSolution() {
         ArrayList<Movement> moves = currentGame.getMovements();
-        for (int i = left; i <= mid; i++) {
+        int wrongCells = 0;
+        for (int i = 1; i < currentMovement; i++) {
             Movement m = moves.get(i-1);
-            if (m.getNext() == 0) testingBoard.clearCellValue(m.getCoordinates().first, m.getCoordinates().second);
-            else testingBoard.setCellValue(m.getCoordinates().first, m.getCoordinates().second, m.getNext());
-        }
-        Solver s = new Solver(testingBoard);
-        int response = s.solve();
-        if (response == 0) { //No solution
-            Board newTestingBoard = new Board(kakuro.getBoard());
-            for (int i = 1; i < left; i++) {
-                Movement m = moves.get(i-1);
-                if (m.getNext() == 0) newTestingBoard.clearCellValue(m.getCoordinates().first, m.getCoordinates().second);
-                else newTestingBoard.setCellValue(m.getCoordinates().first, m.getCoordinates().second, m.getNext());
-            }
-            return binarySearchBadMove(newTestingBoard, left, mid);
-        } else {
-            return binarySearchBadMove(testingBoard, mid+1, right);
+            int expected = kakuro.getSolutionValue(m.getCoordinates().first, m.getCoordinates().second);
+            if (m.getPrevious() != 0 && m.getPrevious() != expected) wrongCells--;
+            if (m.getNext() != 0 && m.getNext() != expected) wrongCells++;
+            if (wrongCells > 0) return i;
         }
+        return currentMovement;
     }
 
     private Pair<Pair<Integer, Integer>, Integer> trivialFinder() {
@@ -589,154 +655,12 @@ public class GameplayCtrl {
         return new Pair<>(new Pair<>(-1, -1),-1);
     }
 
-    private Pair<Pair<Integer, Integer>, Integer> simulateHintFinder() {
-        Board testingBoard = new Board(kakuro.getBoard());
-        int rows = testingBoard.getHeight();
-        int columns = testingBoard.getWidth();
-        // all white cells to 0 and full possibilities
-        ArrayList<Pair<Pair<Integer, Integer>, Integer>> forcedValues = new ArrayList<>();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < columns; c++) {
-                if (testingBoard.isBlackCell(r, c)) continue;
-                if (!currentGame.getBoard().isEmpty(r, c)) forcedValues.add(new Pair<>(new Pair<>(r, c), currentGame.getBoard().getValue(r, c)));
-                testingBoard.setCell(new WhiteCell(true), r, c);
-            }
-        }
-        SwappingCellQueue testingCellQueue = new SwappingCellQueue(testingBoard);
-
-        int[] testingRowSum = new int[rowLineSize];
-        int[] testingColSum = new int[colLineSize];
-
-        int[] testingRowValuesUsed = new int[rowLineSize];
-        int[] testingColValuesUsed = new int[colLineSize];
-
-        // prepare new row dataStructures
-        for (int r = 0; r < rowLineSize; r++) {
-            testingRowSum[r] = 0;
-            testingRowValuesUsed[r] = 0;
-        }
-        // prepare new col dataStructures
-        for (int c = 0; c < colLineSize; c++) {
-            testingColSum[c] = 0;
-            testingColValuesUsed[c] = 0;
-        }
-
-        KakuroFunctions testingFunctions = new KakuroFunctions(new KakuroFunctions.KakuroFunctionsMaster() {
-            @Override
-            public int getRowID(int r, int c) { return rowIDs[r][c]; }
-
-            @Override
-            public int getColID(int r, int c) { return colIDs[r][c]; }
-
-            @Override
-            public int getRowLineSize(int r, int c) { return rowLineSize; }
-
-            @Override
-            public int getColLineSize(int r, int c) { return colLineSize; }
-
-            @Override
-            public int getRowSum(int r, int c) { return testingRowSum[rowIDs[r][c]]; }
-
-            @Override
-            public int getColSum(int r, int c) { return testingColSum[colIDs[r][c]]; }
-
-            @Override
-            public void setRowSum(int r, int c, int value) { testingRowSum[rowIDs[r][c]] = value; }
-
-            @Override
-            public void setColSum(int r, int c, int value) { testingColSum[colIDs[r][c]] = value; }
-
-            @Override
-            public int getRowSize(int r, int c) { return rowSize[rowIDs[r][c]]; }
-
-            @Override
-            public int getColSize(int r, int c) { return colSize[colIDs[r][c]]; }
-
-            @Override
-            public int getRowValuesUsed(int r, int c) { return testingRowValuesUsed[rowIDs[r][c]]; }
-
-            @Override
-            public int getColValuesUsed(int r, int c) { return testingColValuesUsed[colIDs[r][c]]; }
-
-            @Override
-            public void setRowValuesUsed(int r, int c, int values) { testingRowValuesUsed[rowIDs[r][c]] = values; }
-
-            @Override
-            public void setColValuesUsed(int r, int c, int values) { testingColValuesUsed[colIDs[r][c]] = values; }
-
-            @Override
-            public Pair<Integer, Integer> getFirstRowCoord(int r, int c) { return firstRowCoord[rowIDs[r][c]]; }
-
-            @Override
-            public Pair<Integer, Integer> getFirstColCoord(int r, int c) { return firstColCoord[colIDs[r][c]]; }
-
-            @Override
-            public Board getWorkingBoard() { return testingBoard; }
-
-            @Override
-            public SwappingCellQueue getNotationsQueue() { return testingCellQueue; }
-        });
-
-        final Pair<Integer, Integer> currentAssignation = new Pair<>(-1, -1);
-        final Pair<Pair<Integer, Integer>, Integer> finalHint = new Pair<>(new Pair<>(-1, -1), -1);
-
-        testingFunctions.setAssignationEventListener(new KakuroFunctions.AssignationEventListener() {
-            @Override
-            public void onCellValueAssignation(Pair<Pair<Integer, Integer>, Integer> coord_value) {
-                if (!currentGame.getBoard().isEmpty(coord_value.first.first, coord_value.first.second)) return;
-                finalHint.first.first = coord_value.first.first;
-                finalHint.first.second = coord_value.first.second;
-                finalHint.second = coord_value.second;
-                testingFunctions.abortOperation();
-            }
-
-            @Override
-            public void onCellNotationsChanged(Pair<Pair<Integer, Integer>, Pair<Integer, Integer>> coord_prev_post) {}
-            @Override
-            public void onRowSumAssignation(Pair<Pair<Integer, Integer>, Integer> coord_value) {}
-            @Override
-            public void onColSumAssignation(Pair<Pair<Integer, Integer>, Integer> coord_value) {}
-            @Override
-            public void onCellNoValuesLeft(Pair<Integer, Integer> coord) {}
-            @Override
-            public void onRowNoValuesLeft(Pair<Integer, Integer> coord) {}
-            @Override
-            public void onColNoValuesLeft(Pair<Integer, Integer> coord) {}
-        });
-
-        for (Pair<Pair<Integer, Integer>, Integer> f : forcedValues) {
-            currentAssignation.first = f.first.first;
-            currentAssignation.second = f.first.second;
-            testingFunctions.cellValueAssignation(f.first.first, f.first.second, f.second);
-            if (finalHint.second != -1) return finalHint;
-        }
-
-        for (int rowID = 0; rowID < rowLineSize; rowID++) {
-            int r = firstRowCoord[rowID].first;
-            int c = firstRowCoord[rowID].second-1;
-            currentAssignation.first = r;
-            currentAssignation.second = c+1;
-            testingFunctions.rowSumAssignation(r, c+1, testingBoard.getHorizontalSum(r, c));
-            if (finalHint.second != -1) return finalHint;
-        }
-
+    private Pair<Pair<Integer, Integer>, Integer> forcedCellFinder() {
+        ArrayList<Pair<Pair<Integer, Integer>, Integer>> forced = session.getForcedCells();
+        // if it is empty it looks like there is no hint to be given
+        if (forced.isEmpty()) return new Pair<>(new Pair<>(-1, -1), -1);
         // Make it appear more randomly distributed just for user experience
-        Random random = new Random(currentMovement);
-        ArrayList<Integer> distributedColIDs = new ArrayList<>();
-        for (int colID = 0; colID < colLineSize; colID++) distributedColIDs.add(colID);
-        Collections.shuffle(distributedColIDs, random);
-        for (int idx = 0; idx < colLineSize; idx++) {
-            int colID = distributedColIDs.get(idx);
-            int r = firstColCoord[colID].first-1;
-            int c = firstColCoord[colID].second;
-            currentAssignation.first = r+1;
-            currentAssignation.second = c;
-            testingFunctions.colSumAssignation(r+1, c, testingBoard.getVerticalSum(r, c));
-            if (finalHint.second != -1) return finalHint;
-        }
-
-        // if it reaches this point it looks like there is no hint to be given
-        return new Pair<>(new Pair<>(-1, -1), -1);
+        return forced.get(new Random(currentMovement).nextInt(forced.size()));
     }
 
     /*public Pair<Boolean, String> exportKakuro(String file) {
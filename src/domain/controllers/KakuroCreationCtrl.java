@@ -1,7 +1,7 @@
 package src.domain.controllers;
 
 import src.domain.algorithms.Generator;
-import src.domain.algorithms.Solver;
+import src.domain.algorithms.UniquenessChecker;
 import src.domain.algorithms.helpers.KakuroConstants;
 import src.domain.algorithms.helpers.KakuroFunctions;
 import src.domain.algorithms.helpers.SwappingCellQueue;
@@ -13,6 +13,7 @@ import src.utils.Pair;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeSet;
 
 public class KakuroCreationCtrl {
@@ -31,6 +32,9 @@ public class KakuroCreationCtrl {
     private static final String NAME_INVALID = "Oh no! Someone is already using this name... Please come up with a different one and try again, you're very close to publishing your creation!";
     private static final String KAKURO_VALIDATION_SUCCESSFUL = "The kakuro you created has been successfully validated! It seems to have ";
     private static final String KAKURO_VALIDATION_FAILED = "Oopsie... Seems like the kakuro you created has no solutions! In order to publish it please change it so it has at least one solution.";
+    private static final String KAKURO_VALIDATION_TIMEOUT = "Hmm... This kakuro is taking me too long to validate. Try adding some more values or sums so I can narrow it down, and ask me again.";
+
+    private static final long VALIDATION_SOLVER_TIMEOUT = 10000; // max milliseconds spent validating a kakuro
 
     private CreatorScreenCtrl viewCtrl;
     private final KakuroCtrl kakuroCtrl;
@@ -61,6 +65,8 @@ public class KakuroCreationCtrl {
 
     private boolean invalidSizes;
     private boolean validatedKakuro;
+    private UniquenessChecker.Result validationResult; // result of the check that validated the kakuro, kept for publishing it
+    private Board validationSolution;                  // solution found by that check, null if it didn't find any
 
     private int selectedColorCode;
 
@@ -626,28 +632,23 @@ public class KakuroCreationCtrl {
             firstCrossCoord = firstColCoord[colID].first;
         }
 
-        ArrayList<Pair<Integer, Integer>> possibleCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(lineSize, valUsed);
+        List<Pair<Integer, Integer>> possibleCases = KakuroConstants.INSTANCE.getPossibleCasesUnspecifiedSum(lineSize, valUsed);
         TreeSet<Integer> allSums = new TreeSet<>();
 
+        int[] lineMasks = new int[lineSize];
+        for (int it = 0; it < lineSize; it++) {
+            int row = isRow ? r : firstCrossCoord+it, col = isRow ? firstCrossCoord+it : c;
+            if (workingBoard.isEmpty(row, col)) lineMasks[it] = workingBoard.getCellNotations(row, col);
+            else lineMasks[it] = 1 << (workingBoard.getValue(row, col)-1);
+        }
+
         int lastValueAdded = -1;
         for (int i = possibleCases.size()-1; i >= 0 ; i--) {
             while (i >= 0 && possibleCases.get(i).first == lastValueAdded) i--;
             if (i < 0) break;
 
             int pCase = possibleCases.get(i).second;
-            ArrayList<Integer> p = new ArrayList<>();
-            for (int j = 0; j < 9; j++) if ((pCase & (1<<j)) != 0) p.add(j+1);
-            ArrayList<WhiteCell> containingCells = new ArrayList<>();
-            for (int it = firstCrossCoord; it < firstCrossCoord+lineSize; it++) {
-                Pair<Integer, Integer> coord = isRow ? new Pair<>(r, it) : new Pair<>(it, c);
-                for (int digit : p) {
-                    if ((!workingBoard.isEmpty(coord.first, coord.second) && workingBoard.getValue(coord.first, coord.second) == digit) || workingBoard.cellHasNotation(coord.first, coord.second, digit)) {
-                        containingCells.add((WhiteCell)workingBoard.getCell(coord.first, coord.second));
-                        break;
-                    }
-                }
-            }
-            if (assigFunctions.isCombinationPossible(p, containingCells)) {
+            if (KakuroFunctions.isCombinationPossible(pCase, lineMasks, lineSize)) {
                 lastValueAdded = possibleCases.get(i).first;
                 allSums.add(lastValueAdded);
             }
@@ -869,10 +870,10 @@ public class KakuroCreationCtrl {
         Generator generator = new Generator(toFill, true);
         generator.generateFromInitialBoard();
 
-        Solver solver = new Solver(generator.getGeneratedBoard());
-        int numSolutions = solver.solve();
+        UniquenessChecker checker = new UniquenessChecker(generator.getGeneratedBoard(), generator.getSolution());
+        UniquenessChecker.Result result = checker.check(VALIDATION_SOLVER_TIMEOUT, null);
 
-        if (numSolutions == 0) {
+        if (result == UniquenessChecker.Result.UNSOLVABLE || result == UniquenessChecker.Result.UNDETERMINED) { // unsolvable or too slow to check, try again
             if (numTry < 10) fillKakuro();
             else sendMessageToPresentation(BOARD_FILL_FAILED);
             return;
@@ -890,10 +891,12 @@ public class KakuroCreationCtrl {
         }
 
         validatedKakuro = true;
+        validationResult = result;
+        validationSolution = generator.getSolution();
         viewCtrl.setKakuroStateButtonPublish();
 
         recomputeBoardStructures();
-        sendMessageToPresentation(BOARD_FILLED + (numSolutions == 1 ? "unique solution!" : "more than one solution... Oh well :)"));
+        sendMessageToPresentation(BOARD_FILLED + (result == UniquenessChecker.Result.UNIQUE ? "unique solution!" : "more than one solution... Oh well :)"));
     }
 
     public Pair<Boolean, String> exportKakuro(String file) {
@@ -946,11 +949,16 @@ public class KakuroCreationCtrl {
 
     public void publishKakuro(String kakuroName) {
         if (!validatedKakuro) {
-            Solver solver = new Solver(workingBoard);
-            int numSol = solver.solve();
-            if (numSol > 0) {
+            UniquenessChecker checker = new UniquenessChecker(workingBoard);
+            UniquenessChecker.Result result = checker.check(VALIDATION_SOLVER_TIMEOUT, null);
+            if (result == UniquenessChecker.Result.UNDETERMINED) {
+                sendMessageToPresentation(KAKURO_VALIDATION_TIMEOUT);
+                viewCtrl.setKakuroStateButtonValidate();
+            } else if (result != UniquenessChecker.Result.UNSOLVABLE) {
                 validatedKakuro = true;
-                String sufix = numSol == 1 ? "only one solution!" : "multiple solutions.";
+                validationResult = result;
+                validationSolution = checker.getSolution();
+                String sufix = result == UniquenessChecker.Result.UNIQUE ? "only one solution!" : "multiple solutions.";
                 sendMessageToPresentation(KAKURO_VALIDATION_SUCCESSFUL + sufix);
                 viewCtrl.setKakuroStateButtonPublish();
             } else {
@@ -978,7 +986,8 @@ public class KakuroCreationCtrl {
         }
 
         try {
-            kakuroCtrl.saveKakuro(new Kakuro(kakuroName, Difficulty.USER_MADE, toPublish, user, "", selectedColorCode));
+            // the board was already checked when it was validated, so the result of that check is saved with it
+            kakuroCtrl.saveKakuro(new Kakuro(kakuroName, Difficulty.USER_MADE, toPublish, user, "", selectedColorCode), validationResult, validationSolution);
             viewCtrl.onKakuroPublished();
         } catch (Exception e) {
             sendMessageToPresentation(NAME_INVALID);
@@ -2,6 +2,7 @@ package src.domain.controllers;
 
 import src.domain.algorithms.Generator;
 import src.domain.algorithms.Solver;
+import src.domain.algorithms.UniquenessChecker;
 import src.domain.entities.*;
 import src.presentation.utils.RGBUtils;
 import src.repository.GameRepository;
@@ -12,6 +13,8 @@ import java.io.IOException;
 import java.util.*;
 
 public class KakuroCtrl {
+    private static final long SOLUTIONS_CHECK_TIMEOUT = 10000; // max milliseconds spent checking the solutions of a kakuro being saved
+
     KakuroRepository kakuroRepository;
     UserRepository userRepository;
     GameRepository gameRepository;
@@ -89,9 +92,37 @@ public class KakuroCtrl {
     public void saveKakuro(Kakuro kakuro) throws Exception {
         validateKakuroName(kakuro.getName());
 
+        cacheSolutions(kakuro, null);
+        kakuroRepository.saveKakuro(kakuro);
+    }
+
+    // Saves a kakuro whose board has already been checked, so the result of that check is kept instead of checking it again
+    public void saveKakuro(Kakuro kakuro, UniquenessChecker.Result result, Board solution) throws Exception {
+        validateKakuroName(kakuro.getName());
+
+        setSolutions(kakuro, result, solution);
         kakuroRepository.saveKakuro(kakuro);
     }
 
+    // Kakuros don't change once saved, so their solutions are computed only once and persisted with them. The check is
+    // bounded so that a hard board can't block the save: if it takes too long the number of solutions is left unknown
+    private void cacheSolutions(Kakuro kakuro, Board knownSolution) {
+        if (kakuro.getNumSolutions() != Kakuro.UNKNOWN_SOLUTIONS) return;
+        UniquenessChecker checker = new UniquenessChecker(kakuro.getBoard(), knownSolution);
+        UniquenessChecker.Result result = checker.check(SOLUTIONS_CHECK_TIMEOUT, null);
+        setSolutions(kakuro, result, checker.getSolution());
+    }
+
+    private void setSolutions(Kakuro kakuro, UniquenessChecker.Result result, Board solution) {
+        if (result == null || kakuro.getNumSolutions() != Kakuro.UNKNOWN_SOLUTIONS) return;
+        switch (result) {
+            case UNIQUE:     kakuro.setSolution(1, solution); break;
+            case MULTIPLE:   kakuro.setSolution(2, solution); break;
+            case UNSOLVABLE: kakuro.setSolution(0, null);     break;
+            default: break; // UNDETERMINED, the solutions stay unknown
+        }
+    }
+
     public Kakuro saveKakuroFromFile(User user, String filePath, String kakuroname) throws Exception {
         validateKakuroName(kakuroname);
 
@@ -101,6 +132,7 @@ public class KakuroCtrl {
         if (solver.getSolutions().size() <= 0) throw new Exception("The provided Kakuro has no solution");
 
         Kakuro kakuro = new Kakuro(kakuroname, Difficulty.USER_MADE, board, user, "", RGBUtils.rndColorCode(board.hashCode()));
+        kakuro.setSolutions(solver.getSolutions());
         kakuroRepository.saveKakuro(kakuro);
 
         return kakuro;
@@ -119,6 +151,7 @@ public class KakuroCtrl {
         long seedValue = Long.parseLong(parameters[4]);
 
         Kakuro kakuro = new Kakuro(kakuroname, difficulty, board, user, generator.getEncodedSeed(), RGBUtils.rndColorCode(seedValue));
+        cacheSolutions(kakuro, generator.getSolution());
         kakuroRepository.saveKakuro(kakuro);
 
         Map<String, Object> result = new HashMap<>();
@@ -171,6 +204,7 @@ public class KakuroCtrl {
         Board board = generator.getGeneratedBoard();
 
         Kakuro kakuro = new Kakuro(kakuroname, difficulty, board, user, generator.getEncodedSeed(), RGBUtils.rndColorCode(seedValue));
+        cacheSolutions(kakuro, generator.getSolution());
         kakuroRepository.saveKakuro(kakuro);
 
         Map<String, Object> result = new HashMap<>();
@@ -0,0 +1,347 @@
+package src.domain.entities;
+
+import java.util.UUID;
+
+/**
+ * Class that represents a Kakuro board in compact form.
+ * Offers the same operations as Board, but instead of one Cell object per cell it keeps the kind, value, notations
+ * and sums of all cells in flat arrays in row-major order. It takes a few bytes per cell and copying it is just
+ * copying the arrays, so it is meant for boards that are copied often or kept in large numbers.
+ *
+ * @version 0.1.0 (17/11/2020)
+ */
+
+public class CompactBoard {
+    private static final byte NO_CELL = 0;      // position without a cell, as in a Board whose cells haven't been set
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    private final UUID id;
+    private final int width;
+    private final int height;
+    private final byte[] kinds;                 // NO_CELL, BLACK or WHITE
+    private final byte[] values;                // value of white cells, 0 if empty
+    private final short[] notations;            // notations of white cells
+    private final byte[] sums;                  // vertical and horizontal sum of black cells, at 2*pos and 2*pos+1
+
+    /**
+     * Creates a board with dimensions width x height without any cell.
+     * @param width  The width of the board
+     * @param height The height of the board
+     */
+    public CompactBoard(int width, int height) {
+        this.id = UUID.randomUUID();
+        this.width = width;
+        this.height = height;
+        kinds = new byte[width * height];
+        values = new byte[width * height];
+        notations = new short[width * height];
+        sums = new byte[2 * width * height];
+    }
+
+    /**
+     * Copy-constructor
+     * @param b Board to copy
+     */
+    public CompactBoard(CompactBoard b) {
+        this.id = UUID.randomUUID();
+        width = b.width;
+        height = b.height;
+        kinds = b.kinds.clone();
+        values = b.values.clone();
+        notations = b.notations.clone();
+        sums = b.sums.clone();
+    }
+
+    /**
+     * Constructor.
+     * Initializes a compact board with the same id and cells as the given board
+     * @param b Board to convert
+     */
+    public CompactBoard(Board b) {
+        id = b.getId();
+        width = b.getWidth();
+        height = b.getHeight();
+        kinds = new byte[width * height];
+        values = new byte[width * height];
+        notations = new short[width * height];
+        sums = new byte[2 * width * height];
+
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int pos = i * width + j;
+                if (b.isBlackCell(i, j)) {
+                    kinds[pos] = BLACK;
+                    sums[2*pos] = (byte)b.getVerticalSum(i, j);
+                    sums[2*pos+1] = (byte)b.getHorizontalSum(i, j);
+                } else if (b.isWhiteCell(i, j)) {
+                    kinds[pos] = WHITE;
+                    values[pos] = (byte)b.getValue(i, j);
+                    notations[pos] = (short)b.getCellNotations(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts this board to a Board with the same id and cells
+     * @return a new Board
+     */
+    public Board toBoard() {
+        Board b = new Board(id, width, height);
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int pos = i * width + j;
+                if (kinds[pos] == BLACK) b.setCell(new BlackCell(sums[2*pos], sums[2*pos+1]), i, j);
+                else if (kinds[pos] == WHITE) b.setCell(new WhiteCell(i, j, values[pos], notations[pos]), i, j);
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Get id of the board
+     * @return unique identifier of the board
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Get width of the board
+     * @return the width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get height of the board
+     * @return the height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Set a white cell of the board
+     * @param row       Row of the cell to set
+     * @param col       Column of the cell to set
+     * @param value     Value of the cell, 0 if empty
+     * @param notations Notations of the cell
+     */
+    public void setWhiteCell(int row, int col, int value, int notations) {
+        int pos = position(row, col);
+        kinds[pos] = WHITE;
+        values[pos] = (byte)value;
+        this.notations[pos] = (short)notations;
+    }
+
+    /**
+     * Set a black cell of the board
+     * @param row   Row of the cell to set
+     * @param col   Column of the cell to set
+     * @param vert  Vertical sum indicated by the cell, 0 if none
+     * @param horiz Horizontal sum indicated by the cell, 0 if none
+     */
+    public void setBlackCell(int row, int col, int vert, int horiz) {
+        int pos = position(row, col);
+        kinds[pos] = BLACK;
+        sums[2*pos] = (byte)vert;
+        sums[2*pos+1] = (byte)horiz;
+    }
+
+    /**
+     * Set value of cell
+     * @param row   Row of the cell to set the value
+     * @param col   Column of the cell to set the value
+     * @param value Value to set this cell to
+     */
+    public void setCellValue(int row, int col, int value) {
+        int pos = whitePosition(row, col, "setValue");
+        if (value > 9 || value < 1)
+            throw new IndexOutOfBoundsException("Value is out of range");
+        values[pos] = (byte)value;
+    }
+
+    /**
+     * Get value of a (white) cell
+     * @param row Row of the cell to get the value
+     * @param col Column of the cell to get the value
+     * @return The value of the cell at (row, col)
+     */
+    public int getValue(int row, int col) {
+        return values[whitePosition(row, col, "getValue")];
+    }
+
+    /**
+     * Set notations for the given cell
+     * @param row     Row of the cell to set the notations
+     * @param col     Column of the cell to set the notations
+     * @param value   Value of the notation to set
+     * @param checked Whether this notation will be set or unset
+     */
+    public void setCellNotation(int row, int col, int value, boolean checked) {
+        int pos = whitePosition(row, col, "setNotation");
+        if (value > 9 || value < 1)
+            throw new IllegalArgumentException("Value is out of range");
+        if (checked) notations[pos] |= 1 << (value - 1);
+        else notations[pos] &= ~(1 << (value - 1));
+    }
+
+    /**
+     * Get cell notations
+     * @param row Row of the cell from which to get the notations
+     * @param col Column of the cell from which to get the notations
+     * @return the notations of the requested cell
+     */
+    public int getCellNotations(int row, int col) {
+        return notations[whitePosition(row, col, "getNotations")];
+    }
+
+    /**
+     * Check whether a cell has a checked notation or not
+     * @param row      Row of the cell to check
+     * @param col      Column of the cell to check
+     * @param notation Notation to check (in the range [1, 9])
+     * @return whether this notation is set or unset for the requested cell
+     */
+    public boolean cellHasNotation(int row, int col, int notation) {
+        int pos = whitePosition(row, col, "isNotationChecked");
+        if (notation > 9 || notation < 1)
+            throw new IllegalArgumentException("Value is out of range");
+        return (notations[pos] & (1 << (notation - 1))) != 0;
+    }
+
+    /**
+     * Get number of notations on a given cell
+     * @param row Row of the cell
+     * @param col Column of the cell
+     * @return the amount of notations set on the given cell (in the range [0, 9])
+     */
+    public int getCellNotationSize(int row, int col) {
+        return Integer.bitCount(notations[whitePosition(row, col, "getNotationSize")]);
+    }
+
+    /**
+     * Clear all cell notations for a given cell
+     * @param row Row of the cell to clear
+     * @param col Column of the cell to clear
+     */
+    public void clearCellNotations(int row, int col) {
+        notations[whitePosition(row, col, "clearAllNotations")] = 0;
+    }
+
+    /**
+     * Get horizontal sum of a (black) cell
+     * @param row Row of the cell to get the horizontal sum
+     * @param col Column of the cell to get the horizontal sum
+     * @return The horizontal sum indicated by the cell at (row, col)
+     */
+    public int getHorizontalSum(int row, int col) {
+        return sums[2*blackPosition(row, col, "getHorizontalSum")+1];
+    }
+
+    /**
+     * Get vertical sum of a (black) cell
+     * @param row Row of the cell to get the vertical sum
+     * @param col Column of the cell to get the vertical sum
+     * @return The vertical sum indicated by the cell at (row, col)
+     */
+    public int getVerticalSum(int row, int col) {
+        return sums[2*blackPosition(row, col, "getVerticalSum")];
+    }
+
+    /**
+     * Clear the value of a (white) cell
+     * @param row Row of the cell to clear
+     * @param col Column of the cell to clear
+     */
+    public void clearCellValue(int row, int col) {
+        values[whitePosition(row, col, "clearValue")] = 0;
+    }
+
+    /**
+     * Check whether a cell is empty or no
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is empty, `false` otherwise
+     */
+    public boolean isEmpty(int row, int col) {
+        int pos = position(row, col);
+        return kinds[pos] == WHITE && values[pos] == 0;
+    }
+
+    /**
+     * Check whether a cell is black or not
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is black, `false` otherwise
+     */
+    public boolean isBlackCell(int row, int col) {
+        return kinds[position(row, col)] == BLACK;
+    }
+
+    /**
+     * Check whether a cell is white or not
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is white, `false` otherwise
+     */
+    public boolean isWhiteCell(int row, int col) {
+        return kinds[position(row, col)] == WHITE;
+    }
+
+    /**
+     * Converts a board to string
+     * @return A string that represents this board, the same as the one of the equivalent Board
+     */
+    public String toString() {
+        return height + "," + width + "\n" + cellsToString();
+    }
+
+    /**
+     * Converts a board's cells to string
+     * @return A string that represents this board's cells
+     */
+    public String cellsToString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < height; i++) {
+            if (i > 0) sb.append('\n');
+            for (int j = 0; j < width; j++) {
+                if (j > 0) sb.append(',');
+                int pos = i * width + j;
+                if (kinds[pos] == WHITE) {
+                    if (values[pos] == 0) sb.append('?');
+                    else sb.append(values[pos]);
+                } else if (kinds[pos] == BLACK) {
+                    if (sums[2*pos] == 0 && sums[2*pos+1] == 0) sb.append('*');
+                    if (sums[2*pos] > 0) sb.append('C').append(sums[2*pos]);
+                    if (sums[2*pos+1] > 0) sb.append('F').append(sums[2*pos+1]);
+                } else {
+                    sb.append('x');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private int position(int row, int col) {
+        if (row >= height || col >= width || row < 0 || col < 0)
+            throw new IndexOutOfBoundsException("Invalid row/column");
+        return row * width + col;
+    }
+
+    // same errors as calling a method of the wrong kind of Cell
+    private int whitePosition(int row, int col, String method) {
+        int pos = position(row, col);
+        if (kinds[pos] != WHITE) throw new RuntimeException("Invalid call to " + method + "()");
+        return pos;
+    }
+
+    private int blackPosition(int row, int col, String method) {
+        int pos = position(row, col);
+        if (kinds[pos] != BLACK) throw new RuntimeException("Invalid call to " + method + "()");
+        return pos;
+    }
+}
@@ -1,8 +1,11 @@
 package src.domain.entities;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 
 public class Kakuro {
+    public static final int UNKNOWN_SOLUTIONS = -1;  // number of solutions of the Kakuros saved before they were cached
+
     private final String seed;
     private final String name;
     private final User createdBy;
@@ -11,6 +14,11 @@ public class Kakuro {
     private final Board board;
     private final int colorCode;
 
+    // Solution of the board, computed once when the Kakuro is saved. It is persisted as the values of the white cells
+    // in row-major order (see getEncodedSolution) and only decoded into solutionValues when it is first needed.
+    private int numSolutions = UNKNOWN_SOLUTIONS; // 0 if it has no solution, 2 if it has more than one
+    private String encodedSolution;             // null unless numSolutions is at least 1
+    private int[] solutionValues;               // value of each cell of the solution in row-major order, 0 if black
 
     public Kakuro (String name, Difficulty difficulty, Board board, String seed, int colorCode) {
         this(name, new Timestamp(System.currentTimeMillis()), difficulty, board, null, seed, colorCode);
@@ -31,6 +39,13 @@ public class Kakuro {
         this.colorCode = colorCode;
     }
 
+    // Creates Kakuro with all fields defined, including its solution as given by getEncodedSolution()
+    public Kakuro (String name, Timestamp createdAt, Difficulty difficulty, Board board, User createdBy, String seed, int colorCode, int numSolutions, String encodedSolution) {
+        this(name, createdAt, difficulty, board, createdBy, seed, colorCode);
+        this.numSolutions = numSolutions;
+        this.encodedSolution = numSolutions > 0 ? encodedSolution : null;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -63,4 +78,86 @@ public class Kakuro {
     }
 
     public int getColorCode() { return colorCode; }
+
+    /**
+     * Set the solutions of the board, as found by the Solver. It can only be set once, Kakuros don't change once saved
+     * @param solutions Solutions of the board, at most 2 are needed
+     */
+    public void setSolutions(ArrayList<Board> solutions) {
+        setSolution(solutions.size(), solutions.isEmpty() ? null : solutions.get(0));
+    }
+
+    /**
+     * Set the number of solutions of the board and one of them, when they are already known (for instance from a
+     * UniquenessChecker or a Generator). It can only be set once, Kakuros don't change once saved
+     * @param numSolutions Number of solutions of the board, any number greater than 2 is kept as 2
+     * @param solution     A solution of the board, ignored if numSolutions is 0
+     */
+    public void setSolution(int numSolutions, Board solution) {
+        if (this.numSolutions != UNKNOWN_SOLUTIONS) throw new IllegalStateException("The solution of a Kakuro can only be set once");
+        if (numSolutions < 0) throw new IllegalArgumentException("The number of solutions can't be negative");
+        if (numSolutions > 0 && solution == null) throw new IllegalArgumentException("A solution is needed");
+        this.numSolutions = Math.min(numSolutions, 2);
+        if (numSolutions == 0) return;
+
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c)) sb.append(solution.getValue(r, c));
+            }
+        }
+        encodedSolution = sb.toString();
+    }
+
+    /**
+     * Get the number of solutions of the board
+     * @return 0 if it has no solution, 1 if it has a unique solution, 2 if it has more than one, UNKNOWN_SOLUTIONS
+     * if they haven't been computed
+     */
+    public int getNumSolutions() {
+        return numSolutions;
+    }
+
+    /**
+     * Get the solution in the form it is persisted
+     * @return the values of the white cells of the solution in row-major order, null if there is no solution
+     */
+    public String getEncodedSolution() {
+        return encodedSolution;
+    }
+
+    /**
+     * Get the value of a cell in the solution. If the board has more than one solution this is one of them
+     * @param r Row of the cell
+     * @param c Column of the cell
+     * @return the value of the cell, 0 if it is black or the solution isn't known
+     */
+    public int getSolutionValue(int r, int c) {
+        if (encodedSolution == null) return 0;
+        if (solutionValues == null) {
+            int[] values = new int[board.getHeight() * board.getWidth()];
+            int pos = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (board.isWhiteCell(i / board.getWidth(), i % board.getWidth())) values[i] = encodedSolution.charAt(pos++) - '0';
+            }
+            solutionValues = values;
+        }
+        return solutionValues[r * board.getWidth() + c];
+    }
+
+    /**
+     * Check whether the values of a board agree with the unique solution
+     * @param current Board with some of the cells of the Kakuro filled in
+     * @return the number of cells whose value is not the one of the solution
+     */
+    public int countWrongCells(Board current) {
+        if (numSolutions != 1) throw new IllegalStateException("Only Kakuros with a unique known solution can be checked");
+        int wrong = 0;
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (current.isWhiteCell(r, c) && !current.isEmpty(r, c) && current.getValue(r, c) != getSolutionValue(r, c)) wrong++;
+            }
+        }
+        return wrong;
+    }
 }
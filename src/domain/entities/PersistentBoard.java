@@ -0,0 +1,350 @@
+package src.domain.entities;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that represents a version of a Kakuro board.
+ * The layout of the board (which cells are black and their sums) can't change and is shared by all versions, while
+ * the values and notations of the white cells are kept by rows. Taking a snapshot doesn't copy anything: both boards
+ * share all the rows, and each one copies a row the first time it modifies it after the snapshot. This way many
+ * versions of the same board (one per move of a game, for example) only take the memory of the rows that differ.
+ *
+ * @version 0.1.0 (17/11/2020)
+ */
+
+public class PersistentBoard {
+    private static final byte NO_CELL = 0;      // position without a cell, as in a Board whose cells haven't been set
+    private static final byte BLACK = 1;
+    private static final byte WHITE = 2;
+
+    private static final AtomicInteger nextGeneration = new AtomicInteger();
+
+    private final UUID id;
+    private final int width;
+    private final int height;
+    private final byte[] kinds;                 // NO_CELL, BLACK or WHITE, shared by all versions
+    private final byte[] sums;                  // vertical and horizontal sum of black cells at 2*pos and 2*pos+1, shared
+
+    private byte[][] values;                    // value of each white cell by rows, 0 if empty
+    private short[][] notations;                // notations of each white cell by rows
+    private int[] rowOwner;                     // generation of the version that may modify each row in place
+    private boolean sharedRows;                 // whether values, notations and rowOwner are shared with a snapshot
+    private int generation;                     // unique among all versions
+
+    /**
+     * Constructor.
+     * Initializes a board with the same id and cells as the given board
+     * @param b Board to convert
+     */
+    public PersistentBoard(Board b) {
+        id = b.getId();
+        width = b.getWidth();
+        height = b.getHeight();
+        kinds = new byte[width * height];
+        sums = new byte[2 * width * height];
+        values = new byte[height][width];
+        notations = new short[height][width];
+        rowOwner = new int[height];
+        generation = nextGeneration.incrementAndGet();
+        sharedRows = false;
+
+        for (int i = 0; i < height; i++) {
+            rowOwner[i] = generation;
+            for (int j = 0; j < width; j++) {
+                int pos = i * width + j;
+                if (b.isBlackCell(i, j)) {
+                    kinds[pos] = BLACK;
+                    sums[2*pos] = (byte)b.getVerticalSum(i, j);
+                    sums[2*pos+1] = (byte)b.getHorizontalSum(i, j);
+                } else if (b.isWhiteCell(i, j)) {
+                    kinds[pos] = WHITE;
+                    values[i][j] = (byte)b.getValue(i, j);
+                    notations[i][j] = (short)b.getCellNotations(i, j);
+                }
+            }
+        }
+    }
+
+    private PersistentBoard(PersistentBoard b) {
+        id = b.id;
+        width = b.width;
+        height = b.height;
+        kinds = b.kinds;
+        sums = b.sums;
+        values = b.values;
+        notations = b.notations;
+        rowOwner = b.rowOwner;
+        generation = nextGeneration.incrementAndGet();
+        sharedRows = true;
+    }
+
+    /**
+     * Takes a snapshot of this board in constant time. Modifying the snapshot doesn't modify this board and the
+     * other way around.
+     * @return a new version of this board with the same id and cells
+     */
+    public PersistentBoard snapshot() {
+        // from now on, none of the rows can be modified in place by any of the two versions
+        generation = nextGeneration.incrementAndGet();
+        sharedRows = true;
+        return new PersistentBoard(this);
+    }
+
+    /**
+     * Converts this board to a Board with the same id and cells
+     * @return a new Board
+     */
+    public Board toBoard() {
+        Board b = new Board(id, width, height);
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int pos = i * width + j;
+                if (kinds[pos] == BLACK) b.setCell(new BlackCell(sums[2*pos], sums[2*pos+1]), i, j);
+                else if (kinds[pos] == WHITE) b.setCell(new WhiteCell(i, j, values[i][j], notations[i][j]), i, j);
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Get id of the board
+     * @return unique identifier of the board, the same for all its snapshots
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Get width of the board
+     * @return the width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get height of the board
+     * @return the height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Set value of cell
+     * @param row   Row of the cell to set the value
+     * @param col   Column of the cell to set the value
+     * @param value Value to set this cell to
+     */
+    public void setCellValue(int row, int col, int value) {
+        whitePosition(row, col, "setValue");
+        if (value > 9 || value < 1)
+            throw new IndexOutOfBoundsException("Value is out of range");
+        writableRow(row);
+        values[row][col] = (byte)value;
+    }
+
+    /**
+     * Get value of a (white) cell
+     * @param row Row of the cell to get the value
+     * @param col Column of the cell to get the value
+     * @return The value of the cell at (row, col)
+     */
+    public int getValue(int row, int col) {
+        whitePosition(row, col, "getValue");
+        return values[row][col];
+    }
+
+    /**
+     * Set notations for the given cell
+     * @param row     Row of the cell to set the notations
+     * @param col     Column of the cell to set the notations
+     * @param value   Value of the notation to set
+     * @param checked Whether this notation will be set or unset
+     */
+    public void setCellNotation(int row, int col, int value, boolean checked) {
+        whitePosition(row, col, "setNotation");
+        if (value > 9 || value < 1)
+            throw new IllegalArgumentException("Value is out of range");
+        writableRow(row);
+        if (checked) notations[row][col] |= 1 << (value - 1);
+        else notations[row][col] &= ~(1 << (value - 1));
+    }
+
+    /**
+     * Get cell notations
+     * @param row Row of the cell from which to get the notations
+     * @param col Column of the cell from which to get the notations
+     * @return the notations of the requested cell
+     */
+    public int getCellNotations(int row, int col) {
+        whitePosition(row, col, "getNotations");
+        return notations[row][col];
+    }
+
+    /**
+     * Check whether a cell has a checked notation or not
+     * @param row      Row of the cell to check
+     * @param col      Column of the cell to check
+     * @param notation Notation to check (in the range [1, 9])
+     * @return whether this notation is set or unset for the requested cell
+     */
+    public boolean cellHasNotation(int row, int col, int notation) {
+        whitePosition(row, col, "isNotationChecked");
+        if (notation > 9 || notation < 1)
+            throw new IllegalArgumentException("Value is out of range");
+        return (notations[row][col] & (1 << (notation - 1))) != 0;
+    }
+
+    /**
+     * Get number of notations on a given cell
+     * @param row Row of the cell
+     * @param col Column of the cell
+     * @return the amount of notations set on the given cell (in the range [0, 9])
+     */
+    public int getCellNotationSize(int row, int col) {
+        whitePosition(row, col, "getNotationSize");
+        return Integer.bitCount(notations[row][col]);
+    }
+
+    /**
+     * Clear all cell notations for a given cell
+     * @param row Row of the cell to clear
+     * @param col Column of the cell to clear
+     */
+    public void clearCellNotations(int row, int col) {
+        whitePosition(row, col, "clearAllNotations");
+        writableRow(row);
+        notations[row][col] = 0;
+    }
+
+    /**
+     * Get horizontal sum of a (black) cell
+     * @param row Row of the cell to get the horizontal sum
+     * @param col Column of the cell to get the horizontal sum
+     * @return The horizontal sum indicated by the cell at (row, col)
+     */
+    public int getHorizontalSum(int row, int col) {
+        return sums[2*blackPosition(row, col, "getHorizontalSum")+1];
+    }
+
+    /**
+     * Get vertical sum of a (black) cell
+     * @param row Row of the cell to get the vertical sum
+     * @param col Column of the cell to get the vertical sum
+     * @return The vertical sum indicated by the cell at (row, col)
+     */
+    public int getVerticalSum(int row, int col) {
+        return sums[2*blackPosition(row, col, "getVerticalSum")];
+    }
+
+    /**
+     * Clear the value of a (white) cell
+     * @param row Row of the cell to clear
+     * @param col Column of the cell to clear
+     */
+    public void clearCellValue(int row, int col) {
+        whitePosition(row, col, "clearValue");
+        writableRow(row);
+        values[row][col] = 0;
+    }
+
+    /**
+     * Check whether a cell is empty or no
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is empty, `false` otherwise
+     */
+    public boolean isEmpty(int row, int col) {
+        return kinds[position(row, col)] == WHITE && values[row][col] == 0;
+    }
+
+    /**
+     * Check whether a cell is black or not
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is black, `false` otherwise
+     */
+    public boolean isBlackCell(int row, int col) {
+        return kinds[position(row, col)] == BLACK;
+    }
+
+    /**
+     * Check whether a cell is white or not
+     * @param row Row of the cell to check
+     * @param col Column of the cell to check
+     * @return `true` if the cell at (row, col) is white, `false` otherwise
+     */
+    public boolean isWhiteCell(int row, int col) {
+        return kinds[position(row, col)] == WHITE;
+    }
+
+    /**
+     * Converts a board to string
+     * @return A string that represents this board, the same as the one of the equivalent Board
+     */
+    public String toString() {
+        return height + "," + width + "\n" + cellsToString();
+    }
+
+    /**
+     * Converts a board's cells to string
+     * @return A string that represents this board's cells
+     */
+    public String cellsToString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < height; i++) {
+            if (i > 0) sb.append('\n');
+            for (int j = 0; j < width; j++) {
+                if (j > 0) sb.append(',');
+                int pos = i * width + j;
+                if (kinds[pos] == WHITE) {
+                    if (values[i][j] == 0) sb.append('?');
+                    else sb.append(values[i][j]);
+                } else if (kinds[pos] == BLACK) {
+                    if (sums[2*pos] == 0 && sums[2*pos+1] == 0) sb.append('*');
+                    if (sums[2*pos] > 0) sb.append('C').append(sums[2*pos]);
+                    if (sums[2*pos+1] > 0) sb.append('F').append(sums[2*pos+1]);
+                } else {
+                    sb.append('x');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    // makes the given row private to this version, copying it (and the row tables if needed) the first time
+    private void writableRow(int row) {
+        if (sharedRows) {
+            values = values.clone();
+            notations = notations.clone();
+            rowOwner = rowOwner.clone();
+            sharedRows = false;
+        }
+        if (rowOwner[row] != generation) {
+            values[row] = values[row].clone();
+            notations[row] = notations[row].clone();
+            rowOwner[row] = generation;
+        }
+    }
+
+    private int position(int row, int col) {
+        if (row >= height || col >= width || row < 0 || col < 0)
+            throw new IndexOutOfBoundsException("Invalid row/column");
+        return row * width + col;
+    }
+
+    // same errors as calling a method of the wrong kind of Cell
+    private int whitePosition(int row, int col, String method) {
+        int pos = position(row, col);
+        if (kinds[pos] != WHITE) throw new RuntimeException("Invalid call to " + method + "()");
+        return pos;
+    }
+
+    private int blackPosition(int row, int col, String method) {
+        int pos = position(row, col);
+        if (kinds[pos] != BLACK) throw new RuntimeException("Invalid call to " + method + "()");
+        return pos;
+    }
+}
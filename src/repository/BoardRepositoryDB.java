@@ -38,13 +38,15 @@ public class BoardRepositoryDB implements BoardRepository {
 
     @Override
     public void deleteBoard(UUID id) throws IOException {
-        ArrayList<Board> boardsList = this.getAllBoards();
+        synchronized (DB.getTableLock("Board")) {
+            ArrayList<Board> boardsList = this.getAllBoards();
 
-        for (int i = 0; i<boardsList.size(); i++) {
-            if (boardsList.get(i).getId().equals(id)) {
-                boardsList.remove(i);
-                driver.writeToFile(boardsList, "Board", serializer, Board.class);
-                return;
+            for (int i = 0; i<boardsList.size(); i++) {
+                if (boardsList.get(i).getId().equals(id)) {
+                    boardsList.remove(i);
+                    driver.writeToFile(boardsList, "Board", serializer, Board.class);
+                    return;
+                }
             }
         }
     }
@@ -56,17 +58,19 @@ public class BoardRepositoryDB implements BoardRepository {
 
     @Override
     public void saveBoard(Board board)  throws IOException {
-        ArrayList<Board> boardsList = this.getAllBoards();
+        synchronized (DB.getTableLock("Board")) {
+            ArrayList<Board> boardsList = this.getAllBoards();
 
-        for (int i = 0; i<boardsList.size(); i++) {
-            if (boardsList.get(i).getId().equals(board.getId())) {
-                boardsList.set(i, board);
-                driver.writeToFile(boardsList, "Board", serializer, Board.class);
-                return;
+            for (int i = 0; i<boardsList.size(); i++) {
+                if (boardsList.get(i).getId().equals(board.getId())) {
+                    boardsList.set(i, board);
+                    driver.writeToFile(boardsList, "Board", serializer, Board.class);
+                    return;
+                }
             }
-        }
 
-        boardsList.add(board);
-        driver.writeToFile(boardsList, "Board", serializer, Board.class);
+            boardsList.add(board);
+            driver.writeToFile(boardsList, "Board", serializer, Board.class);
+        }
     }
 }
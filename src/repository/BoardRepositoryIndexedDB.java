@@ -0,0 +1,76 @@
+package src.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import src.domain.entities.Board;
+import src.repository.serializers.BoardCodec;
+import src.repository.serializers.BoardDeserializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.UUID;
+
+public class BoardRepositoryIndexedDB implements BoardRepository {
+    private final IndexedDB driver;
+    private final Gson gson;
+    private final IndexedDB.Importer importer;
+
+    public BoardRepositoryIndexedDB(IndexedDB driver) {
+        this.driver = driver;
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(Board.class, new BoardDeserializer())
+                .create();
+        // boards imported from Board.json are stored encoded, like the ones saved afterwards
+        this.importer = new IndexedDB.Importer() {
+            @Override
+            public byte[] convert(JsonObject object) {
+                return BoardCodec.encode(gson.fromJson(object, Board.class));
+            }
+        };
+    }
+
+    @Override
+    public ArrayList<Board> getAllBoards() throws IOException {
+        ArrayList<Board> boards = new ArrayList<>();
+        for (byte[] record : store().byteValues()) boards.add(decode(record));
+        return boards;
+    }
+
+    @Override
+    public Board getBoard(UUID id) throws IOException {
+        byte[] record = store().getBytes(id.toString());
+        return record == null ? null : decode(record);
+    }
+
+    @Override
+    public Board getBoard(Board board) throws IOException {
+        return getBoard(board.getId());
+    }
+
+    @Override
+    public void deleteBoard(UUID id) throws IOException {
+        store().delete(id.toString());
+    }
+
+    @Override
+    public void deleteBoard(Board board) throws IOException {
+        deleteBoard(board.getId());
+    }
+
+    @Override
+    public void saveBoard(Board board) throws IOException {
+        store().put(board.getId().toString(), BoardCodec.encode(board));
+    }
+
+    private Board decode(byte[] record) {
+        if (BoardCodec.isEncoded(record)) return BoardCodec.decode(record);
+        // saved as JSON, before boards were encoded
+        return gson.fromJson(new String(record, StandardCharsets.UTF_8), Board.class);
+    }
+
+    private RecordStore store() throws IOException {
+        return driver.getStore("Board", "id", importer);
+    }
+}
@@ -4,16 +4,22 @@ import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.nio.file.NoSuchFileException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 
 public class DB {
+    private static final HashMap<Path, Object> fileLocks = new HashMap<>(); // held while a table file is replaced
+    private static final HashMap<String, Object> tableLocks = new HashMap<>();
+
     private final String path;
     public DB() {
         this.path = "data/DB/";
@@ -23,6 +29,24 @@ public class DB {
         this.path = path;
     }
 
+    /**
+     * Get the lock of a table. Repositories hold it while they read a table, modify it and write it back, so that
+     * concurrent saves to the same table don't overwrite each other's changes. It only protects against the other
+     * threads of this program, not against other programs writing the same files.
+     * @param table Name of the table
+     * @return the lock of the table, the same object for every call with the same name
+     */
+    public static Object getTableLock(String table) {
+        synchronized (tableLocks) {
+            Object lock = tableLocks.get(table);
+            if (lock == null) {
+                lock = new Object();
+                tableLocks.put(table, lock);
+            }
+            return lock;
+        }
+    }
+
     public ArrayList<Object> readAll(Class objectClass, JsonDeserializer deserializer) throws IOException {
         String fileContents;
         Gson gson;
@@ -66,13 +90,39 @@ public class DB {
 
         String rawJSON = g.toJson(col);
 
-        FileWriter writer = new FileWriter(path + fileName + ".json", false);
-
-        writer.write(rawJSON);
-        writer.close();
+        replaceFile(Paths.get(path + fileName + ".json"), rawJSON.getBytes());
     }
 
     public void writeToFile(Collection<?> col, String fileName) throws IOException {
         writeToFile(col, fileName, null, Object.class);
     }
+
+    // Writes the new contents to a temporary file, forces it to the disk and renames it over the table, so that a
+    // crash leaves either the old or the new table but never a partial one. Writes to the same table don't overlap.
+    private static void replaceFile(Path file, byte[] contents) throws IOException {
+        Path tmp = Paths.get(file + ".tmp");
+        synchronized (lockFor(file)) {
+            try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+                out.write(contents);
+                out.getFD().sync();
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static Object lockFor(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (fileLocks) {
+            Object lock = fileLocks.get(key);
+            if (lock == null) {
+                lock = new Object();
+                fileLocks.put(key, lock);
+            }
+            return lock;
+        }
+    }
 }
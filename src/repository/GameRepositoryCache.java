@@ -0,0 +1,176 @@
+package src.repository;
+
+import src.domain.entities.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.UUID;
+
+public class GameRepositoryCache implements GameRepository {
+    private final GameRepository repository;
+    private final WriteBehindQueue queue;
+    private LinkedHashMap<UUID, Game> games = null; // all games by id, read from the repository when first used
+    private final SecondaryIndex<String, UUID> byPlayer = new SecondaryIndex<>();
+    private final SecondaryIndex<String, UUID> byKakuro = new SecondaryIndex<>();
+    private final SecondaryIndex<Difficulty, UUID> byDifficulty = new SecondaryIndex<>();
+
+    public GameRepositoryCache(GameRepository repository, WriteBehindQueue queue) {
+        this.repository = repository;
+        this.queue = queue;
+    }
+
+    @Override
+    public synchronized Game getGame(UUID gameId) throws IOException {
+        Game g = games().get(gameId);
+        return g == null ? null : copy(g);
+    }
+
+    @Override
+    public void deleteGame(Game game) throws IOException {
+        deleteGame(game.getId());
+    }
+
+    @Override
+    public synchronized void deleteGame(final UUID gameId) throws IOException {
+        Game old = games().remove(gameId);
+        if (old != null) unindex(old);
+        queue.enqueue("Game:" + gameId, new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.deleteGame(gameId);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void saveGame(Game game) throws IOException {
+        final Game saved = copy(game);
+        Game old = games().put(saved.getId(), saved);
+        if (old == null) index(saved);
+        else reindex(old, saved);
+        queue.enqueue("Game:" + saved.getId(), new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.saveGame(saved);
+            }
+        });
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesByUser(User user) throws IOException {
+        return getAllGamesByUser(user.getName());
+    }
+
+    @Override
+    public synchronized ArrayList<Game> getAllGamesByUser(String userName) throws IOException {
+        return lookup(byPlayer, userName);
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesInKakuro(Kakuro kak) throws IOException {
+        return getAllGamesInKakuro(kak.getName());
+    }
+
+    @Override
+    public synchronized ArrayList<Game> getAllGamesInKakuro(String kakuroName) throws IOException {
+        return lookup(byKakuro, kakuroName);
+    }
+
+    @Override
+    public synchronized ArrayList<Game> getAllGames() throws IOException {
+        ArrayList<Game> res = new ArrayList<>();
+        for (Game g : games().values()) res.add(copy(g));
+
+        return res;
+    }
+
+    @Override
+    public synchronized ArrayList<Game> getAllGamesByDifficultyAndUser(Difficulty diff, User user) throws IOException {
+        games();
+        Set<UUID> ofDifficulty = byDifficulty.get(diff);
+        Set<UUID> ofUser = byPlayer.get(user.getName());
+        // goes through the smallest of the two
+        ArrayList<Game> res = new ArrayList<>();
+        for (UUID id : ofDifficulty.size() < ofUser.size() ? ofDifficulty : ofUser) {
+            if (ofDifficulty.contains(id) && ofUser.contains(id)) res.add(copy(games.get(id)));
+        }
+
+        return res;
+    }
+
+    @Override
+    public synchronized ArrayList<Game> getAllGamesByDifficulty(Difficulty diff) throws IOException {
+        return lookup(byDifficulty, diff);
+    }
+
+    @Override
+    public synchronized ArrayList<GameInProgress> getAllGamesInProgress() throws IOException {
+        ArrayList<GameInProgress> res = new ArrayList<>();
+        for (Game g : games().values()) if (g instanceof GameInProgress) res.add((GameInProgress) copy(g));
+
+        return res;
+    }
+
+    @Override
+    public synchronized ArrayList<GameFinished> getAllGamesFinished() throws IOException {
+        ArrayList<GameFinished> res = new ArrayList<>();
+        for (Game g : games().values()) if (g instanceof GameFinished) res.add((GameFinished) g);
+
+        return res;
+    }
+
+    // games in progress are modified while playing, so the cache keeps its own copy of them and hands out copies
+    private static Game copy(Game g) {
+        if (!(g instanceof GameInProgress)) return g;
+        GameInProgress gip = (GameInProgress) g;
+        Board board = gip.getBoard() == null ? null : new CompactBoard(gip.getBoard()).toBoard();
+        return new GameInProgress(gip.getId(), gip.getStartTime(), gip.getTimeSpent(), gip.getPlayer(), gip.getKakuro(),
+                board, new ArrayList<>(gip.getMovements()), gip.getLastPlayed(), gip.getNumberOfHints());
+    }
+
+    private LinkedHashMap<UUID, Game> games() throws IOException {
+        if (games == null) {
+            games = new LinkedHashMap<>();
+            ArrayList<Game> all = repository.getAllGames();
+            if (all != null) {
+                for (Game g : all) {
+                    games.put(g.getId(), g);
+                    index(g);
+                }
+            }
+        }
+        return games;
+    }
+
+    private void index(Game game) {
+        byPlayer.add(game.getPlayerName(), game.getId());
+        byKakuro.add(game.getKakuroName(), game.getId());
+        byDifficulty.add(difficulty(game), game.getId());
+    }
+
+    private void reindex(Game old, Game game) {
+        byPlayer.update(old.getPlayerName(), game.getPlayerName(), game.getId());
+        byKakuro.update(old.getKakuroName(), game.getKakuroName(), game.getId());
+        byDifficulty.update(difficulty(old), difficulty(game), game.getId());
+    }
+
+    private void unindex(Game game) {
+        byPlayer.remove(game.getPlayerName(), game.getId());
+        byKakuro.remove(game.getKakuroName(), game.getId());
+        byDifficulty.remove(difficulty(game), game.getId());
+    }
+
+    private static Difficulty difficulty(Game game) {
+        return game.getKakuro() == null ? null : game.getKakuro().getDifficulty();
+    }
+
+    private <V> ArrayList<Game> lookup(SecondaryIndex<V, UUID> index, V value) throws IOException {
+        games();
+        Set<UUID> ids = index.get(value);
+        ArrayList<Game> res = new ArrayList<>(ids.size());
+        for (UUID id : ids) res.add(copy(games.get(id)));
+        return res;
+    }
+}
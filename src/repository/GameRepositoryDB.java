@@ -12,14 +12,12 @@ public class GameRepositoryDB implements GameRepository {
 
     private final DB driver;
     private final GameSerializer serializer;
-    private final GameDeserializer deserializer;
     private final ArrayList<Class> subclasses;
     private final BoardRepository boardRepository;
 
     public GameRepositoryDB (DB driver) {
         this.driver = driver;
         this.serializer = new GameSerializer();
-        this.deserializer = new GameDeserializer();
         this.subclasses = new ArrayList<>();
         this.boardRepository = new BoardRepositoryDB(driver);
         subclasses.add(GameInProgress.class);
@@ -39,42 +37,46 @@ public class GameRepositoryDB implements GameRepository {
 
     @Override
     public void deleteGame(UUID gameId) throws IOException {
-        ArrayList<Game> gamesList = this.getAllGames();
-
-        for (int i = 0; i<gamesList.size(); i++) {
-            if (gamesList.get(i).getId().equals(gameId)) {
-                Game g = gamesList.get(i);
-                gamesList.remove(i);
-                if (g instanceof GameInProgress) {
-                    boardRepository.deleteBoard(((GameInProgress) g).getBoard());
+        synchronized (DB.getTableLock("Game")) {
+            ArrayList<Game> gamesList = this.getAllGames();
+
+            for (int i = 0; i<gamesList.size(); i++) {
+                if (gamesList.get(i).getId().equals(gameId)) {
+                    Game g = gamesList.get(i);
+                    gamesList.remove(i);
+                    if (g instanceof GameInProgress) {
+                        boardRepository.deleteBoard(((GameInProgress) g).getBoard());
+                    }
+                    driver.writeToFile(gamesList, "Game", serializer, subclasses);
+                    return;
                 }
-                driver.writeToFile(gamesList, "Game", serializer, subclasses);
-                return;
             }
         }
     }
 
     @Override
     public void saveGame(Game game) throws IOException {
-        ArrayList<Game> gamesList = this.getAllGames();
-
-        for (int i = 0; i<gamesList.size(); i++) {
-            if (gamesList.get(i).getId().equals(game.getId())) {
-                gamesList.set(i, game);
-                if (game instanceof GameInProgress) {
-                    // Save board
-                    boardRepository.saveBoard(((GameInProgress)game).getBoard());
+        synchronized (DB.getTableLock("Game")) {
+            ArrayList<Game> gamesList = this.getAllGames();
+
+            for (int i = 0; i<gamesList.size(); i++) {
+                if (gamesList.get(i).getId().equals(game.getId())) {
+                    gamesList.set(i, game);
+                    if (game instanceof GameInProgress) {
+                        // Save board
+                        boardRepository.saveBoard(((GameInProgress)game).getBoard());
+                    }
+                    driver.writeToFile(gamesList, "Game", serializer, subclasses);
+                    return;
                 }
-                driver.writeToFile(gamesList, "Game", serializer, subclasses);
-                return;
             }
-        }
 
-        gamesList.add(game);
-        driver.writeToFile(gamesList, "Game", serializer, subclasses);
+            gamesList.add(game);
+            driver.writeToFile(gamesList, "Game", serializer, subclasses);
 
-        if (game instanceof GameInProgress) {
-            boardRepository.saveBoard(((GameInProgress)game).getBoard());
+            if (game instanceof GameInProgress) {
+                boardRepository.saveBoard(((GameInProgress)game).getBoard());
+            }
         }
     }
 
@@ -116,6 +118,8 @@ public class GameRepositoryDB implements GameRepository {
 
     @Override
     public ArrayList<Game> getAllGames() throws IOException {
+        // the players, kakuros and boards of all the games are read once and shared by them
+        GameDeserializer deserializer = new GameDeserializer(new IdentityMap(driver));
         return (ArrayList<Game>)(ArrayList<?>) driver.readAll(Game.class, deserializer);
     }
 
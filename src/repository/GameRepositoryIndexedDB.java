@@ -0,0 +1,161 @@
+package src.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import src.domain.entities.*;
+import src.repository.serializers.GameDeserializer;
+import src.repository.serializers.GameSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
+
+public class GameRepositoryIndexedDB implements GameRepository {
+    private final IndexedDB driver;
+    private final BoardRepository boardRepository;
+    private final UserRepository userRepository;
+    private final KakuroRepository kakuroRepository;
+
+    public GameRepositoryIndexedDB(IndexedDB driver) {
+        this(driver, new UserRepositoryIndexedDB(driver), new KakuroRepositoryIndexedDB(driver), new BoardRepositoryIndexedDB(driver));
+    }
+
+    // the players, kakuros and boards of the games are read from the given repositories, which may be cached
+    public GameRepositoryIndexedDB(IndexedDB driver, UserRepository userRepository, KakuroRepository kakuroRepository, BoardRepository boardRepository) {
+        this.driver = driver;
+        this.boardRepository = boardRepository;
+        this.userRepository = userRepository;
+        this.kakuroRepository = kakuroRepository;
+    }
+
+    @Override
+    public Game getGame(UUID gameId) throws IOException {
+        String record = store().get(gameId.toString());
+        return record == null ? null : gson().fromJson(record, Game.class);
+    }
+
+    @Override
+    public void deleteGame(Game game) throws IOException {
+        deleteGame(game.getId());
+    }
+
+    @Override
+    public void deleteGame(UUID gameId) throws IOException {
+        String record = store().get(gameId.toString());
+        if (record == null) return;
+
+        // the board of a game in progress is deleted with it, its id is read without loading the whole game
+        JsonObject obj = JsonParser.parseString(record).getAsJsonObject();
+        store().delete(gameId.toString());
+        if (obj.get("inProgress").getAsBoolean()) {
+            boardRepository.deleteBoard(UUID.fromString(obj.get("boardId").getAsString()));
+        }
+    }
+
+    @Override
+    public void saveGame(Game game) throws IOException {
+        store().put(game.getId().toString(), gson().toJson(game, game.getClass()));
+
+        if (game instanceof GameInProgress) {
+            boardRepository.saveBoard(((GameInProgress)game).getBoard());
+        }
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesByUser(User user) throws IOException {
+        return getAllGamesByUser(user.getName());
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesByUser(String userName) throws IOException {
+        ArrayList<Game> allGames = getAllGames();
+        ArrayList<Game> res = new ArrayList<>();
+
+        for (Game g : allGames) {
+            if (g.getPlayerName().equals(userName)) {
+                res.add(g);
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesInKakuro(Kakuro kak) throws IOException {
+        return getAllGamesInKakuro(kak.getName());
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesInKakuro(String kakuroName) throws IOException {
+        ArrayList<Game> allGames = getAllGames();
+        ArrayList<Game> res = new ArrayList<>();
+
+        for (Game g : allGames) {
+            if (g.getKakuro().getName().equals(kakuroName)) res.add(g);
+        }
+
+        return res;
+    }
+
+    @Override
+    public ArrayList<Game> getAllGames() throws IOException {
+        ArrayList<Game> games = new ArrayList<>();
+        Gson gson = gson();
+        for (String record : store().values()) games.add(gson.fromJson(record, Game.class));
+        return games;
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesByDifficultyAndUser(Difficulty diff, User user) throws IOException {
+        ArrayList<Game> games = getAllGamesByDifficulty(diff);
+        ArrayList<Game> res = new ArrayList<>();
+
+        for (Game g : games) if (g.getPlayerName().equals(user.getName())) res.add(g);
+
+        return res;
+    }
+
+    @Override
+    public ArrayList<Game> getAllGamesByDifficulty(Difficulty diff) throws IOException {
+        ArrayList<Game> allGames = getAllGames();
+        ArrayList<Game> res = new ArrayList<>();
+
+        for (Game g : allGames) if (g.getKakuro().getDifficulty() == diff) res.add(g);
+
+        return res;
+    }
+
+    @Override
+    public ArrayList<GameInProgress> getAllGamesInProgress() throws IOException {
+        ArrayList<Game> games = getAllGames();
+        ArrayList<GameInProgress> gamesInProgress = new ArrayList<>();
+        for (Game g : games) if (g instanceof GameInProgress) gamesInProgress.add((GameInProgress) g);
+
+        return gamesInProgress;
+    }
+
+    @Override
+    public ArrayList<GameFinished> getAllGamesFinished() throws IOException {
+        ArrayList<Game> games = getAllGames();
+        ArrayList<GameFinished> finishedGames = new ArrayList<>();
+        for (Game g : games) if (g instanceof GameFinished) finishedGames.add((GameFinished) g);
+
+        return finishedGames;
+    }
+
+    // a new identity map for each load, so the games loaded together share their players, kakuros and boards
+    private Gson gson() {
+        GameSerializer serializer = new GameSerializer();
+        return new GsonBuilder()
+                .registerTypeAdapter(GameInProgress.class, serializer)
+                .registerTypeAdapter(GameFinished.class, serializer)
+                .registerTypeAdapter(Game.class, new GameDeserializer(new IdentityMap(userRepository, kakuroRepository, boardRepository)))
+                .create();
+    }
+
+    private RecordStore store() throws IOException {
+        return driver.getStore("Game", "id");
+    }
+}
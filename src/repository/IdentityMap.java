@@ -0,0 +1,120 @@
+package src.repository;
+
+import com.google.gson.JsonDeserializer;
+import src.domain.entities.Board;
+import src.domain.entities.Kakuro;
+import src.domain.entities.User;
+import src.repository.serializers.BoardDeserializer;
+import src.repository.serializers.KakuroDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Identity map class.
+ * Resolves the users, kakuros and boards referenced by the records being loaded, so that each one is read only once
+ * and all the records that reference it share the same object. It should only live as long as a single load: it
+ * doesn't see the changes made to the database after an object was read.
+ *
+ * With a DB driver, the first reference to a table reads the whole table, since reading a single object of a JSON
+ * table costs as much as reading all of them. With repositories, each object is read the first time it's referenced.
+ *
+ * @version 0.1.0 (22/12/2020)
+ */
+
+public class IdentityMap {
+    private final DB driver;
+    private final UserRepository userRepository;
+    private final KakuroRepository kakuroRepository;
+    private final BoardRepository boardRepository;
+
+    private final HashMap<String, User> users = new HashMap<>();
+    private final HashMap<String, Kakuro> kakuros = new HashMap<>();
+    private final HashMap<UUID, Board> boards = new HashMap<>();
+    private boolean usersLoaded = false, kakurosLoaded = false, boardsLoaded = false;
+
+    /**
+     * Constructor.
+     * Reads the whole table of each kind of object the first time one is needed
+     * @param driver Driver of the database
+     */
+    public IdentityMap(DB driver) {
+        this.driver = driver;
+        this.userRepository = null;
+        this.kakuroRepository = null;
+        this.boardRepository = null;
+    }
+
+    /**
+     * Constructor.
+     * Reads each object from its repository the first time it's needed
+     * @param userRepository   Repository of the users
+     * @param kakuroRepository Repository of the kakuros
+     * @param boardRepository  Repository of the boards
+     */
+    public IdentityMap(UserRepository userRepository, KakuroRepository kakuroRepository, BoardRepository boardRepository) {
+        this.driver = null;
+        this.userRepository = userRepository;
+        this.kakuroRepository = kakuroRepository;
+        this.boardRepository = boardRepository;
+    }
+
+    /**
+     * Get a user
+     * @param name Name of the user
+     * @return the user, or null if it doesn't exist
+     * @throws IOException if an unexpected problem occurs when reading from the database
+     */
+    public User getUser(String name) throws IOException {
+        if (users.containsKey(name)) return users.get(name);
+        if (driver == null) {
+            users.put(name, userRepository.getUser(name));
+        } else if (!usersLoaded) {
+            usersLoaded = true;
+            for (Object u : readTable(User.class, null)) users.put(((User) u).getName(), (User) u);
+        }
+        return users.get(name);
+    }
+
+    /**
+     * Get a kakuro
+     * @param name Name of the kakuro
+     * @return the kakuro, or null if it doesn't exist
+     * @throws IOException if an unexpected problem occurs when reading from the database
+     */
+    public Kakuro getKakuro(String name) throws IOException {
+        if (kakuros.containsKey(name)) return kakuros.get(name);
+        if (driver == null) {
+            kakuros.put(name, kakuroRepository.getKakuro(name));
+        } else if (!kakurosLoaded) {
+            kakurosLoaded = true;
+            // the users and boards of the kakuros are resolved through this map too
+            for (Object k : readTable(Kakuro.class, new KakuroDeserializer(this))) kakuros.put(((Kakuro) k).getName(), (Kakuro) k);
+        }
+        return kakuros.get(name);
+    }
+
+    /**
+     * Get a board
+     * @param id Identifier of the board
+     * @return the board, or null if it doesn't exist
+     * @throws IOException if an unexpected problem occurs when reading from the database
+     */
+    public Board getBoard(UUID id) throws IOException {
+        if (boards.containsKey(id)) return boards.get(id);
+        if (driver == null) {
+            boards.put(id, boardRepository.getBoard(id));
+        } else if (!boardsLoaded) {
+            boardsLoaded = true;
+            for (Object b : readTable(Board.class, new BoardDeserializer())) boards.put(((Board) b).getId(), (Board) b);
+        }
+        return boards.get(id);
+    }
+
+    private ArrayList<Object> readTable(Class<?> objectClass, JsonDeserializer<?> deserializer) throws IOException {
+        ArrayList<Object> objects = driver.readAll(objectClass, deserializer);
+        return objects == null ? new ArrayList<>() : objects;
+    }
+}
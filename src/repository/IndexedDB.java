@@ -0,0 +1,123 @@
+package src.repository;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexed database driver.
+ * Gives access to the RecordStore of each table of a database directory. Each record is the same JSON object that
+ * DB keeps for it in the array of the table, identified by one of its fields. The first time a table is opened, the
+ * records of its JSON file (if any) are imported, so existing databases keep working. They are imported into a
+ * temporary store that is renamed to the store of the table when it's complete, so an interrupted import is started
+ * again the next time instead of leaving a partial table.
+ * Stores are shared by all the drivers of the same directory, as their files can only be written by one store.
+ *
+ * @version 0.1.0 (22/12/2020)
+ */
+
+public class IndexedDB {
+    private static final HashMap<Path, RecordStore> openStores = new HashMap<>();
+
+    private final String path;
+
+    /**
+     * Conversion of the JSON objects of a table to the records of its store, for tables whose records aren't JSON
+     */
+    public interface Importer {
+        byte[] convert(JsonObject object);
+    }
+
+    public IndexedDB() {
+        this.path = "data/DB/";
+    }
+
+    public IndexedDB(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the store of a table, opening it the first time. Afterwards it's just a lookup, so repositories can call
+     * it on every operation instead of opening the store when they are created.
+     * @param table    Name of the table
+     * @param keyField Field of the JSON objects of the table that identifies them, used when importing them
+     * @return the store of the table
+     * @throws IOException if the files of the table can't be read or created
+     */
+    public RecordStore getStore(String table, String keyField) throws IOException {
+        return getStore(table, keyField, null);
+    }
+
+    /**
+     * Get the store of a table, opening it the first time
+     * @param table    Name of the table
+     * @param keyField Field of the JSON objects of the table that identifies them, used when importing them
+     * @param importer Conversion of the imported JSON objects to records, null to keep them as JSON
+     * @return the store of the table
+     * @throws IOException if the files of the table can't be read or created
+     */
+    public RecordStore getStore(String table, String keyField, Importer importer) throws IOException {
+        Path dataPath = Paths.get(path, table + ".db").toAbsolutePath().normalize();
+        synchronized (openStores) {
+            RecordStore store = openStores.get(dataPath);
+            if (store == null) {
+                if (!Files.exists(dataPath)) importTable(table, keyField, importer);
+                store = new RecordStore(path, table);
+                openStores.put(dataPath, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Force the records written so far to all the open stores of this directory to be stored on the disk
+     * @throws IOException if the files can't be synchronized
+     */
+    public void sync() throws IOException {
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        synchronized (openStores) {
+            for (Map.Entry<Path, RecordStore> e : openStores.entrySet()) {
+                if (e.getKey().getParent().equals(directory)) e.getValue().sync();
+            }
+        }
+    }
+
+    private void importTable(String table, String keyField, Importer importer) throws IOException {
+        Path jsonPath = Paths.get(path, table + ".json");
+        if (!Files.exists(jsonPath)) return;
+
+        JsonElement contents = JsonParser.parseString(new String(Files.readAllBytes(jsonPath)));
+        if (!contents.isJsonArray()) return;
+        JsonArray records = contents.getAsJsonArray();
+
+        // files left by an import that was interrupted
+        String importTable = table + ".import";
+        Path importData = Paths.get(path, importTable + ".db");
+        Path importIndex = Paths.get(path, importTable + ".idx");
+        Files.deleteIfExists(importData);
+        Files.deleteIfExists(importIndex);
+
+        RecordStore store = new RecordStore(path, importTable);
+        for (JsonElement record : records) {
+            JsonObject object = record.getAsJsonObject();
+            byte[] bytes = importer == null ? object.toString().getBytes(StandardCharsets.UTF_8) : importer.convert(object);
+            store.put(object.get(keyField).getAsString(), bytes);
+        }
+        store.sync();
+        store.close();
+
+        // the data file is moved last: until it exists, the table is imported again
+        Files.move(importIndex, Paths.get(path, table + ".idx"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(importData, Paths.get(path, table + ".db"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,115 @@
+package src.repository;
+
+import src.domain.entities.Difficulty;
+import src.domain.entities.Kakuro;
+import src.domain.entities.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+public class KakuroRepositoryCache implements KakuroRepository {
+    private final KakuroRepository repository;
+    private final WriteBehindQueue queue;
+    private LinkedHashMap<String, Kakuro> kakuros = null; // all kakuros by name, read from the repository when first used
+    private final SecondaryIndex<String, String> byCreator = new SecondaryIndex<>();        // creator name, null if none
+    private final SecondaryIndex<Difficulty, String> byDifficulty = new SecondaryIndex<>();
+
+    public KakuroRepositoryCache(KakuroRepository repository, WriteBehindQueue queue) {
+        this.repository = repository;
+        this.queue = queue;
+    }
+
+    @Override
+    public synchronized Kakuro getKakuro(String name) throws IOException {
+        // Returns null if kakuro is not found
+        return kakuros().get(name);
+    }
+
+    @Override
+    public void deleteKakuro(Kakuro kakuro) throws IOException {
+        deleteKakuro(kakuro.getName());
+    }
+
+    @Override
+    public synchronized void deleteKakuro(final String kakuroName) throws IOException {
+        Kakuro old = kakuros().remove(kakuroName);
+        if (old != null) unindex(old);
+        queue.enqueue("Kakuro:" + kakuroName, new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.deleteKakuro(kakuroName);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void saveKakuro(final Kakuro kakuro) throws IOException {
+        Kakuro old = kakuros().put(kakuro.getName(), kakuro);
+        if (old == null) index(kakuro);
+        else reindex(old, kakuro);
+        queue.enqueue("Kakuro:" + kakuro.getName(), new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.saveKakuro(kakuro);
+            }
+        });
+    }
+
+    @Override
+    public synchronized ArrayList<Kakuro> getAllKakuros() throws IOException {
+        return new ArrayList<>(kakuros().values());
+    }
+
+    @Override
+    public synchronized ArrayList<Kakuro> getAllKakurosByUser(User user) throws IOException {
+        return lookup(byCreator, user == null ? null : user.getName());
+    }
+
+    @Override
+    public synchronized ArrayList<Kakuro> getAllKakurosByDifficulty(Difficulty difficulty) throws IOException {
+        return lookup(byDifficulty, difficulty);
+    }
+
+    private LinkedHashMap<String, Kakuro> kakuros() throws IOException {
+        if (kakuros == null) {
+            kakuros = new LinkedHashMap<>();
+            ArrayList<Kakuro> all = repository.getAllKakuros();
+            if (all != null) {
+                for (Kakuro k : all) {
+                    kakuros.put(k.getName(), k);
+                    index(k);
+                }
+            }
+        }
+        return kakuros;
+    }
+
+    private void index(Kakuro kakuro) {
+        byCreator.add(creator(kakuro), kakuro.getName());
+        byDifficulty.add(kakuro.getDifficulty(), kakuro.getName());
+    }
+
+    private void reindex(Kakuro old, Kakuro kakuro) {
+        byCreator.update(creator(old), creator(kakuro), kakuro.getName());
+        byDifficulty.update(old.getDifficulty(), kakuro.getDifficulty(), kakuro.getName());
+    }
+
+    private void unindex(Kakuro kakuro) {
+        byCreator.remove(creator(kakuro), kakuro.getName());
+        byDifficulty.remove(kakuro.getDifficulty(), kakuro.getName());
+    }
+
+    private static String creator(Kakuro kakuro) {
+        return kakuro.getCreatedBy() == null ? null : kakuro.getCreatedBy().getName();
+    }
+
+    private <V> ArrayList<Kakuro> lookup(SecondaryIndex<V, String> index, V value) throws IOException {
+        kakuros();
+        Set<String> names = index.get(value);
+        ArrayList<Kakuro> res = new ArrayList<>(names.size());
+        for (String name : names) res.add(kakuros.get(name));
+        return res;
+    }
+}
@@ -13,13 +13,11 @@ public class KakuroRepositoryDB implements KakuroRepository {
 
     private final DB driver;
     private final KakuroSeializer serializer;
-    private final KakuroDeserializer deserializer;
     private final BoardRepository boardRepository;
 
     public KakuroRepositoryDB (DB driver) {
         this.driver = driver;
         this.serializer = new KakuroSeializer();
-        this.deserializer = new KakuroDeserializer();
         this.boardRepository = new BoardRepositoryDB(driver);
     }
 
@@ -39,36 +37,42 @@ public class KakuroRepositoryDB implements KakuroRepository {
 
     @Override
     public void deleteKakuro(String kakuroName) throws IOException {
-        ArrayList<Kakuro> kakuroList = this.getAllKakuros();
-        for (int i = 0; i<kakuroList.size(); i++) {
-            if (kakuroList.get(i).getName().equals(kakuroName)) {
-                kakuroList.remove(i);
-                driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
-                return;
+        synchronized (DB.getTableLock("Kakuro")) {
+            ArrayList<Kakuro> kakuroList = this.getAllKakuros();
+            for (int i = 0; i<kakuroList.size(); i++) {
+                if (kakuroList.get(i).getName().equals(kakuroName)) {
+                    kakuroList.remove(i);
+                    driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
+                    return;
+                }
             }
         }
     }
 
     @Override
     public void saveKakuro(Kakuro kakuro) throws IOException {
-        ArrayList<Kakuro> kakuroList = this.getAllKakuros();
-
-        for (int i = 0; i<kakuroList.size(); i++) {
-            if (kakuroList.get(i).getName().equals(kakuro.getName())) {
-                kakuroList.set(i, kakuro);
-                driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
-                return;
+        synchronized (DB.getTableLock("Kakuro")) {
+            ArrayList<Kakuro> kakuroList = this.getAllKakuros();
+
+            for (int i = 0; i<kakuroList.size(); i++) {
+                if (kakuroList.get(i).getName().equals(kakuro.getName())) {
+                    kakuroList.set(i, kakuro);
+                    driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
+                    return;
+                }
             }
-        }
 
-        kakuroList.add(kakuro);
-        driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
+            kakuroList.add(kakuro);
+            driver.writeToFile(kakuroList, "Kakuro", serializer, Kakuro.class);
 
-        boardRepository.saveBoard(kakuro.getBoard());
+            boardRepository.saveBoard(kakuro.getBoard());
+        }
     }
 
     @Override
     public ArrayList<Kakuro> getAllKakuros() throws IOException {
+        // the boards and creators of all the kakuros are read once and shared by them
+        KakuroDeserializer deserializer = new KakuroDeserializer(new IdentityMap(driver));
         return (ArrayList<Kakuro>)(ArrayList<?>) driver.readAll(Kakuro.class, deserializer);
     }
 
@@ -0,0 +1,97 @@
+package src.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import src.domain.entities.Difficulty;
+import src.domain.entities.Kakuro;
+import src.domain.entities.User;
+import src.repository.serializers.KakuroDeserializer;
+import src.repository.serializers.KakuroSeializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class KakuroRepositoryIndexedDB implements KakuroRepository {
+    private final IndexedDB driver;
+    private final BoardRepository boardRepository;
+    private final UserRepository userRepository;
+
+    public KakuroRepositoryIndexedDB(IndexedDB driver) {
+        this(driver, new UserRepositoryIndexedDB(driver), new BoardRepositoryIndexedDB(driver));
+    }
+
+    // the creators and boards of the kakuros are read from the given repositories, which may be cached
+    public KakuroRepositoryIndexedDB(IndexedDB driver, UserRepository userRepository, BoardRepository boardRepository) {
+        this.driver = driver;
+        this.boardRepository = boardRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Kakuro getKakuro(String name) throws IOException {
+        // Returns null if kakuro is not found
+        String record = store().get(name);
+        return record == null ? null : gson().fromJson(record, Kakuro.class);
+    }
+
+    @Override
+    public void deleteKakuro(Kakuro kakuro) throws IOException {
+        deleteKakuro(kakuro.getName());
+    }
+
+    @Override
+    public void deleteKakuro(String kakuroName) throws IOException {
+        store().delete(kakuroName);
+    }
+
+    @Override
+    public void saveKakuro(Kakuro kakuro) throws IOException {
+        boolean exists = store().contains(kakuro.getName());
+        store().put(kakuro.getName(), gson().toJson(kakuro, Kakuro.class));
+        // as in KakuroRepositoryDB, the board is only saved along with new kakuros
+        if (!exists) boardRepository.saveBoard(kakuro.getBoard());
+    }
+
+    @Override
+    public ArrayList<Kakuro> getAllKakuros() throws IOException {
+        ArrayList<Kakuro> kakuros = new ArrayList<>();
+        Gson gson = gson();
+        for (String record : store().values()) kakuros.add(gson.fromJson(record, Kakuro.class));
+        return kakuros;
+    }
+
+    @Override
+    public ArrayList<Kakuro> getAllKakurosByUser(User user) throws IOException {
+        ArrayList<Kakuro> kakuros = getAllKakuros();
+        ArrayList<Kakuro> res = new ArrayList<>();
+        for (Kakuro k : kakuros) {
+            if (user == null && k.getCreatedBy() == null) {
+                res.add(k);
+            } else if (k.getCreatedBy() == null) continue;
+            else if (k.getCreatedBy().getName().equals(user.getName())) res.add(k);
+        }
+
+        return res;
+    }
+
+    @Override
+    public ArrayList<Kakuro> getAllKakurosByDifficulty(Difficulty difficulty) throws IOException {
+        ArrayList<Kakuro> kakuros = getAllKakuros();
+        ArrayList<Kakuro> res = new ArrayList<>();
+        for (Kakuro k : kakuros) if (k.getDifficulty().equals(difficulty)) res.add(k);
+
+        return res;
+    }
+
+    // a new identity map for each load, shared by all the kakuros loaded
+    private Gson gson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(Kakuro.class, new KakuroSeializer())
+                .registerTypeAdapter(Kakuro.class, new KakuroDeserializer(new IdentityMap(userRepository, this, boardRepository)))
+                .create();
+    }
+
+    private RecordStore store() throws IOException {
+        return driver.getStore("Kakuro", "name");
+    }
+}
@@ -0,0 +1,441 @@
+package src.repository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Record store class.
+ * Keeps the records of a table, each one identified by a key, in an append-only data file (table.db) and an index
+ * from each key to the position of its record in that file (table.idx). The index is loaded in memory when the
+ * store is opened, so reading, saving or deleting a record only reads or appends that record, no matter how many
+ * records the table has. Records are kept in the order in which their keys were first saved.
+ *
+ * Both files start with the same generation number. Records are appended to the data file before their entries are
+ * appended to the index, so if the program stops in between the missing entries are recovered from the data file
+ * the next time the store is opened. The index also keeps a checkpoint: the entries before it were written when
+ * both files were last synchronized, so they are loaded without reading the data file. The entries after it are
+ * only trusted up to the first one that doesn't point to a complete record of its key; the rest of the index is
+ * dropped and rebuilt from the data file, and a new checkpoint is made once they have been checked. When more than
+ * half of the data file is taken by old versions of records it is compacted into new files, which replace the old
+ * ones by renaming them. If the index doesn't belong to the data file it is rebuilt from it.
+ *
+ * @version 0.1.0 (22/12/2020)
+ */
+
+public class RecordStore {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int MIN_COMPACT_RECORDS = 64;   // never compact tables with fewer dead records
+    private static final int INDEX_HEADER = 2 * Long.BYTES; // generation and checkpoint
+
+    private final Path dataPath;
+    private final Path indexPath;
+
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(); // position of the record of each key
+    private RandomAccessFile data;
+    private FileOutputStream indexFile;
+    private DataOutputStream indexOut;
+    private long generation;
+    private int deadRecords;                    // records in the data file that aren't the last version of a key
+    private long lastIndexed = -1;              // position of the last record found in the index file when opened
+    private long indexEnd = -1;                 // end of the last valid entry of the index file when opened
+    private long checkpoint = INDEX_HEADER;     // end of the entries of the index file known to be on the disk
+    private final boolean created;              // whether the files didn't exist when the store was opened
+
+    /**
+     * Constructor.
+     * Opens the store of the given table, creating its files if they don't exist
+     * @param path  Directory of the files of the table
+     * @param table Name of the table
+     * @throws IOException if the files can't be read or created
+     */
+    public RecordStore(String path, String table) throws IOException {
+        dataPath = Paths.get(path, table + ".db");
+        indexPath = Paths.get(path, table + ".idx");
+
+        created = !Files.exists(dataPath);
+        if (created) createFiles(dataPath, indexPath, 0);
+
+        data = new RandomAccessFile(dataPath.toFile(), "rw");
+        generation = data.readLong();
+        boolean validIndex = loadIndex();
+        if (validIndex) truncateIndex();
+        long end = recover();
+        if (end < data.length()) data.setLength(end); // last record was left incomplete
+        if (!validIndex) rewriteIndex();
+        openIndexForAppend();
+        if (checkpoint < indexFile.getChannel().size()) sync(); // so the entries checked now aren't checked again
+    }
+
+    /**
+     * Check whether the store was created when it was opened
+     * @return true if the table had no files before
+     */
+    public boolean isNew() {
+        return created;
+    }
+
+    /**
+     * Get the number of records
+     * @return the number of keys that have a record
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Check whether a key has a record
+     * @param key Key of the record
+     * @return true if there is a record with this key
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Get the record of a key
+     * @param key Key of the record
+     * @return the contents of the record, or null if there is no record with this key
+     * @throws IOException if the data file can't be read
+     */
+    public synchronized String get(String key) throws IOException {
+        byte[] contents = getBytes(key);
+        return contents == null ? null : new String(contents, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the record of a key as bytes, for records that aren't text
+     * @param key Key of the record
+     * @return the contents of the record, or null if there is no record with this key
+     * @throws IOException if the data file can't be read
+     */
+    public synchronized byte[] getBytes(String key) throws IOException {
+        Long offset = index.get(key);
+        if (offset == null) return null;
+        return readRecord(offset);
+    }
+
+    /**
+     * Save the record of a key, replacing the previous one if any
+     * @param key      Key of the record
+     * @param contents Contents of the record
+     * @throws IOException if the files can't be written
+     */
+    public synchronized void put(String key, String contents) throws IOException {
+        put(key, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Save the record of a key as bytes, replacing the previous one if any
+     * @param key      Key of the record
+     * @param contents Contents of the record
+     * @throws IOException if the files can't be written
+     */
+    public synchronized void put(String key, byte[] contents) throws IOException {
+        long offset = append(PUT, key, contents);
+        if (index.put(key, offset) != null) deadRecords++;
+        compactIfNeeded();
+    }
+
+    /**
+     * Delete the record of a key
+     * @param key Key of the record
+     * @return true if there was a record with this key
+     * @throws IOException if the files can't be written
+     */
+    public synchronized boolean delete(String key) throws IOException {
+        if (!index.containsKey(key)) return false;
+        append(DELETE, key, new byte[0]);
+        index.remove(key);
+        deadRecords += 2; // the deleted record and the deletion itself
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Get the keys of all records
+     * @return the keys in the order in which they were first saved
+     */
+    public synchronized ArrayList<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Get all records
+     * @return the contents of all records, in the order of keys()
+     * @throws IOException if the data file can't be read
+     */
+    public synchronized ArrayList<String> values() throws IOException {
+        ArrayList<String> res = new ArrayList<>(index.size());
+        for (long offset : index.values()) res.add(new String(readRecord(offset), StandardCharsets.UTF_8));
+        return res;
+    }
+
+    /**
+     * Get all records as bytes, for records that aren't text
+     * @return the contents of all records, in the order of keys()
+     * @throws IOException if the data file can't be read
+     */
+    public synchronized ArrayList<byte[]> byteValues() throws IOException {
+        ArrayList<byte[]> res = new ArrayList<>(index.size());
+        for (long offset : index.values()) res.add(readRecord(offset));
+        return res;
+    }
+
+    /**
+     * Rewrite the files with only the last version of each record
+     * @throws IOException if the files can't be written
+     */
+    public synchronized void compact() throws IOException {
+        Path tmpData = Paths.get(dataPath + ".tmp");
+        Path tmpIndex = Paths.get(indexPath + ".tmp");
+        long newGeneration = generation + 1;
+
+        // both new files are on the disk before they replace the old ones, so the whole new index is checkpointed
+        LinkedHashMap<String, Long> newIndex = new LinkedHashMap<>();
+        FileOutputStream dataFile = new FileOutputStream(tmpData.toFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(dataFile))) {
+            out.writeLong(newGeneration);
+            long offset = Long.BYTES;
+            for (Map.Entry<String, Long> e : index.entrySet()) {
+                byte[] contents = readRecord(e.getValue());
+                newIndex.put(e.getKey(), offset);
+                offset += writeRecord(out, PUT, e.getKey(), contents);
+            }
+            out.flush();
+            dataFile.getFD().sync();
+        }
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entries);
+        for (Map.Entry<String, Long> e : newIndex.entrySet()) writeIndexEntry(entriesOut, PUT, e.getKey(), e.getValue());
+        FileOutputStream indexTmpFile = new FileOutputStream(tmpIndex.toFile());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(indexTmpFile))) {
+            out.writeLong(newGeneration);
+            out.writeLong(INDEX_HEADER + entries.size());
+            entries.writeTo(out);
+            out.flush();
+            indexTmpFile.getFD().sync();
+        }
+
+        close();
+        // the data file is replaced first: an old index doesn't match its generation and is rebuilt when opened
+        Files.move(tmpData, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tmpIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        generation = newGeneration;
+        checkpoint = INDEX_HEADER + entries.size();
+        index.clear();
+        index.putAll(newIndex);
+        deadRecords = 0;
+        data = new RandomAccessFile(dataPath.toFile(), "rw");
+        openIndexForAppend();
+    }
+
+    /**
+     * Force the records written so far to be stored on the disk, so that they aren't lost if the system stops.
+     * Their index entries are checkpointed, so they aren't checked against the data file when the store is opened.
+     * @throws IOException if the files can't be synchronized
+     */
+    public synchronized void sync() throws IOException {
+        data.getFD().sync();
+        indexOut.flush();
+        indexFile.getFD().sync();
+
+        long length = indexFile.getChannel().size();
+        if (length == checkpoint) return;
+        try (RandomAccessFile header = new RandomAccessFile(indexPath.toFile(), "rw")) {
+            header.seek(Long.BYTES);
+            header.writeLong(length);
+            header.getFD().sync();
+        }
+        checkpoint = length;
+    }
+
+    /**
+     * Close the files of the store. It can't be used afterwards.
+     * @throws IOException if the files can't be closed
+     */
+    public synchronized void close() throws IOException {
+        indexOut.close();
+        data.close();
+    }
+
+    private void openIndexForAppend() throws IOException {
+        indexFile = new FileOutputStream(indexPath.toFile(), true);
+        indexOut = new DataOutputStream(new BufferedOutputStream(indexFile));
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (deadRecords >= MIN_COMPACT_RECORDS && deadRecords > index.size()) compact();
+    }
+
+    private long append(byte op, String key, byte[] contents) throws IOException {
+        long offset = data.length();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeRecord(new DataOutputStream(bytes), op, key, contents);
+        data.seek(offset);
+        data.write(bytes.toByteArray());
+
+        writeIndexEntry(indexOut, op, key, offset);
+        indexOut.flush();
+        return offset;
+    }
+
+    // record: operation, key, length of the contents and contents. Returns the number of bytes written
+    private static int writeRecord(DataOutputStream out, byte op, String key, byte[] contents) throws IOException {
+        int start = out.size();
+        out.writeByte(op);
+        out.writeUTF(key);
+        out.writeInt(contents.length);
+        out.write(contents);
+        return out.size() - start;
+    }
+
+    private static void writeIndexEntry(DataOutputStream out, byte op, String key, long offset) throws IOException {
+        out.writeByte(op);
+        out.writeUTF(key);
+        out.writeLong(offset);
+    }
+
+    private byte[] readRecord(long offset) throws IOException {
+        data.seek(offset);
+        data.readByte();
+        data.readUTF();
+        byte[] contents = new byte[data.readInt()];
+        data.readFully(contents);
+        return contents;
+    }
+
+    // loads the entries of the index file, returns false if the index doesn't belong to the data file. The entries
+    // before the checkpoint are trusted, the ones after it are loaded up to the first one that doesn't match its record
+    private boolean loadIndex() throws IOException {
+        if (!Files.exists(indexPath)) return false;
+        byte[] bytes = Files.readAllBytes(indexPath);
+        if (bytes.length < INDEX_HEADER) return false;
+        ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(buffer);
+        if (in.readLong() != generation) return false;
+        checkpoint = in.readLong();
+        if (checkpoint < INDEX_HEADER || checkpoint > bytes.length) return false;
+
+        indexEnd = INDEX_HEADER;
+        try {
+            while (true) {
+                byte op = in.readByte();
+                String key = in.readUTF();
+                long offset = in.readLong();
+                long end = bytes.length - buffer.available();
+                // the last entry before the checkpoint is checked too, if it doesn't match the checkpoint is wrong
+                // and none of the entries can be trusted
+                if (end == checkpoint && !recordMatches(offset, op, key)) {
+                    index.clear();
+                    deadRecords = 0;
+                    lastIndexed = -1;
+                    return false;
+                }
+                // entry of a record that was lost or never completed, the following ones can't be trusted either
+                if (end > checkpoint && !recordMatches(offset, op, key)) break;
+                addEntry(op, key, offset);
+                lastIndexed = Math.max(lastIndexed, offset);
+                indexEnd = end;
+            }
+        } catch (EOFException | UTFDataFormatException e) {
+            // end of the index, the last entry may be incomplete
+        }
+        return true;
+    }
+
+    // whether there is a complete record with this operation and key at the given position of the data file
+    private boolean recordMatches(long offset, byte op, String key) throws IOException {
+        if (offset < Long.BYTES || offset >= data.length()) return false;
+        try {
+            data.seek(offset);
+            if (data.readByte() != op || !data.readUTF().equals(key)) return false;
+            int length = data.readInt();
+            return length >= 0 && data.getFilePointer() + length <= data.length();
+        } catch (EOFException | UTFDataFormatException e) {
+            return false;
+        }
+    }
+
+    // drops the entries after the last valid one, so that new entries are appended right after it
+    private void truncateIndex() throws IOException {
+        try (RandomAccessFile index = new RandomAccessFile(indexPath.toFile(), "rw")) {
+            if (index.length() > indexEnd) index.setLength(indexEnd);
+        }
+    }
+
+    // adds the records of the data file that come after the last indexed one, returns the end of the last valid record
+    private long recover() throws IOException {
+        long position = lastIndexed < 0 ? Long.BYTES : recordEnd(lastIndexed);
+        long length = data.length();
+
+        ArrayList<Long> recovered = new ArrayList<>();
+        while (position >= 0 && position < length) {
+            long end = recordEnd(position);
+            if (end <= position || end > length) break;
+            recovered.add(position);
+            position = end;
+        }
+        if (recovered.isEmpty()) return position;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexPath.toFile(), true)))) {
+            for (long offset : recovered) {
+                data.seek(offset);
+                byte op = data.readByte();
+                String key = data.readUTF();
+                addEntry(op, key, offset);
+                writeIndexEntry(out, op, key, offset);
+            }
+        }
+        return position;
+    }
+
+    // position right after the record that starts at the given position, -1 if it can't be read
+    private long recordEnd(long position) throws IOException {
+        try {
+            data.seek(position);
+            data.readByte();
+            data.readUTF();
+            int length = data.readInt();
+            return length < 0 ? -1 : data.getFilePointer() + length;
+        } catch (EOFException | UTFDataFormatException e) {
+            return -1;
+        }
+    }
+
+    private void addEntry(byte op, String key, long offset) {
+        if (op == PUT) {
+            if (index.put(key, offset) != null) deadRecords++;
+        } else if (index.remove(key) != null) {
+            deadRecords += 2;
+        }
+    }
+
+    // rebuilds the index from the data file, for stores whose index is missing or belongs to another data file
+    private void rewriteIndex() throws IOException {
+        checkpoint = INDEX_HEADER;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexPath.toFile())))) {
+            out.writeLong(generation);
+            out.writeLong(checkpoint);
+            for (Map.Entry<String, Long> e : index.entrySet()) writeIndexEntry(out, PUT, e.getKey(), e.getValue());
+        }
+    }
+
+    private static void createFiles(Path dataPath, Path indexPath, long generation) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(dataPath.toFile()))) {
+            out.writeLong(generation);
+        }
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(indexPath.toFile()))) {
+            out.writeLong(generation);
+            out.writeLong(INDEX_HEADER);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package src.repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Secondary index class.
+ * Maps each value of a field of the records of a table to the primary keys of the records that have that value, so
+ * the records with a given value can be found without going through the whole table. The keys of each value are kept
+ * in the order in which they were added. Null values are allowed.
+ *
+ * @version 0.1.0 (23/12/2020)
+ */
+
+public class SecondaryIndex<V, K> {
+    private final HashMap<V, LinkedHashSet<K>> keys = new HashMap<>();
+
+    /**
+     * Add a record to the index
+     * @param value Value of the field of the record
+     * @param key   Primary key of the record
+     */
+    public void add(V value, K key) {
+        LinkedHashSet<K> set = keys.get(value);
+        if (set == null) {
+            set = new LinkedHashSet<>();
+            keys.put(value, set);
+        }
+        set.add(key);
+    }
+
+    /**
+     * Remove a record from the index
+     * @param value Value of the field of the record when it was added
+     * @param key   Primary key of the record
+     */
+    public void remove(V value, K key) {
+        LinkedHashSet<K> set = keys.get(value);
+        if (set == null) return;
+        set.remove(key);
+        if (set.isEmpty()) keys.remove(value);
+    }
+
+    /**
+     * Update the value of a record. If it doesn't change the record keeps its position among the others.
+     * @param oldValue Value of the field of the record when it was added
+     * @param newValue New value of the field of the record
+     * @param key      Primary key of the record
+     */
+    public void update(V oldValue, V newValue, K key) {
+        if (Objects.equals(oldValue, newValue)) return;
+        remove(oldValue, key);
+        add(newValue, key);
+    }
+
+    /**
+     * Get the records with a value
+     * @param value Value of the field
+     * @return the primary keys of the records with this value, it can't be modified
+     */
+    public Set<K> get(V value) {
+        LinkedHashSet<K> set = keys.get(value);
+        return set == null ? Collections.<K>emptySet() : Collections.unmodifiableSet(set);
+    }
+}
@@ -0,0 +1,60 @@
+package src.repository;
+
+import src.domain.entities.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+public class UserRepositoryCache implements UserRepository {
+    private final UserRepository repository;
+    private final WriteBehindQueue queue;
+    private LinkedHashMap<String, User> users = null; // all users by name, read from the repository when first used
+
+    public UserRepositoryCache(UserRepository repository, WriteBehindQueue queue) {
+        this.repository = repository;
+        this.queue = queue;
+    }
+
+    @Override
+    public synchronized User getUser(String userName) throws IOException {
+        // Returns null if user is not found
+        return users().get(userName);
+    }
+
+    @Override
+    public synchronized void deleteUser (final User user) throws IOException {
+        users().remove(user.getName());
+        queue.enqueue("User:" + user.getName(), new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.deleteUser(user);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void saveUser (final User user) throws IOException {
+        users().put(user.getName(), user);
+        queue.enqueue("User:" + user.getName(), new WriteBehindQueue.Write() {
+            @Override
+            public void apply() throws IOException {
+                repository.saveUser(user);
+            }
+        });
+    }
+
+    @Override
+    public synchronized ArrayList<User> getAllUsers () throws IOException {
+        return new ArrayList<>(users().values());
+    }
+
+    private LinkedHashMap<String, User> users() throws IOException {
+        if (users == null) {
+            users = new LinkedHashMap<>();
+            ArrayList<User> all = repository.getAllUsers();
+            if (all != null) for (User u : all) users.put(u.getName(), u);
+        }
+        return users;
+    }
+}
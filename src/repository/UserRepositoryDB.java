@@ -23,30 +23,34 @@ public class UserRepositoryDB implements UserRepository {
 
     @Override
     public void deleteUser (User user) throws IOException {
-        ArrayList<User> usersList = this.getAllUsers();
-        for (int i = 0; i<usersList.size(); i++) {
-            if (usersList.get(i).getName().equals(user.getName())) {
-                usersList.remove(i);
-                driver.writeToFile(usersList, "User");
-                return;
+        synchronized (DB.getTableLock("User")) {
+            ArrayList<User> usersList = this.getAllUsers();
+            for (int i = 0; i<usersList.size(); i++) {
+                if (usersList.get(i).getName().equals(user.getName())) {
+                    usersList.remove(i);
+                    driver.writeToFile(usersList, "User");
+                    return;
+                }
             }
         }
     }
 
     @Override
     public void saveUser (User user) throws IOException {
-        ArrayList<User> usersList = this.getAllUsers();
-
-        for (int i = 0; i<usersList.size(); i++) {
-            if (usersList.get(i).getName().equals(user.getName())) {
-                usersList.set(i, user);
-                driver.writeToFile(usersList, "User");
-                return;
+        synchronized (DB.getTableLock("User")) {
+            ArrayList<User> usersList = this.getAllUsers();
+
+            for (int i = 0; i<usersList.size(); i++) {
+                if (usersList.get(i).getName().equals(user.getName())) {
+                    usersList.set(i, user);
+                    driver.writeToFile(usersList, "User");
+                    return;
+                }
             }
-        }
 
-        usersList.add(user);
-        driver.writeToFile(usersList, "User");
+            usersList.add(user);
+            driver.writeToFile(usersList, "User");
+        }
     }
 
     @Override
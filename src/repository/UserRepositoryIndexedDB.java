@@ -0,0 +1,45 @@
+package src.repository;
+
+import com.google.gson.Gson;
+import src.domain.entities.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class UserRepositoryIndexedDB implements UserRepository {
+    private final IndexedDB driver;
+    private final Gson gson;
+
+    public UserRepositoryIndexedDB(IndexedDB driver) {
+        this.driver = driver;
+        this.gson = new Gson();
+    }
+
+    @Override
+    public User getUser(String userName) throws IOException {
+        // Returns null if user is not found
+        String record = store().get(userName);
+        return record == null ? null : gson.fromJson(record, User.class);
+    }
+
+    @Override
+    public void deleteUser (User user) throws IOException {
+        store().delete(user.getName());
+    }
+
+    @Override
+    public void saveUser (User user) throws IOException {
+        store().put(user.getName(), gson.toJson(user));
+    }
+
+    @Override
+    public ArrayList<User> getAllUsers () throws IOException {
+        ArrayList<User> users = new ArrayList<>();
+        for (String record : store().values()) users.add(gson.fromJson(record, User.class));
+        return users;
+    }
+
+    private RecordStore store() throws IOException {
+        return driver.getStore("User", "name");
+    }
+}
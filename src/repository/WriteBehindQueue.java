@@ -0,0 +1,156 @@
+package src.repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue class.
+ * Keeps the writes that the cached repositories haven't sent to the database yet and sends them from a background
+ * thread every flush interval, so saving and deleting never wait for the database. Writes are identified by the
+ * record they modify: a write replaces the pending one of the same record, so a record saved many times between two
+ * flushes is only written once. Writes are sent in the order of their last modification.
+ * Pending writes are also sent when the queue is closed and when the program exits.
+ *
+ * @version 0.1.0 (23/12/2020)
+ */
+
+public class WriteBehindQueue {
+    /** Default milliseconds between two flushes */
+    public static final long DEFAULT_FLUSH_INTERVAL = 2000;
+
+    /**
+     * When the files of the database are synchronized with the disk
+     */
+    public enum SyncPolicy {
+        /** Leave it to the operating system */
+        NEVER,
+        /** After each flush that wrote something, so a flushed write survives a system crash */
+        AFTER_FLUSH
+    }
+
+    /**
+     * A write to the database
+     */
+    public interface Write {
+        void apply() throws IOException;
+    }
+
+    private final LinkedHashMap<String, Write> pending = new LinkedHashMap<>(); // pending write of each record
+    private final Object flushLock = new Object();  // held while writing, so flushes don't overlap
+    private final SyncPolicy syncPolicy;
+    private final IndexedDB syncTarget;
+    private final ScheduledExecutorService scheduler;
+    private final Thread shutdownHook;
+
+    /**
+     * Constructor.
+     * @param flushIntervalMillis Milliseconds between two flushes
+     * @param syncPolicy          When to synchronize the files of the database with the disk
+     * @param syncTarget          Database whose files are synchronized, null if it isn't an IndexedDB
+     */
+    public WriteBehindQueue(long flushIntervalMillis, SyncPolicy syncPolicy, IndexedDB syncTarget) {
+        if (flushIntervalMillis <= 0) throw new IllegalArgumentException("Flush interval must be positive");
+        this.syncPolicy = syncPolicy;
+        this.syncTarget = syncTarget;
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "write-behind");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Add a write, replacing the pending write of the same record if any
+     * @param record Identifier of the record modified by the write, unique among all tables
+     * @param write  Write to send to the database
+     */
+    public synchronized void enqueue(String record, Write write) {
+        pending.remove(record); // moved to the end, after the writes it may depend on
+        pending.put(record, write);
+    }
+
+    /**
+     * Get the number of pending writes
+     * @return the number of records with a write that hasn't been sent yet
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Send all pending writes to the database now. Writes that fail are kept to be sent again unless they were
+     * replaced in the meantime.
+     * @throws IOException the first error found when writing
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            ArrayList<Map.Entry<String, Write>> writes;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                writes = new ArrayList<>(pending.entrySet());
+                pending.clear();
+            }
+
+            IOException error = null;
+            for (Map.Entry<String, Write> write : writes) {
+                try {
+                    write.getValue().apply();
+                } catch (IOException e) {
+                    if (error == null) error = e;
+                    synchronized (this) {
+                        if (!pending.containsKey(write.getKey())) pending.put(write.getKey(), write.getValue());
+                    }
+                }
+            }
+            if (syncPolicy == SyncPolicy.AFTER_FLUSH && syncTarget != null) syncTarget.sync();
+            if (error != null) throw error;
+        }
+    }
+
+    /**
+     * Stop the background flushes and send the pending writes
+     * @throws IOException if the pending writes can't be sent
+     */
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook is running
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Error writing to the database, the writes will be retried");
+            e.printStackTrace();
+        }
+    }
+}
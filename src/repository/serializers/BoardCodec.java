@@ -0,0 +1,172 @@
+package src.repository.serializers;
+
+import src.domain.entities.BlackCell;
+import src.domain.entities.Board;
+import src.domain.entities.Cell;
+import src.domain.entities.WhiteCell;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Binary codec of boards.
+ * Encodes a board as a header (magic byte, format version, id, width and height as varints) followed by its cells in
+ * row order, each one as a 16-bit word:
+ *  - bits 15-14: kind of the cell (0 no cell, 1 black, 2 white, 3 run of equal cells)
+ *  - black cell: vertical sum in bits 11-6 and horizontal sum in bits 5-0
+ *  - white cell: value in bits 12-9 (0 if empty) and notations in bits 8-0
+ *  - run: bit 13 is 0 for black cells without sums and 1 for empty white cells without notations, bits 12-0 are the
+ *    number of cells of the run
+ * Records of a JSON store always start with '{', so encoded boards can be told apart from them by the magic byte.
+ *
+ * @version 0.1.0 (24/12/2020)
+ */
+
+public final class BoardCodec {
+    private static final byte MAGIC = (byte)0xB0;
+    private static final byte VERSION = 1;
+
+    private static final int KIND_NONE = 0;
+    private static final int KIND_BLACK = 1;
+    private static final int KIND_WHITE = 2;
+    private static final int KIND_RUN = 3;
+    private static final int RUN_WHITE = 1 << 13;
+    private static final int MAX_RUN = (1 << 13) - 1;
+
+    private BoardCodec() {}
+
+    /**
+     * Check whether a record is an encoded board
+     * @param bytes Contents of the record
+     * @return true if it starts with the header of an encoded board
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    /**
+     * Encode a board
+     * @param board Board to encode
+     * @return the encoded board, with the same id and cells
+     */
+    public static byte[] encode(Board board) {
+        int width = board.getWidth(), height = board.getHeight();
+        ByteBuffer out = ByteBuffer.allocate(2 + 16 + 10 + 2 * width * height);
+        out.put(MAGIC).put(VERSION);
+        out.putLong(board.getId().getMostSignificantBits()).putLong(board.getId().getLeastSignificantBits());
+        putVarint(out, width);
+        putVarint(out, height);
+
+        int run = 0, runKind = 0; // length and kind of the run being encoded
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int word = encodeCell(board.getCell(i, j));
+                int kind = runKind(word);
+                if (run > 0 && (kind != runKind || run == MAX_RUN)) {
+                    putRun(out, run, runKind);
+                    run = 0;
+                }
+                if (kind >= 0) {
+                    if (run == 0) runKind = kind;
+                    run++;
+                } else {
+                    out.putShort((short)word);
+                }
+            }
+        }
+        if (run > 0) putRun(out, run, runKind);
+
+        byte[] res = new byte[out.position()];
+        out.flip();
+        out.get(res);
+        return res;
+    }
+
+    /**
+     * Decode a board
+     * @param bytes Encoded board
+     * @return the board, with the id and cells it had when it was encoded
+     * @throws IllegalArgumentException if the bytes aren't an encoded board of a supported version
+     */
+    public static Board decode(byte[] bytes) {
+        if (!isEncoded(bytes)) throw new IllegalArgumentException("Not an encoded board");
+        if (bytes.length < 2 || bytes[1] != VERSION)
+            throw new IllegalArgumentException("Unsupported board format version");
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+            UUID id = new UUID(in.getLong(), in.getLong());
+            int width = getVarint(in);
+            int height = getVarint(in);
+
+            Cell[][] cells = new Cell[height][width];
+            int pos = 0, total = width * height;
+            while (pos < total) {
+                int word = in.getShort() & 0xFFFF;
+                int kind = word >>> 14;
+                if (kind == KIND_RUN) {
+                    int length = word & MAX_RUN;
+                    if (length == 0 || pos + length > total) throw new IllegalArgumentException("Invalid run of cells");
+                    for (int k = 0; k < length; k++, pos++) {
+                        int i = pos / width, j = pos % width;
+                        cells[i][j] = (word & RUN_WHITE) != 0 ? new WhiteCell(i, j, 0, 0) : new BlackCell(i, j, 0, 0);
+                    }
+                } else {
+                    int i = pos / width, j = pos % width;
+                    if (kind == KIND_BLACK) cells[i][j] = new BlackCell(i, j, (word >>> 6) & 0x3F, word & 0x3F);
+                    else if (kind == KIND_WHITE) cells[i][j] = new WhiteCell(i, j, (word >>> 9) & 0xF, word & 0x1FF);
+                    pos++;
+                }
+            }
+            return new Board(id, width, height, cells);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated board");
+        }
+    }
+
+    private static int encodeCell(Cell cell) {
+        if (cell == null) return KIND_NONE << 14;
+        if (cell instanceof BlackCell) {
+            int vert = cell.getVerticalSum(), horiz = cell.getHorizontalSum();
+            if (vert < 0 || vert > 0x3F || horiz < 0 || horiz > 0x3F)
+                throw new IllegalArgumentException("Sum is out of range");
+            return KIND_BLACK << 14 | vert << 6 | horiz;
+        }
+        int value = cell.getValue(), notations = cell.getNotations();
+        if (value < 0 || value > 0xF || notations < 0 || notations > 0x1FF)
+            throw new IllegalArgumentException("Value or notations are out of range");
+        return KIND_WHITE << 14 | value << 9 | notations;
+    }
+
+    // kind of run the cell can be part of, -1 if it can't be part of any
+    private static int runKind(int word) {
+        if (word == KIND_BLACK << 14) return 0;
+        if (word == KIND_WHITE << 14) return RUN_WHITE;
+        return -1;
+    }
+
+    // a run of a single cell is written as the cell itself
+    private static void putRun(ByteBuffer out, int length, int runKind) {
+        if (length == 1) out.putShort((short)(runKind == RUN_WHITE ? KIND_WHITE << 14 : KIND_BLACK << 14));
+        else out.putShort((short)(KIND_RUN << 14 | runKind | length));
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Invalid varint");
+    }
+}
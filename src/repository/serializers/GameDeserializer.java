@@ -13,15 +13,25 @@ import java.util.List;
 import java.util.UUID;
 
 public class GameDeserializer implements JsonDeserializer<Game> {
+    private final IdentityMap references;
+
+    public GameDeserializer() {
+        this(new IdentityMap(new DB()));
+    }
+
+    /**
+     * Constructor.
+     * @param references Identity map used to get the players, kakuros and boards of the games, it should only be
+     *                   used for a single load
+     */
+    public GameDeserializer(IdentityMap references) {
+        this.references = references;
+    }
 
     @Override
     public Game deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
         JsonObject obj = jsonElement.getAsJsonObject();
 
-        DB databseDriver = new DB();
-        UserRepository userRepo = new UserRepositoryDB(databseDriver);
-        KakuroRepository kakuroRepo = new KakuroRepositoryDB(databseDriver);
-
         boolean inProgress = obj.get("inProgress").getAsBoolean();
         UUID id = UUID.fromString(obj.get("id").getAsString());
         Timestamp startTime = Timestamp.valueOf(obj.get("startTime").getAsString());
@@ -31,7 +41,7 @@ public class GameDeserializer implements JsonDeserializer<Game> {
 
         User player;
         try {
-            player = userRepo.getUser(playerName);
+            player = references.getUser(playerName);
         } catch (IOException e) {
             System.err.println("Error getting user " + playerName + " from database");
             player = null;
@@ -39,7 +49,7 @@ public class GameDeserializer implements JsonDeserializer<Game> {
 
         Kakuro kakuro;
         try {
-            kakuro = kakuroRepo.getKakuro(kakuroName);
+            kakuro = references.getKakuro(kakuroName);
         } catch (IOException e) {
             System.err.println("Error getting kakuro " + kakuroName + " from database");
             kakuro = null;
@@ -58,7 +68,7 @@ public class GameDeserializer implements JsonDeserializer<Game> {
 
         Board board = null;
         try {
-            board =  new BoardRepositoryDB(new DB()).getBoard(boardId);
+            board = references.getBoard(boardId);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -13,26 +13,39 @@ import java.sql.Timestamp;
 import java.util.UUID;
 
 public class KakuroDeserializer implements JsonDeserializer<Kakuro> {
+    private final IdentityMap references;
+
+    public KakuroDeserializer() {
+        this(new IdentityMap(new DB()));
+    }
+
+    /**
+     * Constructor.
+     * @param references Identity map used to get the creators and the boards of the kakuros, it should only be used
+     *                   for a single load
+     */
+    public KakuroDeserializer(IdentityMap references) {
+        this.references = references;
+    }
 
     @Override
     public Kakuro deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
         JsonObject obj = jsonElement.getAsJsonObject();
 
-        DB driver = new DB();
-        UserRepository userRepo = new UserRepositoryDB(driver);
-        BoardRepository boardRepo = new BoardRepositoryDB(driver);
-
         Timestamp createdAt = Timestamp.valueOf(obj.get("createdAt").getAsString());
         Difficulty d = Difficulty.valueOf(obj.get("difficulty").getAsString());
         String name = obj.get("name").getAsString();
         String seed = obj.get("seed").getAsString();
         UUID boardId = UUID.fromString(obj.get("boardId").getAsString());
         int colorCode = obj.get("color").getAsInt();
+        // Kakuros saved before solutions were cached don't have them
+        int numSolutions = obj.has("solutions") ? obj.get("solutions").getAsInt() : Kakuro.UNKNOWN_SOLUTIONS;
+        String solution = obj.has("solution") ? obj.get("solution").getAsString() : null;
 
         Board b;
 
         try {
-            b = boardRepo.getBoard(boardId);
+            b = references.getBoard(boardId);
         } catch (IOException e) {
             System.err.println("Error getting board " + boardId.toString() + " from database");
             e.printStackTrace();
@@ -44,7 +57,7 @@ public class KakuroDeserializer implements JsonDeserializer<Kakuro> {
             String createdBy = obj.get("createdBy").getAsString();
 
             try {
-                u = userRepo.getUser(createdBy);
+                u = references.getUser(createdBy);
             } catch (IOException e) {
                 System.err.println("Error getting user " + createdBy + " from database");
                 e.printStackTrace();
@@ -52,6 +65,6 @@ public class KakuroDeserializer implements JsonDeserializer<Kakuro> {
             }
         }
 
-        return new Kakuro(name, createdAt, d, b, u, seed, colorCode);
+        return new Kakuro(name, createdAt, d, b, u, seed, colorCode, numSolutions, solution);
     }
 }
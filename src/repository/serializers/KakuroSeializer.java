@@ -16,6 +16,8 @@ public class KakuroSeializer implements JsonSerializer<Kakuro> {
         obj.addProperty("boardId", kakuro.getBoard().getId().toString());
         obj.addProperty("seed", kakuro.getSeed());
         obj.addProperty("color", kakuro.getColorCode());
+        obj.addProperty("solutions", kakuro.getNumSolutions());
+        if (kakuro.getEncodedSolution() != null) obj.addProperty("solution", kakuro.getEncodedSolution());
         if (kakuro.getCreatedBy() == null) obj.addProperty("createdBy", (String)null);
         else obj.addProperty("createdBy", kakuro.getCreatedBy().getName());
 
@@ -0,0 +1,98 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.domain.entities.CompactBoard;
+
+import java.io.File;
+import java.io.IOException;
+
+public class CompactBoardTest {
+
+    @Test
+    public void testSameAsBoard() throws IOException {
+        for (String dir : new String[]{ "data/kakuros/unsolved", "data/kakuros/solved", "data/kakuros/generated" }) {
+            for (File file : new File(dir).listFiles()) {
+                Board board = Reader.fromFile(file.getPath());
+                CompactBoard compact = new CompactBoard(board);
+
+                assertEquals(board.getId(), compact.getId());
+                assertEquals(board.toString(), compact.toString());
+                assertEquals(board.toString(), compact.toBoard().toString());
+                assertEquals(board.cellsToString(), compact.cellsToString());
+                for (int r = 0; r < board.getHeight(); r++) {
+                    for (int c = 0; c < board.getWidth(); c++) {
+                        assertEquals(board.isBlackCell(r, c), compact.isBlackCell(r, c));
+                        assertEquals(board.isWhiteCell(r, c), compact.isWhiteCell(r, c));
+                        assertEquals(board.isEmpty(r, c), compact.isEmpty(r, c));
+                        if (board.isBlackCell(r, c)) {
+                            assertEquals(board.getHorizontalSum(r, c), compact.getHorizontalSum(r, c));
+                            assertEquals(board.getVerticalSum(r, c), compact.getVerticalSum(r, c));
+                        } else {
+                            assertEquals(board.getValue(r, c), compact.getValue(r, c));
+                            assertEquals(board.getCellNotations(r, c), compact.getCellNotations(r, c));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyAndModify() throws IOException {
+        CompactBoard original = new CompactBoard(Reader.fromFile("data/kakuros/unsolved/sample.kak"));
+        int r = 1, c = 1;
+        while (!original.isWhiteCell(r, c)) c++;
+
+        CompactBoard copy = new CompactBoard(original);
+        copy.setCellValue(r, c, 7);
+        copy.setCellNotation(r, c, 3, true);
+        copy.setCellNotation(r, c, 5, true);
+        copy.setCellNotation(r, c, 3, false);
+
+        assertEquals(7, copy.getValue(r, c));
+        assertFalse(copy.isEmpty(r, c));
+        assertTrue(copy.cellHasNotation(r, c, 5));
+        assertFalse(copy.cellHasNotation(r, c, 3));
+        assertEquals(1, copy.getCellNotationSize(r, c));
+        assertTrue(original.isEmpty(r, c));
+        assertEquals(0, original.getCellNotations(r, c));
+
+        Board board = copy.toBoard();
+        assertEquals(7, board.getValue(r, c));
+        assertEquals(copy.getCellNotations(r, c), board.getCellNotations(r, c));
+
+        copy.clearCellValue(r, c);
+        copy.clearCellNotations(r, c);
+        assertEquals(original.toString(), copy.toString());
+    }
+
+    @Test
+    public void testInvalidCalls() {
+        CompactBoard board = new CompactBoard(2, 2);
+        board.setBlackCell(0, 0, 3, 0);
+        board.setWhiteCell(1, 1, 0, 0);
+
+        boolean thrown = false;
+        try {
+            board.getValue(0, 0);
+        } catch (RuntimeException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+
+        thrown = false;
+        try {
+            board.setCellValue(1, 1, 10);
+        } catch (IndexOutOfBoundsException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertEquals("2,2\nC3,x\nx,?", board.toString());
+    }
+}
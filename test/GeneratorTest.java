@@ -1,11 +1,13 @@
 package test;
 
 import org.junit.jupiter.api.Test;
+import src.domain.algorithms.BatchGenerator;
 import src.domain.algorithms.Generator;
 import src.domain.algorithms.Solver;
 import src.domain.entities.Board;
 import src.domain.entities.Difficulty;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GeneratorTest {
@@ -73,4 +75,26 @@ public class GeneratorTest {
 
         assertTrue(generator.getGeneratedBoard().toString().equals(generator2.getGeneratedBoard().toString()));
     }
+
+    @Test
+    public void testBatchGeneration() {
+        final int COUNT = 6;
+
+        BatchGenerator batch = new BatchGenerator(9, 9, Difficulty.EASY, false, COUNT, 876539892l, 3);
+        final String[] boards = new String[COUNT];
+        int generated = batch.generate(new BatchGenerator.BoardSink() {
+            @Override
+            public void onBoardGenerated(int index, Board board, String encodedSeed) {
+                boards[index] = board.toString();
+            }
+        });
+
+        assertEquals(COUNT, generated);
+        for (int i = 0; i < COUNT; i++) {
+            // every board must be the same one a single generator produces with the same seed
+            Generator generator = new Generator(9, 9, Difficulty.EASY, batch.getSeed(i));
+            generator.generate();
+            assertEquals(generator.getGeneratedBoard().toString(), boards[i]);
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package test;
 
 import org.junit.jupiter.api.Test;
+import src.domain.algorithms.Solver;
 import src.domain.controllers.KakuroCtrl;
+import src.domain.controllers.Reader;
 import src.domain.entities.Board;
 import src.domain.entities.Difficulty;
 import src.domain.entities.Kakuro;
@@ -19,6 +21,36 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class KakuroTest {
+    @Test
+    public void testCachedSolution() throws Exception {
+        Board board = Reader.fromFile("data/kakuros/unsolved/jutge.kak");
+        Solver solver = new Solver(board);
+        solver.solve();
+        Board solution = solver.getSolutions().get(0);
+
+        Kakuro kakuro = new Kakuro("A", Difficulty.EASY, board, "seedA", 0);
+        assertEquals(Kakuro.UNKNOWN_SOLUTIONS, kakuro.getNumSolutions());
+        kakuro.setSolutions(solver.getSolutions());
+        assertEquals(1, kakuro.getNumSolutions());
+
+        // as if it had been read from the database
+        Kakuro loaded = new Kakuro("A", kakuro.getCreatedAt(), Difficulty.EASY, board, null, "seedA", 0,
+                kakuro.getNumSolutions(), kakuro.getEncodedSolution());
+        Board partial = new Board(board);
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c)) assertEquals(solution.getValue(r, c), loaded.getSolutionValue(r, c));
+                else assertEquals(0, loaded.getSolutionValue(r, c));
+            }
+        }
+
+        assertEquals(0, loaded.countWrongCells(partial));
+        int r = 1, c = 1;
+        while (!board.isWhiteCell(r, c)) c++;
+        partial.setCellValue(r, c, solution.getValue(r, c) % 9 + 1);
+        assertEquals(1, loaded.countWrongCells(partial));
+    }
+
     @Test
     public void testGetKakuroListByDifficulty() throws Exception {
         KakuroRepository kakuroRepositoryMock = mock(KakuroRepository.class);
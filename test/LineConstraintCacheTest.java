@@ -0,0 +1,92 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import src.domain.algorithms.helpers.KakuroFunctions;
+import src.domain.algorithms.helpers.LineConstraintCache;
+
+import java.util.Random;
+
+public class LineConstraintCacheTest {
+
+    // random line of the given size, with some of its cells set to different values
+    private static int[] randomLine(Random random, int size) {
+        int[] cells = new int[size];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            int value = random.nextInt(9);
+            if (random.nextInt(4) == 0 && (used & (1<<value)) == 0) {
+                used |= 1<<value;
+                cells[i] = (1<<value) | KakuroFunctions.SET_CELL;
+            } else {
+                cells[i] = random.nextInt(512) | random.nextInt(512);
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    public void testSameAsPruneLine() {
+        LineConstraintCache cache = new LineConstraintCache(64);
+        Random random = new Random(1);
+        for (int t = 0; t < 20000; t++) {
+            int size = 1 + random.nextInt(9);
+            int sum = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(45);
+            int[] cells = randomLine(random, size);
+
+            int[] expected = new int[size], actual = new int[size];
+            boolean feasible = KakuroFunctions.pruneLine(size, sum, cells, expected);
+            assertEquals(feasible, cache.pruneLine(size, sum, cells, actual));
+            if (feasible) assertArrayEquals(expected, actual);
+            // second time it comes from the cache
+            assertEquals(feasible, cache.pruneLine(size, sum, cells, actual));
+            if (feasible) assertArrayEquals(expected, actual);
+        }
+        assertEquals(40000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getHits() >= 20000);
+    }
+
+    @Test
+    public void testCellOrder() {
+        LineConstraintCache cache = new LineConstraintCache(1024);
+        int[] cells = { 0b000000111, 0b000000011, 0b111111111, (1<<4) | KakuroFunctions.SET_CELL };
+        int[] reversed = { cells[3], cells[2], cells[1], cells[0] };
+
+        int[] pruned = new int[4], prunedReversed = new int[4];
+        assertTrue(cache.pruneLine(4, 18, cells, pruned));
+        assertTrue(cache.pruneLine(4, 18, reversed, prunedReversed));
+        assertEquals(1, cache.getHits()); // same cells in a different order share the entry
+        for (int i = 0; i < 4; i++) assertEquals(pruned[i], prunedReversed[3-i]);
+        assertEquals(cells[3], pruned[3]);
+    }
+
+    @Test
+    public void testInfeasible() {
+        LineConstraintCache cache = new LineConstraintCache(16);
+        int[] cells = { 0b000000001, 0b000000001 }; // both cells can only be a 1
+        int[] pruned = { -1, -1 };
+        assertFalse(cache.pruneLine(2, 0, cells, pruned));
+        assertFalse(cache.pruneLine(2, 0, cells, pruned));
+        assertEquals(-1, pruned[0]);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testEviction() {
+        LineConstraintCache cache = new LineConstraintCache(16);
+        assertEquals(16, cache.getCapacity());
+        int[] pruned = new int[2];
+        for (int mask = 0; mask < 512; mask++) cache.pruneLine(2, 0, new int[] { mask, 0b111111111 }, pruned);
+        assertEquals(0, cache.getHits());
+        assertEquals(512, cache.getMisses());
+
+        cache.clear();
+        assertEquals(0, cache.getMisses());
+        cache.pruneLine(2, 0, new int[] { 511, 511 }, pruned);
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,66 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.domain.entities.PersistentBoard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class PersistentBoardTest {
+
+    @Test
+    public void testSameAsBoard() throws IOException {
+        Board board = Reader.fromFile("data/kakuros/solved/sample.kak");
+        PersistentBoard persistent = new PersistentBoard(board);
+
+        assertEquals(board.getId(), persistent.getId());
+        assertEquals(board.toString(), persistent.toString());
+        assertEquals(board.toString(), persistent.toBoard().toString());
+        assertEquals(board.toString(), persistent.snapshot().toString());
+    }
+
+    @Test
+    public void testSnapshots() throws IOException {
+        Board board = Reader.fromFile("data/kakuros/unsolved/sample.kak");
+        ArrayList<int[]> whiteCells = new ArrayList<>();
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c) && board.isEmpty(r, c)) whiteCells.add(new int[] { r, c });
+            }
+        }
+
+        // one version per value placed, each one must only see the values placed before it
+        ArrayList<PersistentBoard> versions = new ArrayList<>();
+        versions.add(new PersistentBoard(board));
+        for (int i = 0; i < whiteCells.size(); i++) {
+            PersistentBoard next = versions.get(i).snapshot();
+            next.setCellValue(whiteCells.get(i)[0], whiteCells.get(i)[1], i % 9 + 1);
+            versions.add(next);
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            for (int i = 0; i < whiteCells.size(); i++) {
+                int r = whiteCells.get(i)[0], c = whiteCells.get(i)[1];
+                assertEquals(i < v ? i % 9 + 1 : 0, versions.get(v).getValue(r, c));
+            }
+        }
+
+        // modifying an old version after taking snapshots of it doesn't change them
+        int r = whiteCells.get(0)[0], c = whiteCells.get(0)[1];
+        PersistentBoard first = versions.get(1);
+        PersistentBoard branch = first.snapshot();
+        first.clearCellValue(r, c);
+        first.setCellNotation(r, c, 4, true);
+        assertTrue(first.isEmpty(r, c));
+        assertTrue(first.cellHasNotation(r, c, 4));
+        assertEquals(1, branch.getValue(r, c));
+        assertFalse(branch.cellHasNotation(r, c, 4));
+        assertEquals(1, versions.get(2).getValue(r, c));
+        assertEquals(0, versions.get(0).getValue(r, c));
+    }
+}
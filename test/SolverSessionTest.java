@@ -0,0 +1,87 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import src.domain.algorithms.SolverResult;
+import src.domain.algorithms.SolverSession;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.utils.Pair;
+
+import java.io.IOException;
+
+public class SolverSessionTest {
+
+    @Test
+    public void testPlayingSolution() throws IOException {
+        Board board = Reader.fromFile("data/kakuros/unsolved/jutge.kak");
+        Board solution = Reader.fromFile("data/kakuros/solved/jutge.kak");
+        SolverSession session = new SolverSession(board);
+        assertEquals(SolverResult.Status.SOLVED, session.checkSolvable(0));
+
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isBlackCell(r, c) || !board.isEmpty(r, c)) continue;
+                // every forced cell agrees with the solution
+                for (Pair<Pair<Integer, Integer>, Integer> forced : session.getForcedCells())
+                    assertEquals(solution.getValue(forced.first.first, forced.first.second), (int)forced.second);
+
+                assertTrue(session.setCellValue(r, c, solution.getValue(r, c)));
+                assertEquals(SolverResult.Status.SOLVED, session.checkSolvable(0));
+            }
+        }
+        assertTrue(session.getForcedCells().isEmpty());
+    }
+
+    @Test
+    public void testWrongMoveAndRetract() throws IOException {
+        Board board = Reader.fromFile("data/kakuros/unsolved/one-sol.kak");
+        Board solution = Reader.fromFile("data/kakuros/solved/one-sol.kak");
+        SolverSession session = new SolverSession(board);
+
+        int r = -1, c = -1;
+        for (int i = 0; r == -1 && i < board.getHeight(); i++) {
+            for (int j = 0; r == -1 && j < board.getWidth(); j++) {
+                if (board.isWhiteCell(i, j) && board.isEmpty(i, j)) { r = i; c = j; }
+            }
+        }
+        int wrong = solution.getValue(r, c) == 1 ? 2 : 1;
+
+        session.setCellValue(r, c, wrong);
+        assertEquals(SolverResult.Status.UNSOLVABLE, session.checkSolvable(0));
+        assertEquals(wrong, session.getCellValue(r, c));
+
+        // replacing it with the right value makes it solvable again
+        assertTrue(session.setCellValue(r, c, solution.getValue(r, c)));
+        assertEquals(SolverResult.Status.SOLVED, session.checkSolvable(0));
+        assertEquals(solution.toString(), session.getSolution(0).toString());
+
+        session.setCellValue(r, c, wrong);
+        session.reset();
+        assertEquals(0, session.getCellValue(r, c));
+        assertEquals(SolverResult.Status.SOLVED, session.checkSolvable(0));
+    }
+
+    @Test
+    public void testUnsolvableBoard() throws IOException {
+        SolverSession session = new SolverSession(Reader.fromFile("data/kakuros/unsolved/no-sol.kak"));
+        assertEquals(SolverResult.Status.UNSOLVABLE, session.checkSolvable(0));
+        assertEquals(null, session.getSolution(0));
+    }
+
+    @Test
+    public void testInvalidCells() throws IOException {
+        SolverSession session = new SolverSession(Reader.fromFile("data/kakuros/unsolved/sample.kak"));
+        boolean thrown = false;
+        try {
+            session.setCellValue(0, 0, 1); // black cell
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertFalse(session.getCellValue(1, 1) != 0);
+    }
+}
@@ -1,17 +1,25 @@
 package test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import src.domain.algorithms.BranchingStrategy;
 import src.domain.algorithms.Solver;
+import src.domain.algorithms.SolverResult;
+import src.domain.algorithms.SolverStats;
+import src.domain.algorithms.helpers.CancellationToken;
 import src.domain.entities.Board;
 import src.domain.controllers.Reader;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.stream.Stream;
 
 public class SolverTest {
@@ -22,6 +30,159 @@ public class SolverTest {
         Board b = Reader.fromFile(inputFile);
         Solver solver = new Solver(b);
         int numSolutions = solver.solve();
+        checkSolutions(solver, numSolutions, expectedOutputFiles);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testSolveParallel(String inputFile, String[] expectedOutputFiles) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        Solver solver = new Solver(b);
+        int numSolutions = solver.solveParallel(4);
+        checkSolutions(solver, numSolutions, expectedOutputFiles);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testSolveBitboard(String inputFile, String[] expectedOutputFiles) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        Solver solver = new Solver(b, Solver.Engine.BITBOARD);
+        int numSolutions = solver.solve();
+        // the engines may branch in a different order, so compare solutions regardless of their order
+        checkSolutionsUnordered(solver, numSolutions, expectedOutputFiles);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testSolveBranchingStrategies(String inputFile, String[] expectedOutputFiles) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        BranchingStrategy[] strategies = {
+            new BranchingStrategy.FirstInQueue(),
+            new BranchingStrategy.MinimumRemainingValues(),
+            new BranchingStrategy.TightestLine(),
+            new BranchingStrategy.LeastConstrainingValue(),
+            new BranchingStrategy.RandomizedRestarts(42, 1)
+        };
+        for (BranchingStrategy strategy : strategies) {
+            Solver solver = new Solver(b);
+            solver.setBranchingStrategy(strategy);
+            int numSolutions = solver.solve();
+            checkSolutionsUnordered(solver, numSolutions, expectedOutputFiles);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testSolveParallelBranchingStrategies(String inputFile, String[] expectedOutputFiles) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        BranchingStrategy[] strategies = {
+            new BranchingStrategy.MinimumRemainingValues(),
+            new BranchingStrategy.TightestLine(),
+            new BranchingStrategy.LeastConstrainingValue(),
+            new BranchingStrategy.RandomizedRestarts(42, 1)
+        };
+        for (BranchingStrategy strategy : strategies) {
+            Solver solver = new Solver(b);
+            solver.setBranchingStrategy(strategy);
+            int numSolutions = solver.solveParallel(4);
+            checkSolutionsUnordered(solver, numSolutions, expectedOutputFiles);
+        }
+    }
+
+    @Test
+    public void testSolveParallelRandomizedIsDeterministic() throws IOException {
+        // many solutions, so the ones found depend on the order of the random choices
+        Board b = Reader.fromFile("data/kakuros/generated/medium.kak");
+        String expected = null;
+        for (int run = 0; run < 20; run++) {
+            Solver solver = new Solver(b);
+            solver.setBranchingStrategy(new BranchingStrategy.RandomizedRestarts(42, 1));
+            solver.solveParallel(4);
+            String found = solver.getSolutions().toString();
+            if (expected == null) expected = found;
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void testEnumerateWithRestarts() throws IOException {
+        Board b = Reader.fromFile("data/kakuros/generated/easy.kak");
+        BranchingStrategy.RandomizedRestarts strategy = new BranchingStrategy.RandomizedRestarts(7, 1);
+        Solver solver = new Solver(b);
+        solver.setBranchingStrategy(strategy);
+        assertEquals(144, solver.enumerate(0, null));
+        assertTrue(strategy.getRestarts() > 0);
+    }
+
+    @Test
+    public void testEnumerateCount() throws IOException {
+        Board b = Reader.fromFile("data/kakuros/generated/easy.kak");
+        assertEquals(144, new Solver(b).enumerate(0, null));
+        assertEquals(144, new Solver(b, Solver.Engine.BITBOARD).enumerate(0, null));
+        assertEquals(10, new Solver(b).enumerate(10, null));
+        assertEquals(10, new Solver(b, Solver.Engine.BITBOARD).enumerate(10, null));
+    }
+
+    @Test
+    public void testEnumerateConsumer() throws IOException {
+        Board b = Reader.fromFile("data/kakuros/unsolved/two-sol.kak");
+        HashSet<String> expected = new HashSet<>();
+        for (String file : new String[]{"data/kakuros/solved/two-sol-1.kak", "data/kakuros/solved/two-sol-2.kak"})
+            expected.add(new String(Files.readAllBytes(new File(file).toPath())).replace("\r",""));
+
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            final HashSet<String> found = new HashSet<>();
+            Solver solver = new Solver(b, engine);
+            long numSolutions = solver.enumerate(0, new Solver.SolutionConsumer() {
+                @Override
+                public void onSolution(Board solution) {
+                    found.add(solution.toString() + "\n");
+                }
+            });
+            assertEquals(2, numSolutions);
+            assertEquals(expected, found);
+            assertEquals(0, solver.getSolutions().size());
+        }
+    }
+
+    @Test
+    public void testSolveCancellable() throws IOException {
+        Board oneSol = Reader.fromFile("data/kakuros/unsolved/one-sol.kak");
+        Board noSol = Reader.fromFile("data/kakuros/unsolved/no-sol.kak");
+
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            SolverResult result = new Solver(oneSol, engine).solve(0, null);
+            assertEquals(SolverResult.Status.SOLVED, result.getStatus());
+            assertEquals(1, result.getNumSolutions());
+
+            assertEquals(SolverResult.Status.UNSOLVABLE, new Solver(noSol, engine).solve(60000, null).getStatus());
+
+            CancellationToken token = new CancellationToken();
+            token.cancel();
+            assertEquals(SolverResult.Status.UNDETERMINED, new Solver(oneSol, engine).solve(0, token).getStatus());
+        }
+    }
+
+    @Test
+    public void testSolverStats() throws IOException {
+        Board b = Reader.fromFile("data/kakuros/unsolved/cpu_burner.kak");
+
+        Solver withoutStats = new Solver(b);
+        withoutStats.solve();
+        assertNull(withoutStats.getStats());
+
+        for (Solver.Engine engine : Solver.Engine.values()) {
+            Solver solver = new Solver(b, engine);
+            solver.setStatsEnabled(true);
+            solver.solve();
+            SolverStats stats = solver.getStats();
+            assertTrue(stats.getNodes() > 0);
+            assertTrue(stats.getPropagations() > 0);
+            assertTrue(stats.getMaxDepth() < stats.getNodes());
+        }
+    }
+
+    private void checkSolutions(Solver solver, int numSolutions, String[] expectedOutputFiles) throws IOException {
         int numSolutions2 = solver.getSolutions().size();
         assertEquals(numSolutions, numSolutions2);
         int expectedNumSolutions = expectedOutputFiles.length;
@@ -40,6 +201,17 @@ public class SolverTest {
         }
     }
 
+    private void checkSolutionsUnordered(Solver solver, int numSolutions, String[] expectedOutputFiles) throws IOException {
+        assertEquals(expectedOutputFiles.length, numSolutions);
+
+        HashSet<String> expected = new HashSet<>();
+        for (String file : expectedOutputFiles)
+            expected.add(new String(Files.readAllBytes(new File(file).toPath())).replace("\r",""));
+        HashSet<String> found = new HashSet<>();
+        for (Board solution : solver.getSolutions()) found.add(solution.toString() + "\n");
+        assertEquals(expected, found);
+    }
+
     private static Stream<Arguments> testArguments() {
         return Stream.of(
             Arguments.of("data/kakuros/unsolved/cpu_burner.kak", new String[]{"data/kakuros/solved/cpu_burner.kak"}),
@@ -111,4 +111,36 @@ public class SwappingCellQueueTest {
 
         assertTrue(!orderBroken);
     }
+
+    @Test
+    public void cellLookupTest() {
+        final int ROWS = 20, COLUMNS = 20;
+        Board board = new Board(COLUMNS, ROWS, new WhiteCell(true));
+        SwappingCellQueue scq = new SwappingCellQueue(board);
+
+        // lots of swaps, every cell must still be found afterwards
+        for (int n = 1; n < 9; n++) {
+            for (int i = 0; i < ROWS; i++) {
+                for (int j = (i+n) % 2; j < COLUMNS; j += 2) scq.eraseNotationsFromCell(i, j, 1<<(n-1));
+            }
+        }
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++) {
+                assertTrue(!scq.isHiding(i, j));
+                int expected = board.getCellNotations(i, j) & ~0b000000011;
+                scq.eraseNotationsFromCell(i, j, 0b000000011);
+                assertEquals(expected, board.getCellNotations(i, j));
+            }
+        }
+
+        // a copy keeps the positions of the cells
+        Board copy = new Board(board);
+        SwappingCellQueue copyQueue = new SwappingCellQueue(scq, copy);
+        copyQueue.hideElement(0, 0);
+        assertTrue(copyQueue.isHiding(0, 0));
+        assertTrue(!scq.isHiding(0, 0));
+        copyQueue.insertOrderedCell(0, 0);
+        assertTrue(!copyQueue.isHiding(0, 0));
+        assertEquals(board.getCellNotations(0, 0), copy.getCellNotations(0, 0));
+    }
 }
@@ -0,0 +1,95 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import src.domain.algorithms.Generator;
+import src.domain.algorithms.Solver;
+import src.domain.algorithms.UniquenessChecker;
+import src.domain.algorithms.helpers.CancellationToken;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.domain.entities.Difficulty;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+public class UniquenessCheckerTest {
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testCheck(String inputFile, UniquenessChecker.Result expected) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        assertEquals(expected, new UniquenessChecker(b).check());
+        assertEquals(expected, new UniquenessChecker(b, null, 1).check());
+    }
+
+    @ParameterizedTest
+    @MethodSource("testArguments")
+    public void testSolution(String inputFile, UniquenessChecker.Result expected) throws IOException {
+        Board b = Reader.fromFile(inputFile);
+        UniquenessChecker checker = new UniquenessChecker(b);
+        checker.check();
+        if (expected == UniquenessChecker.Result.UNSOLVABLE) {
+            assertNull(checker.getSolution());
+            return;
+        }
+
+        // every white cell of the solution has a value, and they agree with the sums
+        Board solution = checker.getSolution();
+        for (int r = 0; r < b.getHeight(); r++) {
+            for (int c = 0; c < b.getWidth(); c++) {
+                if (b.isWhiteCell(r, c)) assertFalse(solution.isEmpty(r, c));
+            }
+        }
+        assertEquals(1, new Solver(solution, Solver.Engine.BITBOARD).solve());
+
+        if (expected == UniquenessChecker.Result.UNIQUE) {
+            Solver solver = new Solver(b, Solver.Engine.BITBOARD);
+            solver.solve();
+            assertEquals(solver.getSolutions().get(0).toString(), solution.toString());
+        }
+    }
+
+    @Test
+    public void testCheckGenerated() {
+        for (long seed = 1; seed <= 8; seed++) {
+            Generator generator = new Generator(12, 12, Difficulty.HARD, seed, true);
+            generator.generate();
+            Board board = generator.getGeneratedBoard();
+
+            int numSolutions = new Solver(board, Solver.Engine.BITBOARD).solve();
+            UniquenessChecker.Result expected = numSolutions == 1 ? UniquenessChecker.Result.UNIQUE : UniquenessChecker.Result.MULTIPLE;
+            assertEquals(expected, new UniquenessChecker(board, generator.getSolution()).check());
+        }
+    }
+
+    @Test
+    public void testCheckCancelled() throws IOException {
+        Board b = Reader.fromFile("data/kakuros/generated/hard.kak");
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertEquals(UniquenessChecker.Result.UNDETERMINED, new UniquenessChecker(b).check(0, token));
+    }
+
+    private static Stream<Arguments> testArguments() {
+        return Stream.of(
+            Arguments.of("data/kakuros/unsolved/cpu_burner.kak",   UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/unsolved/evil.kak",         UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/unsolved/one-sol.kak",      UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/unsolved/sample.kak",       UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/unsolved/sample2.kak",      UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/unsolved/no-sol.kak",       UniquenessChecker.Result.UNSOLVABLE),
+            Arguments.of("data/kakuros/unsolved/two-sol.kak",      UniquenessChecker.Result.MULTIPLE),
+            Arguments.of("data/kakuros/unsolved/jutge.kak",        UniquenessChecker.Result.UNIQUE),
+            Arguments.of("data/kakuros/generated/hard.kak",        UniquenessChecker.Result.MULTIPLE),
+            Arguments.of("data/kakuros/generated/extreme.kak",     UniquenessChecker.Result.MULTIPLE),
+            Arguments.of("data/kakuros/generated/40_40_hard_unique.kak", UniquenessChecker.Result.UNIQUE)
+        );
+    }
+}
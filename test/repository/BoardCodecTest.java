@@ -0,0 +1,87 @@
+package test.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import src.domain.controllers.Reader;
+import src.domain.entities.Board;
+import src.repository.*;
+import src.repository.serializers.BoardCodec;
+import src.repository.serializers.BoardSerializer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoardCodecTest {
+    private Path dir;
+
+    @BeforeEach
+    public void setUp () throws IOException {
+        dir = Files.createTempDirectory("boardcodec");
+    }
+
+    @AfterEach
+    public void tearDown () {
+        for (File f : dir.toFile().listFiles()) f.delete();
+        dir.toFile().delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Board board = Reader.fromFile("data/kakuros/unsolved/jutge.kak");
+        board.setCellValue(1, 2, 7);
+        board.setCellNotation(1, 3, 3, true);
+        board.setCellNotation(1, 3, 9, true);
+
+        byte[] bytes = BoardCodec.encode(board);
+        assertTrue(BoardCodec.isEncoded(bytes));
+        Board decoded = BoardCodec.decode(bytes);
+
+        assertEquals(board.getId(), decoded.getId());
+        assertEquals(board.toString(), decoded.toString());
+        for (int r = 0; r < board.getHeight(); r++) {
+            for (int c = 0; c < board.getWidth(); c++) {
+                if (board.isWhiteCell(r, c)) assertEquals(board.getCellNotations(r, c), decoded.getCellNotations(r, c));
+            }
+        }
+        assertTrue(bytes.length < board.cellsToString().length());
+
+        boolean thrown = false;
+        try {
+            bytes[1] = 99; // unknown version
+            BoardCodec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testRepositoryReadsJsonRecords() throws IOException {
+        Board imported = Reader.fromFile("data/kakuros/unsolved/sample.kak");
+        Board stored = Reader.fromFile("data/kakuros/unsolved/jutge.kak");
+        ArrayList<Board> table = new ArrayList<>();
+        table.add(imported);
+        new DB(dir.toString() + "/").writeToFile(table, "Board", new BoardSerializer(), Board.class);
+
+        IndexedDB driver = new IndexedDB(dir.toString());
+        BoardRepository repository = new BoardRepositoryIndexedDB(driver);
+        // boards of Board.json are encoded when imported, the ones saved as JSON before are still read
+        assertEquals(imported.toString(), repository.getBoard(imported.getId()).toString());
+        assertTrue(BoardCodec.isEncoded(driver.getStore("Board", "id").getBytes(imported.getId().toString())));
+        Gson gson = new GsonBuilder().registerTypeAdapter(Board.class, new BoardSerializer()).create();
+        driver.getStore("Board", "id").put(stored.getId().toString(), gson.toJson(stored, Board.class));
+
+        assertEquals(stored.toString(), repository.getBoard(stored.getId()).toString());
+        assertEquals(2, repository.getAllBoards().size());
+    }
+}
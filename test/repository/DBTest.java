@@ -1,5 +1,6 @@
 package test.repository;
 
+import src.domain.entities.User;
 import src.repository.*;
 
 import org.junit.jupiter.api.AfterEach;
@@ -15,6 +16,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DBTest {
@@ -83,6 +85,50 @@ public class DBTest {
         assertTrue(fileContents.equals(expectedFileContents));
     }
 
+    @Test
+    public void testWriteToFileReplacesTable() throws IOException {
+        ArrayList<Object> objects = new ArrayList<>();
+        objects.add(new TestObject(0, "0", false));
+        objects.add(new TestObject(1, "1", true));
+        testDB.writeToFile(objects, "TestObject");
+
+        // a shorter table replaces the whole file, and the temporary file is gone
+        objects.remove(1);
+        testDB.writeToFile(objects, "TestObject");
+
+        assertTrue(testDB.readAll(TestObject.class).equals(objects));
+        assertTrue(!Files.exists(Paths.get("test/database/TestObject.json.tmp")));
+    }
+
+    @Test
+    public void testConcurrentSaves() throws Exception {
+        final Path dir = Files.createTempDirectory("db");
+        Files.write(dir.resolve("User.json"), "[]".getBytes());
+        final UserRepository repo = new UserRepositoryDB(new DB(dir.toString() + "/"));
+
+        // every save reads the whole table and writes it back, none of them may be lost
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 10; i++) repo.saveUser(new User("user" + thread + "_" + i));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(40, repo.getAllUsers().size());
+        for (File f : dir.toFile().listFiles()) f.delete();
+        dir.toFile().delete();
+    }
+
     private class TestObject {
         // This is a sample class whose instances will be written and read by the database driver just for testing purposes
         private int a;
@@ -0,0 +1,277 @@
+package test.repository;
+
+import src.repository.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordStoreTest {
+    private Path dir;
+
+    @BeforeEach
+    public void setUp () throws IOException {
+        dir = Files.createTempDirectory("recordstore");
+    }
+
+    @AfterEach
+    public void tearDown () {
+        for (File f : dir.toFile().listFiles()) f.delete();
+        dir.toFile().delete();
+    }
+
+    @Test
+    public void testPutGetDelete() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        assertTrue(store.isNew());
+
+        store.put("a", "{\"x\":1}");
+        store.put("b", "{\"x\":2}");
+        store.put("c", "{\"x\":3}");
+        store.put("a", "{\"x\":4}");
+        assertTrue(store.delete("b"));
+        assertFalse(store.delete("b"));
+
+        assertEquals("{\"x\":4}", store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(new ArrayList<>(Arrays.asList("a", "c")), store.keys());
+        assertEquals(new ArrayList<>(Arrays.asList("{\"x\":4}", "{\"x\":3}")), store.values());
+        store.close();
+
+        // everything is still there after reopening the store
+        store = new RecordStore(dir.toString(), "Table");
+        assertFalse(store.isNew());
+        assertEquals(2, store.size());
+        assertEquals("{\"x\":4}", store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(new ArrayList<>(Arrays.asList("a", "c")), store.keys());
+        store.close();
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        store.put("a", "1");
+        long indexLength = new File(dir.toFile(), "Table.idx").length();
+        store.put("b", "2");
+        store.delete("a");
+        store.close();
+
+        // the entries of the last operations are lost, they must be recovered from the data file
+        try (RandomAccessFile index = new RandomAccessFile(new File(dir.toFile(), "Table.idx"), "rw")) {
+            index.setLength(indexLength);
+        }
+        // and an incomplete record at the end of the data file is ignored
+        try (RandomAccessFile data = new RandomAccessFile(new File(dir.toFile(), "Table.db"), "rw")) {
+            data.seek(data.length());
+            data.write(new byte[] { 1, 0, 5, 'c' });
+        }
+
+        store = new RecordStore(dir.toString(), "Table");
+        assertNull(store.get("a"));
+        assertEquals("2", store.get("b"));
+        assertEquals(1, store.size());
+        store.put("c", "3");
+        store.close();
+
+        // an index that doesn't belong to the data file is rebuilt
+        new File(dir.toFile(), "Table.idx").delete();
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("b", "c")), store.keys());
+        assertEquals("3", store.get("c"));
+        store.close();
+    }
+
+    @Test
+    public void testLostRecords() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        store.put("a", "1");
+        long dataLength = new File(dir.toFile(), "Table.db").length();
+        store.put("b", "2");
+        store.close();
+
+        // the record of b never reached the disk, but its index entry did
+        try (RandomAccessFile data = new RandomAccessFile(new File(dir.toFile(), "Table.db"), "rw")) {
+            data.setLength(dataLength);
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertNull(store.get("b"));
+        store.put("c", "3");
+        store.close();
+
+        // c is written where the record of b was, its stale entry must not give c's contents to b
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a", "c")), store.keys());
+        assertNull(store.get("b"));
+        assertEquals("3", store.get("c"));
+        store.close();
+
+        // a record of another key where an entry points to is found and indexed under its own key
+        try (RandomAccessFile data = new RandomAccessFile(new File(dir.toFile(), "Table.db"), "rw")) {
+            data.setLength(dataLength);
+            data.seek(dataLength);
+            data.writeByte(1);
+            data.writeUTF("x");
+            data.writeInt(1);
+            data.write('9');
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a", "x")), store.keys());
+        assertNull(store.get("c"));
+        assertEquals("9", store.get("x"));
+        store.close();
+    }
+
+    @Test
+    public void testTornIndexEntry() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        store.put("a", "1");
+        store.close();
+
+        // the last entry was only partially written
+        try (RandomAccessFile index = new RandomAccessFile(new File(dir.toFile(), "Table.idx"), "rw")) {
+            index.seek(index.length());
+            index.write(new byte[] { 1, 0, 5, 'b' });
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(1, store.size());
+        store.put("b", "2");
+        store.put("c", "3");
+        store.close();
+
+        // the entries written afterwards are read correctly
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a", "b", "c")), store.keys());
+        assertEquals("2", store.get("b"));
+        assertEquals("3", store.get("c"));
+        store.close();
+    }
+
+    @Test
+    public void testCheckpoint() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        store.put("a", "1");
+        store.put("b", "2");
+        store.sync();
+        store.put("c", "3");
+        store.close();
+
+        // the entries written before the last sync aren't checked against the data file, so a record changed
+        // behind the store's back is still found under its key
+        File dataFile = new File(dir.toFile(), "Table.db");
+        try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            data.seek(Long.BYTES + 3); // first character of the key of a
+            data.writeByte('z');
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a", "b", "c")), store.keys());
+        assertEquals("1", store.get("a"));
+        store.close();
+
+        // a checkpoint whose last entry doesn't match its record can't be trusted, the index is rebuilt
+        try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            data.seek(Long.BYTES + 3);
+            data.writeByte('a');
+            data.setLength(data.length() - 9); // the record of c
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a", "b")), store.keys());
+        assertNull(store.get("c"));
+        store.close();
+    }
+
+    @Test
+    public void testCorruptTail() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        store.put("a", "1");
+        store.close();
+
+        // a record whose key isn't valid UTF-8
+        File dataFile = new File(dir.toFile(), "Table.db");
+        long length = dataFile.length();
+        try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            data.seek(length);
+            data.write(new byte[] { 1, 0, 1, (byte)0xFF, 0, 0, 0, 1, '2' });
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a")), store.keys());
+        store.close();
+        assertEquals(length, dataFile.length());
+
+        // a record with a negative length
+        try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+            data.seek(length);
+            data.write(new byte[] { 1, 0, 1, 'b', (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xF0 });
+        }
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(new ArrayList<>(Arrays.asList("a")), store.keys());
+        store.put("b", "2");
+        assertEquals("2", store.get("b"));
+        store.close();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        RecordStore store = new RecordStore(dir.toString(), "Table");
+        for (int i = 0; i < 10; i++) store.put("key" + i, "first " + i);
+        for (int n = 0; n < 100; n++) {
+            for (int i = 0; i < 10; i++) store.put("key" + i, "value " + n + " " + i);
+        }
+        store.compact();
+        long compactedLength = new File(dir.toFile(), "Table.db").length();
+        assertTrue(compactedLength < 500);
+
+        store.put("key3", "last");
+        store.close();
+
+        store = new RecordStore(dir.toString(), "Table");
+        assertEquals(10, store.size());
+        assertEquals("last", store.get("key3"));
+        assertEquals("value 99 4", store.get("key4"));
+        assertEquals("key0", store.keys().get(0));
+        store.close();
+    }
+
+    @Test
+    public void testImportFromJSON() throws IOException {
+        FileWriter writer = new FileWriter(new File(dir.toFile(), "User.json"));
+        writer.write("[{\"name\":\"Cesc\"},{\"name\":\"Alex\"}]");
+        writer.close();
+
+        UserRepository repo = new UserRepositoryIndexedDB(new IndexedDB(dir.toString()));
+        assertEquals(2, repo.getAllUsers().size());
+        assertEquals("Alex", repo.getUser("Alex").getName());
+        assertNull(repo.getUser("Marc"));
+    }
+
+    @Test
+    public void testInterruptedImport() throws IOException {
+        FileWriter writer = new FileWriter(new File(dir.toFile(), "User.json"));
+        writer.write("[{\"name\":\"Cesc\"},{\"name\":\"Alex\"}]");
+        writer.close();
+
+        // an import that stopped after the first record
+        RecordStore partial = new RecordStore(dir.toString(), "User.import");
+        partial.put("Cesc", "{\"name\":\"Cesc\"}");
+        partial.close();
+
+        UserRepository repo = new UserRepositoryIndexedDB(new IndexedDB(dir.toString()));
+        assertEquals(2, repo.getAllUsers().size());
+        assertEquals("Alex", repo.getUser("Alex").getName());
+        assertFalse(new File(dir.toFile(), "User.import.db").exists());
+    }
+}
@@ -0,0 +1,207 @@
+package test.repository;
+
+import src.domain.entities.Board;
+import src.domain.entities.Difficulty;
+import src.domain.entities.Game;
+import src.domain.entities.GameFinished;
+import src.domain.entities.GameInProgress;
+import src.domain.entities.Kakuro;
+import src.domain.entities.WhiteCell;
+import src.domain.entities.User;
+import src.repository.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RepositoryCacheTest {
+    private Path dir;
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    public void setUp () throws IOException {
+        dir = Files.createTempDirectory("repositorycache");
+        // long interval, so that nothing is written until the test flushes
+        queue = new WriteBehindQueue(3600000, WriteBehindQueue.SyncPolicy.AFTER_FLUSH, null);
+    }
+
+    @AfterEach
+    public void tearDown () throws IOException {
+        queue.close();
+        for (File f : dir.toFile().listFiles()) f.delete();
+        dir.toFile().delete();
+    }
+
+    @Test
+    public void testWriteBehind() throws IOException {
+        UserRepository database = new UserRepositoryIndexedDB(new IndexedDB(dir.toString()));
+        UserRepository cache = new UserRepositoryCache(database, queue);
+
+        cache.saveUser(new User("Cesc"));
+        cache.saveUser(new User("Alex"));
+        cache.deleteUser(new User("Cesc"));
+        cache.saveUser(new User("Marc"));
+
+        // reads see the changes right away, the database only after flushing
+        assertNull(cache.getUser("Cesc"));
+        assertEquals("Alex", cache.getUser("Alex").getName());
+        assertEquals(2, cache.getAllUsers().size());
+        assertEquals(0, database.getAllUsers().size());
+        assertEquals(3, queue.size());
+
+        queue.flush();
+        assertEquals(0, queue.size());
+        assertEquals(2, database.getAllUsers().size());
+        assertEquals("Marc", database.getUser("Marc").getName());
+        assertNull(database.getUser("Cesc"));
+    }
+
+    @Test
+    public void testSharedReferences() throws IOException {
+        IndexedDB driver = new IndexedDB(dir.toString());
+        BoardRepository boards = new BoardRepositoryIndexedDB(driver);
+        UserRepository users = new UserRepositoryCache(new UserRepositoryIndexedDB(driver), queue);
+        KakuroRepository kakuros = new KakuroRepositoryCache(new KakuroRepositoryIndexedDB(driver, users, boards), queue);
+
+        User alex = new User("Alex");
+        users.saveUser(alex);
+        Kakuro kakuro = new Kakuro("A", Difficulty.EASY, new Board(3, 3, new WhiteCell(true)), alex, "seedA", 0);
+        kakuros.saveKakuro(kakuro);
+        GameInProgress game = new GameInProgress(alex, kakuro);
+        new GameRepositoryCache(new GameRepositoryIndexedDB(driver, users, kakuros, boards), queue).saveGame(game);
+        queue.flush();
+
+        // a new cache loads the games from the database, their players and kakuros are the cached ones
+        GameRepository cache = new GameRepositoryCache(new GameRepositoryIndexedDB(driver, users, kakuros, boards), queue);
+        Game loaded = cache.getGame(game.getId());
+        assertSame(kakuros.getKakuro("A"), loaded.getKakuro());
+        assertSame(users.getUser("Alex"), loaded.getPlayer());
+
+        // games in progress are modified while playing, the cache hands out copies of them
+        ((GameInProgress) loaded).getBoard().setCellValue(1, 1, 5);
+        assertTrue(((GameInProgress) cache.getGame(game.getId())).getBoard().isEmpty(1, 1));
+    }
+
+    @Test
+    public void testSecondaryIndexes() throws IOException {
+        KakuroRepository cache = new KakuroRepositoryCache(new KakuroRepositoryIndexedDB(new IndexedDB(dir.toString())), queue);
+        User alex = new User("Alex");
+
+        cache.saveKakuro(new Kakuro("A", Difficulty.EASY, new Board(3, 3), alex, "seedA", 0));
+        cache.saveKakuro(new Kakuro("B", Difficulty.HARD, new Board(3, 3), "seedB", 1));
+        cache.saveKakuro(new Kakuro("C", Difficulty.EASY, new Board(3, 3), alex, "seedC", 2));
+        // saving it again with other fields moves it to the new values only
+        cache.saveKakuro(new Kakuro("B", Difficulty.EASY, new Board(3, 3), alex, "seedB", 1));
+        cache.deleteKakuro("C");
+
+        ArrayList<Kakuro> easy = cache.getAllKakurosByDifficulty(Difficulty.EASY);
+        assertEquals(2, easy.size());
+        assertEquals("A", easy.get(0).getName());
+        assertEquals("B", easy.get(1).getName());
+        assertEquals(0, cache.getAllKakurosByDifficulty(Difficulty.HARD).size());
+        assertEquals(2, cache.getAllKakurosByUser(alex).size());
+        assertEquals(0, cache.getAllKakurosByUser(new User("Marc")).size());
+    }
+
+    @Test
+    public void testGameIndexes() throws IOException {
+        IndexedDB driver = new IndexedDB(dir.toString());
+        BoardRepository boards = new BoardRepositoryIndexedDB(driver);
+        UserRepository users = new UserRepositoryCache(new UserRepositoryIndexedDB(driver), queue);
+        KakuroRepository kakuros = new KakuroRepositoryCache(new KakuroRepositoryIndexedDB(driver, users, boards), queue);
+        GameRepository cache = new GameRepositoryCache(new GameRepositoryIndexedDB(driver, users, kakuros, boards), queue);
+
+        User[] players = { new User("Alex"), new User("Cesc"), new User("Marc") };
+        Kakuro[] kakuroList = {
+            new Kakuro("A", Difficulty.EASY, new Board(3, 3, new WhiteCell(true)), "seedA", 0),
+            new Kakuro("B", Difficulty.HARD, new Board(3, 3, new WhiteCell(true)), "seedB", 1),
+            new Kakuro("C", Difficulty.EASY, new Board(3, 3, new WhiteCell(true)), "seedC", 2)
+        };
+        for (User u : players) users.saveUser(u);
+        for (Kakuro k : kakuroList) kakuros.saveKakuro(k);
+
+        Random random = new Random(1);
+        ArrayList<Game> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Game g = new GameInProgress(players[random.nextInt(3)], kakuroList[random.nextInt(3)]);
+            cache.saveGame(g);
+            expected.add(g);
+        }
+        // saved again as finished games, possibly of another player and kakuro
+        for (int i = 0; i < expected.size(); i += 3) {
+            Game old = expected.get(i);
+            Game g = new GameFinished(old.getId(), old.getStartTime(), 10, players[random.nextInt(3)],
+                    kakuroList[random.nextInt(3)], 5, new Timestamp(0), false);
+            cache.saveGame(g);
+            expected.set(i, g);
+        }
+        for (int i = expected.size()-2; i >= 0; i -= 4) {
+            cache.deleteGame(expected.get(i));
+            expected.remove(i);
+        }
+        assertQueries(expected, cache, players, kakuroList);
+
+        // the indexes of a cache loaded from the database are the same
+        queue.flush();
+        assertQueries(expected, new GameRepositoryCache(new GameRepositoryIndexedDB(driver, users, kakuros, boards), queue), players, kakuroList);
+    }
+
+    // checks every query of the cache against a linear filter of the games it should have
+    private static void assertQueries(ArrayList<Game> expected, GameRepository cache, User[] players, Kakuro[] kakuros) throws IOException {
+        assertSameGames(expected, cache.getAllGames());
+
+        for (User u : players) {
+            ArrayList<Game> ofUser = new ArrayList<>();
+            for (Game g : expected) if (g.getPlayerName().equals(u.getName())) ofUser.add(g);
+            assertSameGames(ofUser, cache.getAllGamesByUser(u));
+
+            for (Difficulty d : Difficulty.values()) {
+                ArrayList<Game> ofBoth = new ArrayList<>();
+                for (Game g : ofUser) if (g.getKakuro().getDifficulty() == d) ofBoth.add(g);
+                assertSameGames(ofBoth, cache.getAllGamesByDifficultyAndUser(d, u));
+            }
+        }
+        for (Kakuro k : kakuros) {
+            ArrayList<Game> inKakuro = new ArrayList<>();
+            for (Game g : expected) if (g.getKakuroName().equals(k.getName())) inKakuro.add(g);
+            assertSameGames(inKakuro, cache.getAllGamesInKakuro(k));
+        }
+        for (Difficulty d : Difficulty.values()) {
+            ArrayList<Game> ofDifficulty = new ArrayList<>();
+            for (Game g : expected) if (g.getKakuro().getDifficulty() == d) ofDifficulty.add(g);
+            assertSameGames(ofDifficulty, cache.getAllGamesByDifficulty(d));
+        }
+
+        ArrayList<Game> inProgress = new ArrayList<>(), finished = new ArrayList<>();
+        for (Game g : expected) {
+            if (g instanceof GameInProgress) inProgress.add(g);
+            else finished.add(g);
+        }
+        assertSameGames(inProgress, cache.getAllGamesInProgress());
+        assertSameGames(finished, cache.getAllGamesFinished());
+    }
+
+    // same games, by id and in any order
+    private static void assertSameGames(ArrayList<Game> expected, ArrayList<? extends Game> actual) {
+        HashSet<UUID> expectedIds = new HashSet<>(), actualIds = new HashSet<>();
+        for (Game g : expected) expectedIds.add(g.getId());
+        for (Game g : actual) actualIds.add(g.getId());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expectedIds, actualIds);
+    }
+}